@@ -24,6 +24,12 @@ public class AppConfig {
     private static final String KEY_RECENT_FILES = "recent.files";
     private static final String KEY_LAST_PROJECT = "last.project";
     private static final String KEY_AUTO_LOAD_LAST_PROJECT = "auto.load.last.project";
+    private static final String KEY_IMPORT_INCLUDE_PATTERNS = "import.include.patterns";
+    private static final String KEY_IMPORT_EXCLUDE_PATTERNS = "import.exclude.patterns";
+    private static final String KEY_IMPORT_DETECT_SOURCE_ROOTS = "import.detect.source.roots";
+    private static final String KEY_IMPORT_AGGREGATE_PACKAGES = "import.aggregate.packages";
+    private static final String KEY_IMPORT_LAZY_MEMBERS = "import.lazy.members";
+    private static final String KEY_PARSE_CACHE_MAX_MEGABYTES = "parse.cache.max.megabytes";
 
     private static AppConfig instance;
     private final Properties properties;
@@ -40,6 +46,10 @@ public class AppConfig {
         return instance;
     }
 
+    public static Path getConfigDirectory() {
+        return Paths.get(CONFIG_DIRECTORY);
+    }
+
     private void load() {
         try {
             Path configDir = Paths.get(CONFIG_DIRECTORY);
@@ -166,4 +176,62 @@ public class AppConfig {
         properties.setProperty(KEY_AUTO_LOAD_LAST_PROJECT, String.valueOf(autoLoad));
         save();
     }
-}
\ No newline at end of file
+
+    public String getImportIncludePatterns() {
+        return properties.getProperty(KEY_IMPORT_INCLUDE_PATTERNS, "");
+    }
+
+    public void setImportIncludePatterns(String patterns) {
+        properties.setProperty(KEY_IMPORT_INCLUDE_PATTERNS, patterns);
+        save();
+    }
+
+    public String getImportExcludePatterns(String defaultPatterns) {
+        return properties.getProperty(KEY_IMPORT_EXCLUDE_PATTERNS, defaultPatterns);
+    }
+
+    public void setImportExcludePatterns(String patterns) {
+        properties.setProperty(KEY_IMPORT_EXCLUDE_PATTERNS, patterns);
+        save();
+    }
+
+    public boolean isImportDetectSourceRoots() {
+        return Boolean.parseBoolean(properties.getProperty(KEY_IMPORT_DETECT_SOURCE_ROOTS, "true"));
+    }
+
+    public void setImportDetectSourceRoots(boolean detect) {
+        properties.setProperty(KEY_IMPORT_DETECT_SOURCE_ROOTS, String.valueOf(detect));
+        save();
+    }
+
+    public boolean isImportAggregatePackages() {
+        return Boolean.parseBoolean(properties.getProperty(KEY_IMPORT_AGGREGATE_PACKAGES, "false"));
+    }
+
+    public void setImportAggregatePackages(boolean aggregate) {
+        properties.setProperty(KEY_IMPORT_AGGREGATE_PACKAGES, String.valueOf(aggregate));
+        save();
+    }
+
+    public boolean isImportLazyMembers() {
+        return Boolean.parseBoolean(properties.getProperty(KEY_IMPORT_LAZY_MEMBERS, "true"));
+    }
+
+    public void setImportLazyMembers(boolean lazy) {
+        properties.setProperty(KEY_IMPORT_LAZY_MEMBERS, String.valueOf(lazy));
+        save();
+    }
+
+    public int getParseCacheMaxMegabytes() {
+        try {
+            return Math.max(1, Integer.parseInt(properties.getProperty(KEY_PARSE_CACHE_MAX_MEGABYTES, "256")));
+        } catch (NumberFormatException e) {
+            return 256;
+        }
+    }
+
+    public void setParseCacheMaxMegabytes(int megabytes) {
+        properties.setProperty(KEY_PARSE_CACHE_MAX_MEGABYTES, String.valueOf(megabytes));
+        save();
+    }
+}
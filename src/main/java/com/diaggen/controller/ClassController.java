@@ -105,11 +105,12 @@ public class ClassController extends BaseController {
 
         LOGGER.log(Level.INFO, "Starting automatic class arrangement");
         if (layoutService != null) {
-            layoutService.arrangeClasses(diagram, commandManager);
-            eventBus.publish(new DiagramChangedEvent(diagram.getId(),
-                    DiagramChangedEvent.ChangeType.DIAGRAM_RENAMED, null));
-            sessionManager.markProjectAsModified();
-            LOGGER.log(Level.FINE, "Project marked as modified after automatic arrangement");
+            layoutService.arrangeClasses(diagram, commandManager, () -> {
+                eventBus.publish(new DiagramChangedEvent(diagram.getId(),
+                        DiagramChangedEvent.ChangeType.DIAGRAM_RENAMED, null));
+                sessionManager.markProjectAsModified();
+                LOGGER.log(Level.FINE, "Project marked as modified after automatic arrangement");
+            });
 
             return;
         }
@@ -1,26 +1,44 @@
 package com.diaggen.controller;
 
+import com.diaggen.controller.command.CollapsePackageCommand;
 import com.diaggen.controller.command.CommandManager;
+import com.diaggen.controller.command.ExpandPackageCommand;
+import com.diaggen.config.AppConfig;
 import com.diaggen.event.DiagramActivatedEvent;
 import com.diaggen.event.DiagramChangedEvent;
 import com.diaggen.layout.LayoutFactory;
 import com.diaggen.model.ClassDiagram;
+import com.diaggen.model.DiagramClass;
 import com.diaggen.model.DiagramStore;
+import com.diaggen.model.PackageAggregation;
 import com.diaggen.model.Project;
+import com.diaggen.model.java.ImportOptions;
+import com.diaggen.model.java.JavaBytecodeParser;
 import com.diaggen.model.java.JavaCodeParser;
+import com.diaggen.model.java.JavaProjectSync;
+import com.diaggen.model.java.ParseCache;
 import com.diaggen.service.ExportService;
+import com.diaggen.service.JavaProjectWatcher;
+import com.diaggen.service.JavaSyncCommandApplier;
 import com.diaggen.service.LayoutService;
 import com.diaggen.util.AlertHelper;
+import com.diaggen.view.dialog.ImportOptionsDialog;
 import javafx.collections.FXCollections;
+import javafx.concurrent.Task;
+import javafx.event.ActionEvent;
+import javafx.geometry.Dimension2D;
 import javafx.collections.ObservableList;
 import javafx.scene.control.Alert;
 import javafx.scene.control.ButtonType;
 import javafx.stage.DirectoryChooser;
 import javafx.stage.FileChooser;
 import javafx.stage.Window;
+import org.controlsfx.dialog.ProgressDialog;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Optional;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -31,6 +49,8 @@ public class ExportController extends BaseController {
     private final ExportService exportService;
     private final ClassController classController;
     private final DiagramController diagramController;
+    private final Map<String, JavaProjectSync> projectSyncs = new HashMap<>();
+    private final Map<String, JavaProjectWatcher> projectWatchers = new HashMap<>();
     private Window ownerWindow;
     private LayoutService layoutService;
 
@@ -200,21 +220,23 @@ public class ExportController extends BaseController {
         Alert choiceAlert = new Alert(Alert.AlertType.CONFIRMATION);
         choiceAlert.setTitle("Importer du code Java");
         choiceAlert.setHeaderText("Choisir le type d'importation");
-        choiceAlert.setContentText("Voulez-vous importer un fichier Java unique ou un projet/dossier complet?");
+        choiceAlert.setContentText("Voulez-vous importer un fichier Java unique, un projet/dossier complet " +
+                "ou du bytecode compilé (JAR ou dossier de classes)?");
 
         ButtonType fileButton = new ButtonType("Fichier unique");
         ButtonType dirButton = new ButtonType("Projet/Dossier");
+        ButtonType jarButton = new ButtonType("Fichier JAR");
+        ButtonType classesButton = new ButtonType("Dossier de classes");
         ButtonType cancelButton = ButtonType.CANCEL;
 
-        choiceAlert.getButtonTypes().setAll(fileButton, dirButton, cancelButton);
+        choiceAlert.getButtonTypes().setAll(fileButton, dirButton, jarButton, classesButton, cancelButton);
 
         Optional<ButtonType> choice = choiceAlert.showAndWait();
         if (!choice.isPresent()) {
             return;
         }
 
-        JavaCodeParser parser = new JavaCodeParser();
-        ClassDiagram parsedDiagram = null;
+        JavaImportTask importTask;
 
         if (choice.get() == fileButton) {
             FileChooser fileChooser = new FileChooser();
@@ -223,62 +245,339 @@ public class ExportController extends BaseController {
                     new FileChooser.ExtensionFilter("Fichiers Java (*.java)", "*.java"));
 
             File file = fileChooser.showOpenDialog(ownerWindow);
-            if (file != null) {
-                try {
-                    parsedDiagram = parser.parseFile(file);
-                    parsedDiagram.setName("Diagramme - " + file.getName());
-                } catch (Exception e) {
-                    AlertHelper.showError("Erreur d'importation",
-                            "Erreur lors de l'analyse du fichier Java: " + e.getMessage());
-                    return;
-                }
-            } else {
+            if (file == null) {
                 return;
             }
+            importTask = new JavaImportTask(file, ImportKind.JAVA_FILE, null, layoutService);
         } else if (choice.get() == dirButton) {
             DirectoryChooser dirChooser = new DirectoryChooser();
             dirChooser.setTitle("Importer un projet Java");
 
             File dir = dirChooser.showDialog(ownerWindow);
-            if (dir != null) {
-                try {
-                    parsedDiagram = parser.parseProject(dir.toPath());
-                    parsedDiagram.setName("Projet - " + dir.getName());
-                } catch (Exception e) {
-                    AlertHelper.showError("Erreur d'importation",
-                            "Erreur lors de l'analyse du projet Java: " + e.getMessage());
-                    return;
-                }
-            } else {
+            if (dir == null) {
+                return;
+            }
+
+            Optional<ImportOptions> importOptions = new ImportOptionsDialog(ownerWindow, loadImportOptions()).showAndWait();
+            if (importOptions.isEmpty()) {
+                return;
+            }
+            saveImportOptions(importOptions.get());
+            importTask = new JavaImportTask(dir, ImportKind.JAVA_PROJECT, importOptions.get(), layoutService);
+        } else if (choice.get() == jarButton) {
+            FileChooser fileChooser = new FileChooser();
+            fileChooser.setTitle("Importer du bytecode Java");
+            fileChooser.getExtensionFilters().addAll(
+                    new FileChooser.ExtensionFilter("Archives Java (*.jar)", "*.jar"),
+                    new FileChooser.ExtensionFilter("Fichiers de classe (*.class)", "*.class"));
+
+            File file = fileChooser.showOpenDialog(ownerWindow);
+            if (file == null) {
+                return;
+            }
+            importTask = new JavaImportTask(file, ImportKind.BYTECODE, loadImportOptions(), layoutService);
+        } else if (choice.get() == classesButton) {
+            DirectoryChooser dirChooser = new DirectoryChooser();
+            dirChooser.setTitle("Importer un dossier de classes compilées");
+
+            File dir = dirChooser.showDialog(ownerWindow);
+            if (dir == null) {
                 return;
             }
+            importTask = new JavaImportTask(dir, ImportKind.BYTECODE, loadImportOptions(), layoutService);
         } else {
             return;
         }
 
-        if (parsedDiagram != null) {
-            LOGGER.log(Level.INFO, "Applying intelligent layout to imported diagram");
-            if (layoutService != null) {
-                layoutService.applyLayout(parsedDiagram, LayoutFactory.LayoutType.FORCE_DIRECTED);
+        importTask.setOnSucceeded(event -> publishImportedDiagram(importTask.getValue(), importTask.getProjectSync()));
+        importTask.setOnCancelled(event -> LOGGER.log(Level.INFO, "Java import cancelled"));
+        importTask.setOnFailed(event -> {
+            Throwable error = importTask.getException();
+            LOGGER.log(Level.WARNING, "Java import failed", error);
+            AlertHelper.showError("Erreur d'importation",
+                    "Erreur lors de l'analyse du code Java: " + getRootMessage(error));
+        });
+
+        ProgressDialog progressDialog = new ProgressDialog(importTask);
+        progressDialog.initOwner(ownerWindow);
+        progressDialog.setTitle("Importer du code Java");
+        progressDialog.setHeaderText("Analyse du code Java en cours...");
+        progressDialog.getDialogPane().getButtonTypes().add(ButtonType.CANCEL);
+        progressDialog.getDialogPane().lookupButton(ButtonType.CANCEL)
+                .addEventFilter(ActionEvent.ACTION, event -> importTask.cancel());
+
+        Thread importThread = new Thread(importTask, "java-import");
+        importThread.setDaemon(true);
+        importThread.start();
+    }
+
+    private void publishImportedDiagram(ClassDiagram parsedDiagram, JavaProjectSync projectSync) {
+        if (diagramStore.getActiveProject() == null) {
+            return;
+        }
+
+        diagramStore.getActiveProject().addDiagram(parsedDiagram);
+        if (projectSync != null) {
+            projectSyncs.put(parsedDiagram.getId(), projectSync);
+        }
+
+        if (diagramController != null) {
+            LOGGER.log(Level.INFO, "Activating imported diagram using DiagramController");
+            diagramController.activateDiagram(parsedDiagram, true);
+        } else {
+            LOGGER.log(Level.INFO, "Activating imported diagram manually (DiagramController not available)");
+            diagramStore.setActiveDiagram(parsedDiagram);
+            eventBus.publish(new DiagramChangedEvent(parsedDiagram.getId(),
+                    DiagramChangedEvent.ChangeType.DIAGRAM_RENAMED, null));
+            eventBus.publish(new DiagramActivatedEvent(parsedDiagram.getId()));
+        }
+
+        AlertHelper.showInfo("Importation réussie",
+                "Le diagramme a été importé avec succès et disposé automatiquement.\n" +
+                        "Vous pouvez utiliser la fonction 'Arrangement automatique' pour tester d'autres dispositions.");
+    }
+
+    public void expandPackage(DiagramClass packageNode) {
+        ClassDiagram diagram = getActiveDiagram();
+        PackageAggregation aggregation = diagram != null ? diagram.getPackageAggregation() : null;
+        if (aggregation == null || packageNode == null || !aggregation.isPackageNode(packageNode)) {
+            return;
+        }
+
+        String packageName = aggregation.getPackageOf(packageNode);
+        if (!aggregation.isCollapsed(packageName)) {
+            return;
+        }
+        commandManager.executeCommand(new ExpandPackageCommand(aggregation, packageName));
+        eventBus.publish(new DiagramChangedEvent(diagram.getId(),
+                DiagramChangedEvent.ChangeType.DIAGRAM_RENAMED, null));
+    }
+
+    public void collapsePackage(DiagramClass diagramClass) {
+        ClassDiagram diagram = getActiveDiagram();
+        PackageAggregation aggregation = diagram != null ? diagram.getPackageAggregation() : null;
+        if (aggregation == null) {
+            AlertHelper.showWarning("Vue par paquetages", "Le diagramme actif n'a pas été importé en vue par paquetages.");
+            return;
+        }
+        if (diagramClass == null || aggregation.isPackageNode(diagramClass)) {
+            AlertHelper.showWarning("Vue par paquetages", "Sélectionnez une classe d'un paquetage développé.");
+            return;
+        }
+
+        commandManager.executeCommand(new CollapsePackageCommand(aggregation, aggregation.getPackageOf(diagramClass)));
+        eventBus.publish(new DiagramChangedEvent(diagram.getId(),
+                DiagramChangedEvent.ChangeType.DIAGRAM_RENAMED, null));
+    }
+
+    private String getRootMessage(Throwable error) {
+        Throwable cause = error;
+        while (cause != null && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        return cause != null ? cause.getMessage() : "";
+    }
+
+    public void resyncJavaCode() {
+        resyncJavaCode(null);
+    }
+
+    private void resyncJavaCode(Runnable onSynchronized) {
+        ClassDiagram diagram = getActiveDiagram();
+        if (diagram == null) {
+            AlertHelper.showWarning("Aucun diagramme actif", "Il n'y a pas de diagramme à resynchroniser.");
+            return;
+        }
+        if (!checkPackagesExpanded(diagram)) {
+            return;
+        }
+
+        JavaProjectSync existingSync = getProjectSync(diagram);
+        if (existingSync == null) {
+            DirectoryChooser dirChooser = new DirectoryChooser();
+            dirChooser.setTitle("Resynchroniser avec un projet Java");
+
+            File dir = dirChooser.showDialog(ownerWindow);
+            if (dir == null) {
+                return;
             }
+            existingSync = new JavaProjectSync(dir.toPath(), diagram);
+            existingSync.setParseCache(ParseCache.getInstance());
+            existingSync.setImportOptions(loadImportOptions());
+        }
 
-            diagramStore.getActiveProject().addDiagram(parsedDiagram);
+        JavaProjectSync projectSync = existingSync;
+        JavaResyncTask resyncTask = new JavaResyncTask(projectSync);
+        resyncTask.setOnSucceeded(event -> {
+            projectSyncs.put(diagram.getId(), projectSync);
+            applyResync(diagram, projectSync, resyncTask.getValue());
+            if (onSynchronized != null) {
+                onSynchronized.run();
+            }
+        });
+        resyncTask.setOnCancelled(event -> LOGGER.log(Level.INFO, "Java resynchronization cancelled"));
+        resyncTask.setOnFailed(event -> {
+            Throwable error = resyncTask.getException();
+            LOGGER.log(Level.WARNING, "Java resynchronization failed", error);
+            AlertHelper.showError("Erreur de synchronisation",
+                    "Erreur lors de l'analyse du projet Java: " + getRootMessage(error));
+        });
+
+        ProgressDialog progressDialog = new ProgressDialog(resyncTask);
+        progressDialog.initOwner(ownerWindow);
+        progressDialog.setTitle("Resynchroniser avec le code Java");
+        progressDialog.setHeaderText("Analyse des fichiers modifiés...");
+        progressDialog.getDialogPane().getButtonTypes().add(ButtonType.CANCEL);
+        progressDialog.getDialogPane().lookupButton(ButtonType.CANCEL)
+                .addEventFilter(ActionEvent.ACTION, event -> resyncTask.cancel());
+
+        Thread resyncThread = new Thread(resyncTask, "java-resync");
+        resyncThread.setDaemon(true);
+        resyncThread.start();
+    }
 
-            if (diagramController != null) {
-                LOGGER.log(Level.INFO, "Activating imported diagram using DiagramController");
-                diagramController.activateDiagram(parsedDiagram, true);
-            } else {
-                LOGGER.log(Level.INFO, "Activating imported diagram manually (DiagramController not available)");
-                diagramStore.setActiveDiagram(parsedDiagram);
-                eventBus.publish(new DiagramChangedEvent(parsedDiagram.getId(),
-                        DiagramChangedEvent.ChangeType.DIAGRAM_RENAMED, null));
-                eventBus.publish(new DiagramActivatedEvent(parsedDiagram.getId()));
+    private void applyResync(ClassDiagram diagram, JavaProjectSync projectSync,
+                             JavaProjectSync.PendingChanges changes) {
+        JavaSyncCommandApplier applier = new JavaSyncCommandApplier(diagram, commandManager);
+        applier.setLayoutService(layoutService);
+        JavaProjectSync.SyncResult syncResult = applier.apply(projectSync, changes);
+        applier.publishEvents();
+
+        if (syncResult.hasChanges()) {
+            eventBus.publish(new DiagramChangedEvent(diagram.getId(),
+                    DiagramChangedEvent.ChangeType.DIAGRAM_RENAMED, null));
+        }
+
+        AlertHelper.showInfo("Synchronisation terminée",
+                syncResult.getFilesChanged() + " fichier(s) modifié(s), " +
+                        syncResult.getFilesRemoved() + " supprimé(s).\n" +
+                        syncResult.getAddedClasses().size() + " classe(s) ajoutée(s), " +
+                        syncResult.getUpdatedClasses().size() + " mise(s) à jour, " +
+                        syncResult.getRemovedClasses().size() + " supprimée(s).\n" +
+                        "La synchronisation peut être annulée avec la commande Annuler.");
+    }
+
+    public void toggleJavaWatch() {
+        ClassDiagram diagram = getActiveDiagram();
+        if (diagram == null) {
+            AlertHelper.showWarning("Aucun diagramme actif", "Il n'y a pas de diagramme à surveiller.");
+            return;
+        }
+
+        JavaProjectSync projectSync = getProjectSync(diagram);
+        JavaProjectWatcher watcher = projectWatchers.remove(diagram.getId());
+        if (watcher != null && watcher.isRunning()) {
+            watcher.stop();
+            AlertHelper.showInfo("Surveillance arrêtée",
+                    "Le diagramme n'est plus synchronisé automatiquement avec le code Java.");
+            return;
+        }
+
+        if (!checkPackagesExpanded(diagram)) {
+            return;
+        }
+
+        if (projectSync == null) {
+            resyncJavaCode(() -> startJavaWatch(diagram));
+        } else {
+            startJavaWatch(diagram);
+        }
+    }
+
+    private JavaProjectSync getProjectSync(ClassDiagram diagram) {
+        JavaProjectSync projectSync = projectSyncs.get(diagram.getId());
+        if (projectSync != null && projectSync.getDiagram() != diagram) {
+            projectSyncs.remove(diagram.getId());
+            JavaProjectWatcher watcher = projectWatchers.remove(diagram.getId());
+            if (watcher != null) {
+                watcher.stop();
             }
+            return null;
+        }
+        return projectSync;
+    }
+
+    private boolean checkPackagesExpanded(ClassDiagram diagram) {
+        PackageAggregation aggregation = diagram.getPackageAggregation();
+        if (aggregation != null && aggregation.hasCollapsedPackages()) {
+            AlertHelper.showWarning("Vue par paquetages",
+                    "Développez tous les paquetages avant de synchroniser le diagramme avec le code Java.");
+            return false;
+        }
+        return true;
+    }
 
-            AlertHelper.showInfo("Importation réussie",
-                    "Le diagramme a été importé avec succès et disposé automatiquement.\n" +
-                            "Vous pouvez utiliser la fonction 'Arrangement automatique' pour tester d'autres dispositions.");
+    private void startJavaWatch(ClassDiagram diagram) {
+        JavaProjectSync projectSync = getProjectSync(diagram);
+        if (projectSync == null) {
+            return;
+        }
+
+        JavaProjectWatcher watcher = new JavaProjectWatcher(projectSync, commandManager);
+        watcher.setLayoutService(layoutService);
+        try {
+            watcher.start();
+        } catch (IOException e) {
+            AlertHelper.showError("Erreur de surveillance",
+                    "Impossible de surveiller le projet Java: " + e.getMessage());
+            return;
         }
+        projectWatchers.put(diagram.getId(), watcher);
+
+        AlertHelper.showInfo("Surveillance activée",
+                "Les modifications de " + projectSync.getProjectPath() + " seront appliquées au diagramme.\n" +
+                        "Chaque synchronisation peut être annulée avec la commande Annuler.");
+    }
+
+    public void clearParseCache() {
+        Alert confirmation = new Alert(Alert.AlertType.CONFIRMATION);
+        confirmation.initOwner(ownerWindow);
+        confirmation.setTitle("Vider le cache d'analyse");
+        confirmation.setHeaderText("Supprimer les résultats d'analyse Java mis en cache?");
+        confirmation.setContentText("Les prochains imports et synchronisations analyseront à nouveau tous les fichiers.");
+        Optional<ButtonType> result = confirmation.showAndWait();
+        if (result.isEmpty() || result.get() != ButtonType.OK) {
+            return;
+        }
+
+        Task<Long> clearTask = new Task<>() {
+            @Override
+            protected Long call() {
+                ParseCache parseCache = ParseCache.getInstance();
+                long size = parseCache.getSize();
+                parseCache.clear();
+                return size;
+            }
+        };
+        clearTask.setOnSucceeded(event -> AlertHelper.showInfo("Cache d'analyse vidé",
+                (clearTask.getValue() / 1024) + " Ko libérés."));
+        clearTask.setOnFailed(event -> AlertHelper.showError("Erreur",
+                "Impossible de vider le cache d'analyse: " + getRootMessage(clearTask.getException())));
+
+        Thread clearThread = new Thread(clearTask, "parse-cache-clear");
+        clearThread.setDaemon(true);
+        clearThread.start();
+    }
+
+    private ImportOptions loadImportOptions() {
+        AppConfig config = AppConfig.getInstance();
+        ImportOptions options = new ImportOptions();
+        options.setIncludePatterns(ImportOptions.parsePatterns(config.getImportIncludePatterns()));
+        options.setExcludePatterns(ImportOptions.parsePatterns(
+                config.getImportExcludePatterns(String.join(";", ImportOptions.DEFAULT_EXCLUDE_PATTERNS))));
+        options.setDetectSourceRoots(config.isImportDetectSourceRoots());
+        options.setAggregatePackages(config.isImportAggregatePackages());
+        options.setLazyMembers(config.isImportLazyMembers());
+        return options;
+    }
+
+    private void saveImportOptions(ImportOptions options) {
+        AppConfig config = AppConfig.getInstance();
+        config.setImportIncludePatterns(String.join(";", options.getIncludePatterns()));
+        config.setImportExcludePatterns(String.join(";", options.getExcludePatterns()));
+        config.setImportDetectSourceRoots(options.isDetectSourceRoots());
+        config.setImportAggregatePackages(options.isAggregatePackages());
+        config.setImportLazyMembers(options.isLazyMembers());
     }
 
     private ObservableList<ClassDiagram> getActiveDiagrams() {
@@ -288,4 +587,119 @@ public class ExportController extends BaseController {
         }
         return FXCollections.observableArrayList();
     }
-}
\ No newline at end of file
+
+    private enum ImportKind {
+        JAVA_FILE,
+        JAVA_PROJECT,
+        BYTECODE
+    }
+
+    private static class JavaResyncTask extends Task<JavaProjectSync.PendingChanges> {
+        private final JavaProjectSync projectSync;
+
+        JavaResyncTask(JavaProjectSync projectSync) {
+            this.projectSync = projectSync;
+        }
+
+        @Override
+        protected JavaProjectSync.PendingChanges call() {
+            updateMessage("Recherche des fichiers modifiés dans " + projectSync.getProjectPath() + "...");
+            projectSync.setCancellationCheck(this::isCancelled);
+            projectSync.setProgressListener(this::onFileParsed);
+            try {
+                return projectSync.prepare(null);
+            } finally {
+                projectSync.setCancellationCheck(null);
+                projectSync.setProgressListener(null);
+            }
+        }
+
+        private void onFileParsed(int parsedFiles, int totalFiles) {
+            updateProgress(parsedFiles, totalFiles);
+            updateMessage(parsedFiles + " / " + totalFiles + " fichiers analysés");
+        }
+    }
+
+    private static class JavaImportTask extends Task<ClassDiagram> {
+        private final File source;
+        private final ImportKind importKind;
+        private final ImportOptions importOptions;
+        private final LayoutService layoutService;
+        private final Dimension2D viewport;
+        private JavaProjectSync projectSync;
+
+        JavaImportTask(File source, ImportKind importKind, ImportOptions importOptions, LayoutService layoutService) {
+            this.source = source;
+            this.importKind = importKind;
+            this.importOptions = importOptions;
+            this.layoutService = layoutService;
+            this.viewport = layoutService != null ? layoutService.getViewportSize() : null;
+        }
+
+        JavaProjectSync getProjectSync() {
+            return projectSync;
+        }
+
+        @Override
+        protected ClassDiagram call() {
+            updateMessage("Lecture de " + source.getName() + "...");
+            ClassDiagram parsedDiagram;
+
+            if (importKind == ImportKind.JAVA_PROJECT) {
+                parsedDiagram = new ClassDiagram("Projet - " + source.getName());
+                JavaProjectSync sync = new JavaProjectSync(source.toPath(), parsedDiagram);
+                sync.setParseCache(ParseCache.getInstance());
+                sync.setImportOptions(importOptions);
+                sync.setCancellationCheck(this::isCancelled);
+                sync.setProgressListener(this::onFileParsed);
+                sync.synchronize();
+                sync.setCancellationCheck(null);
+                sync.setProgressListener(null);
+                projectSync = sync;
+            } else if (importKind == ImportKind.BYTECODE) {
+                JavaBytecodeParser parser = new JavaBytecodeParser();
+                parser.setCancellationCheck(this::isCancelled);
+                parser.setProgressListener(this::onFileParsed);
+                parser.setImportOptions(importOptions);
+                parsedDiagram = parser.parse(source.toPath());
+                parsedDiagram.setName("Bytecode - " + source.getName());
+            } else {
+                JavaCodeParser parser = new JavaCodeParser();
+                parser.setParseCache(ParseCache.getInstance());
+                parsedDiagram = parser.parseFile(source);
+                parsedDiagram.setName("Diagramme - " + source.getName());
+            }
+
+            if (isCancelled()) {
+                return null;
+            }
+
+            if (importOptions != null && importOptions.isAggregatePackages()) {
+                PackageAggregation.collapse(parsedDiagram);
+            }
+
+            if (layoutService != null) {
+                LOGGER.log(Level.INFO, "Applying intelligent layout to imported diagram");
+                updateProgress(-1, 1);
+                updateMessage("Disposition automatique du diagramme...");
+                layoutService.applyLayoutWithDimensions(parsedDiagram, LayoutFactory.LayoutType.FORCE_DIRECTED,
+                        viewport.getWidth(), viewport.getHeight(), this::onLayoutIteration, this::isCancelled);
+                if (isCancelled()) {
+                    return null;
+                }
+            }
+
+            return parsedDiagram;
+        }
+
+        private void onFileParsed(int parsedFiles, int totalFiles) {
+            updateProgress(parsedFiles, totalFiles);
+            updateMessage(parsedFiles + " / " + totalFiles + " fichiers analysés");
+        }
+
+        private void onLayoutIteration(int iteration, int maxIterations, double energy) {
+            updateProgress(iteration, maxIterations);
+            updateMessage(String.format("Disposition automatique du diagramme... (itération %d)", iteration));
+        }
+    }
+}
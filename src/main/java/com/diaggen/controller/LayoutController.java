@@ -27,9 +27,9 @@ public class LayoutController extends BaseController {
         }
 
         LOGGER.log(Level.INFO, "Starting class arrangement dialog");
-        layoutService.arrangeClasses(diagram, commandManager);
-        eventBus.publish(new DiagramChangedEvent(diagram.getId(),
-                DiagramChangedEvent.ChangeType.DIAGRAM_RENAMED, null));
+        layoutService.arrangeClasses(diagram, commandManager, () ->
+                eventBus.publish(new DiagramChangedEvent(diagram.getId(),
+                        DiagramChangedEvent.ChangeType.DIAGRAM_RENAMED, null)));
     }
 
     public void applyLayout(ClassDiagram diagram, LayoutFactory.LayoutType layoutType) {
@@ -38,9 +38,20 @@ public class LayoutController extends BaseController {
         }
 
         LOGGER.log(Level.INFO, "Applying {0} layout directly", layoutType);
-        layoutService.applyLayoutWithCommands(diagram, layoutType, commandManager);
-        eventBus.publish(new DiagramChangedEvent(diagram.getId(),
-                DiagramChangedEvent.ChangeType.DIAGRAM_RENAMED, null));
+        layoutService.applyLayoutAsync(diagram, layoutType, commandManager, true, () ->
+                eventBus.publish(new DiagramChangedEvent(diagram.getId(),
+                        DiagramChangedEvent.ChangeType.DIAGRAM_RENAMED, null)));
+    }
+
+    public void applyIncrementalLayout(ClassDiagram diagram) {
+        if (diagram == null || diagram.getClasses().isEmpty()) {
+            return;
+        }
+
+        LOGGER.log(Level.INFO, "Placing unpositioned classes of diagram {0}", diagram.getName());
+        layoutService.applyIncrementalLayoutAsync(diagram, commandManager, () ->
+                eventBus.publish(new DiagramChangedEvent(diagram.getId(),
+                        DiagramChangedEvent.ChangeType.DIAGRAM_RENAMED, null)));
     }
 
     public void applyLayoutWithoutCommands(ClassDiagram diagram, LayoutFactory.LayoutType layoutType) {
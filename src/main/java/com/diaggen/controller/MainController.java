@@ -124,6 +124,26 @@ public class MainController {
         exportController.importJavaCode();
     }
 
+    public void handleResyncJavaCode() {
+        exportController.resyncJavaCode();
+    }
+
+    public void handleToggleJavaWatch() {
+        exportController.toggleJavaWatch();
+    }
+
+    public void handleClearParseCache() {
+        exportController.clearParseCache();
+    }
+
+    public void handleExpandPackage(DiagramClass diagramClass) {
+        exportController.expandPackage(diagramClass);
+    }
+
+    public void handleCollapsePackage(DiagramClass diagramClass) {
+        exportController.collapsePackage(diagramClass);
+    }
+
     public void handleUndo() {
         if (commandManager.canUndo()) {
             commandManager.undo();
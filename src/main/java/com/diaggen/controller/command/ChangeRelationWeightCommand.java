@@ -0,0 +1,32 @@
+package com.diaggen.controller.command;
+
+import com.diaggen.model.DiagramRelation;
+
+public class ChangeRelationWeightCommand implements Command {
+
+    private final DiagramRelation relation;
+    private final int oldWeight;
+    private final int newWeight;
+
+    public ChangeRelationWeightCommand(DiagramRelation relation, int newWeight) {
+        this.relation = relation;
+        this.oldWeight = relation.getWeight();
+        this.newWeight = newWeight;
+    }
+
+    @Override
+    public void execute() {
+        relation.setWeight(newWeight);
+    }
+
+    @Override
+    public void undo() {
+        relation.setWeight(oldWeight);
+    }
+
+    @Override
+    public String getDescription() {
+        return "Changement du poids de la relation " + relation.getSourceClass().getName() +
+                " → " + relation.getTargetClass().getName();
+    }
+}
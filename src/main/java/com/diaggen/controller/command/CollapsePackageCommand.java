@@ -0,0 +1,33 @@
+package com.diaggen.controller.command;
+
+import com.diaggen.model.PackageAggregation;
+
+public class CollapsePackageCommand implements Command {
+
+    private final PackageAggregation aggregation;
+    private final String packageName;
+    private PackageAggregation.Change change;
+
+    public CollapsePackageCommand(PackageAggregation aggregation, String packageName) {
+        this.aggregation = aggregation;
+        this.packageName = packageName;
+    }
+
+    @Override
+    public void execute() {
+        change = aggregation.collapsePackage(packageName);
+    }
+
+    @Override
+    public void undo() {
+        if (change != null) {
+            aggregation.revert(change);
+            change = null;
+        }
+    }
+
+    @Override
+    public String getDescription() {
+        return "Repli du paquetage " + packageName;
+    }
+}
@@ -0,0 +1,33 @@
+package com.diaggen.controller.command;
+
+import com.diaggen.model.PackageAggregation;
+
+public class ExpandPackageCommand implements Command {
+
+    private final PackageAggregation aggregation;
+    private final String packageName;
+    private PackageAggregation.Change change;
+
+    public ExpandPackageCommand(PackageAggregation aggregation, String packageName) {
+        this.aggregation = aggregation;
+        this.packageName = packageName;
+    }
+
+    @Override
+    public void execute() {
+        change = aggregation.expandPackage(packageName);
+    }
+
+    @Override
+    public void undo() {
+        if (change != null) {
+            aggregation.revert(change);
+            change = null;
+        }
+    }
+
+    @Override
+    public String getDescription() {
+        return "Développement du paquetage " + packageName;
+    }
+}
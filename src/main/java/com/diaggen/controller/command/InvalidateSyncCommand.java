@@ -0,0 +1,27 @@
+package com.diaggen.controller.command;
+
+import com.diaggen.model.java.JavaProjectSync;
+
+public class InvalidateSyncCommand implements Command {
+
+    private final JavaProjectSync projectSync;
+
+    public InvalidateSyncCommand(JavaProjectSync projectSync) {
+        this.projectSync = projectSync;
+    }
+
+    @Override
+    public void execute() {
+        projectSync.invalidate();
+    }
+
+    @Override
+    public void undo() {
+        projectSync.invalidate();
+    }
+
+    @Override
+    public String getDescription() {
+        return "Réinitialisation de l'état de synchronisation de " + projectSync.getProjectPath();
+    }
+}
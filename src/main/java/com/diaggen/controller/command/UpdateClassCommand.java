@@ -0,0 +1,50 @@
+package com.diaggen.controller.command;
+
+import com.diaggen.model.ClassType;
+import com.diaggen.model.DiagramClass;
+
+public class UpdateClassCommand implements Command {
+
+    private final DiagramClass diagramClass;
+    private final DiagramClass previousState;
+    private final DiagramClass newState;
+
+    public UpdateClassCommand(DiagramClass diagramClass, DiagramClass newState) {
+        this.diagramClass = diagramClass;
+        this.previousState = snapshot(diagramClass);
+        this.newState = newState;
+    }
+
+    @Override
+    public void execute() {
+        applyState(newState);
+    }
+
+    @Override
+    public void undo() {
+        applyState(previousState);
+    }
+
+    @Override
+    public String getDescription() {
+        return "Mise à jour de la classe " + diagramClass.getName();
+    }
+
+    private void applyState(DiagramClass state) {
+        diagramClass.setClassType(state.getClassType());
+        diagramClass.setMembersFrom(state);
+    }
+
+    private static DiagramClass snapshot(DiagramClass diagramClass) {
+        ClassType classType = diagramClass.getClassType();
+        if (!diagramClass.isMaterialized()) {
+            return new DiagramClass(diagramClass.getName(), diagramClass.getPackageName(), classType,
+                    diagramClass.getMemberStore());
+        }
+
+        DiagramClass snapshot = new DiagramClass(diagramClass.getName(), diagramClass.getPackageName(), classType);
+        snapshot.getAttributes().setAll(diagramClass.getAttributes());
+        snapshot.getMethods().setAll(diagramClass.getMethods());
+        return snapshot;
+    }
+}
@@ -0,0 +1,196 @@
+package com.diaggen.layout;
+
+import java.util.Arrays;
+
+class BarnesHutTree {
+
+    private static final int MAX_DEPTH = 24;
+    private static final int NO_CHILD = -1;
+    private static final int NO_BODY = -1;
+
+    private double theta;
+    private double[] minX = new double[0];
+    private double[] minY = new double[0];
+    private double[] size = new double[0];
+    private double[] charge = new double[0];
+    private double[] chargeX = new double[0];
+    private double[] chargeY = new double[0];
+    private int[] firstChild = new int[0];
+    private int[] firstBody = new int[0];
+    private int[] nextBody = new int[0];
+    private int nodeCount;
+
+    BarnesHutTree(double theta) {
+        this.theta = theta;
+    }
+
+    double getTheta() {
+        return theta;
+    }
+
+    void setTheta(double theta) {
+        this.theta = theta;
+    }
+
+    int[] createStack() {
+        return new int[3 * MAX_DEPTH + 4];
+    }
+
+    void build(double[] x, double[] y, double[] q, int count) {
+        if (nextBody.length < count) {
+            nextBody = new int[count];
+        }
+        ensureNodeCapacity(Math.max(16, 2 * count + 1));
+
+        double left = Double.POSITIVE_INFINITY;
+        double top = Double.POSITIVE_INFINITY;
+        double right = Double.NEGATIVE_INFINITY;
+        double bottom = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < count; i++) {
+            left = Math.min(left, x[i]);
+            top = Math.min(top, y[i]);
+            right = Math.max(right, x[i]);
+            bottom = Math.max(bottom, y[i]);
+        }
+
+        nodeCount = 0;
+        int root = createNode(left, top, Math.max(1, Math.max(right - left, bottom - top)));
+        for (int i = 0; i < count; i++) {
+            insert(root, i, x, y, q);
+        }
+    }
+
+    void addRepulsion(int body, double[] x, double[] y, double[] q, double strength,
+                      double[] forceX, double[] forceY, int[] stack) {
+        double bodyX = x[body];
+        double bodyY = y[body];
+        double bodyCharge = q[body] * strength;
+        double fx = 0;
+        double fy = 0;
+
+        int stackSize = 0;
+        stack[stackSize++] = 0;
+        while (stackSize > 0) {
+            int node = stack[--stackSize];
+            if (charge[node] == 0) {
+                continue;
+            }
+
+            if (firstChild[node] == NO_CHILD) {
+                for (int other = firstBody[node]; other != NO_BODY; other = nextBody[other]) {
+                    if (other == body) {
+                        continue;
+                    }
+                    double dx = bodyX - x[other];
+                    double dy = bodyY - y[other];
+                    double distance = Math.max(1, Math.sqrt(dx * dx + dy * dy));
+                    double force = bodyCharge * q[other] / distance;
+                    fx += force * dx / distance;
+                    fy += force * dy / distance;
+                }
+                continue;
+            }
+
+            double dx = bodyX - chargeX[node] / charge[node];
+            double dy = bodyY - chargeY[node] / charge[node];
+            double distance = Math.sqrt(dx * dx + dy * dy);
+            if (size[node] < theta * distance) {
+                distance = Math.max(1, distance);
+                double force = bodyCharge * charge[node] / distance;
+                fx += force * dx / distance;
+                fy += force * dy / distance;
+            } else {
+                int child = firstChild[node];
+                stack[stackSize++] = child;
+                stack[stackSize++] = child + 1;
+                stack[stackSize++] = child + 2;
+                stack[stackSize++] = child + 3;
+            }
+        }
+
+        forceX[body] += fx;
+        forceY[body] += fy;
+    }
+
+    private void insert(int root, int body, double[] x, double[] y, double[] q) {
+        int node = root;
+        int depth = 0;
+        while (true) {
+            addCharge(node, body, x, y, q);
+
+            if (firstChild[node] != NO_CHILD) {
+                node = getChild(node, x[body], y[body]);
+                depth++;
+                continue;
+            }
+
+            if (firstBody[node] == NO_BODY || depth >= MAX_DEPTH) {
+                nextBody[body] = firstBody[node];
+                firstBody[node] = body;
+                return;
+            }
+
+            int existing = firstBody[node];
+            firstBody[node] = NO_BODY;
+            subdivide(node);
+            int existingChild = getChild(node, x[existing], y[existing]);
+            addCharge(existingChild, existing, x, y, q);
+            nextBody[existing] = NO_BODY;
+            firstBody[existingChild] = existing;
+
+            node = getChild(node, x[body], y[body]);
+            depth++;
+        }
+    }
+
+    private void addCharge(int node, int body, double[] x, double[] y, double[] q) {
+        charge[node] += q[body];
+        chargeX[node] += q[body] * x[body];
+        chargeY[node] += q[body] * y[body];
+    }
+
+    private int getChild(int node, double x, double y) {
+        double half = size[node] / 2;
+        int index = (x >= minX[node] + half ? 1 : 0) + (y >= minY[node] + half ? 2 : 0);
+        return firstChild[node] + index;
+    }
+
+    private void subdivide(int node) {
+        double half = size[node] / 2;
+        ensureNodeCapacity(nodeCount + 4);
+        int child = createNode(minX[node], minY[node], half);
+        createNode(minX[node] + half, minY[node], half);
+        createNode(minX[node], minY[node] + half, half);
+        createNode(minX[node] + half, minY[node] + half, half);
+        firstChild[node] = child;
+    }
+
+    private int createNode(double left, double top, double nodeSize) {
+        int node = nodeCount++;
+        minX[node] = left;
+        minY[node] = top;
+        size[node] = nodeSize;
+        charge[node] = 0;
+        chargeX[node] = 0;
+        chargeY[node] = 0;
+        firstChild[node] = NO_CHILD;
+        firstBody[node] = NO_BODY;
+        return node;
+    }
+
+    private void ensureNodeCapacity(int capacity) {
+        if (minX.length >= capacity) {
+            return;
+        }
+
+        int newCapacity = Math.max(capacity, minX.length * 2);
+        minX = Arrays.copyOf(minX, newCapacity);
+        minY = Arrays.copyOf(minY, newCapacity);
+        size = Arrays.copyOf(size, newCapacity);
+        charge = Arrays.copyOf(charge, newCapacity);
+        chargeX = Arrays.copyOf(chargeX, newCapacity);
+        chargeY = Arrays.copyOf(chargeY, newCapacity);
+        firstChild = Arrays.copyOf(firstChild, newCapacity);
+        firstBody = Arrays.copyOf(firstBody, newCapacity);
+    }
+}
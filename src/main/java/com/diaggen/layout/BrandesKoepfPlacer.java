@@ -0,0 +1,240 @@
+package com.diaggen.layout;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+class BrandesKoepfPlacer {
+
+    private final LayeredGraph graph;
+    private final double nodeSpacing;
+    private final double dummySpacing;
+    private final Set<Long> conflicts = new HashSet<>();
+
+    BrandesKoepfPlacer(LayeredGraph graph, double nodeSpacing, double dummySpacing) {
+        this.graph = graph;
+        this.nodeSpacing = nodeSpacing;
+        this.dummySpacing = dummySpacing;
+    }
+
+    double[] place() {
+        markTypeOneConflicts();
+
+        double[][] candidates = new double[4][];
+        double[] minX = new double[4];
+        double[] maxX = new double[4];
+        int narrowest = 0;
+        for (int direction = 0; direction < 4; direction++) {
+            boolean downward = direction < 2;
+            boolean leftToRight = direction % 2 == 0;
+            candidates[direction] = placeDirection(downward, leftToRight);
+
+            minX[direction] = Double.POSITIVE_INFINITY;
+            maxX[direction] = Double.NEGATIVE_INFINITY;
+            for (int v = 0; v < graph.nodeCount; v++) {
+                minX[direction] = Math.min(minX[direction], candidates[direction][v] - graph.width[v] / 2);
+                maxX[direction] = Math.max(maxX[direction], candidates[direction][v] + graph.width[v] / 2);
+            }
+            if (maxX[direction] - minX[direction] < maxX[narrowest] - minX[narrowest]) {
+                narrowest = direction;
+            }
+        }
+
+        for (int direction = 0; direction < 4; direction++) {
+            double shift = direction % 2 == 0
+                    ? minX[narrowest] - minX[direction]
+                    : maxX[narrowest] - maxX[direction];
+            for (int v = 0; v < graph.nodeCount; v++) {
+                candidates[direction][v] += shift;
+            }
+        }
+
+        double[] x = new double[graph.nodeCount];
+        double[] values = new double[4];
+        for (int v = 0; v < graph.nodeCount; v++) {
+            for (int direction = 0; direction < 4; direction++) {
+                values[direction] = candidates[direction][v];
+            }
+            Arrays.sort(values);
+            x[v] = (values[1] + values[2]) / 2;
+        }
+        return x;
+    }
+
+    private void markTypeOneConflicts() {
+        int[][] layers = graph.layers;
+        for (int l = 1; l + 1 < layers.length; l++) {
+            int[] lowerLayer = layers[l + 1];
+            int previousInner = 0;
+            int scanned = 0;
+            for (int i = 0; i < lowerLayer.length; i++) {
+                int innerUpper = getInnerUpperNeighbour(lowerLayer[i]);
+                if (i == lowerLayer.length - 1 || innerUpper >= 0) {
+                    int nextInner = innerUpper >= 0 ? graph.position[innerUpper] : layers[l].length - 1;
+                    for (; scanned <= i; scanned++) {
+                        int node = lowerLayer[scanned];
+                        for (int upper : graph.upper[node]) {
+                            int upperPosition = graph.position[upper];
+                            if ((upperPosition < previousInner || upperPosition > nextInner)
+                                    && !(graph.isDummy(upper) && graph.isDummy(node))) {
+                                conflicts.add(getEdgeKey(upper, node));
+                            }
+                        }
+                    }
+                    previousInner = nextInner;
+                }
+            }
+        }
+    }
+
+    private int getInnerUpperNeighbour(int node) {
+        if (graph.isDummy(node)) {
+            for (int upper : graph.upper[node]) {
+                if (graph.isDummy(upper)) {
+                    return upper;
+                }
+            }
+        }
+        return -1;
+    }
+
+    private double[] placeDirection(boolean downward, boolean leftToRight) {
+        int nodeCount = graph.nodeCount;
+        int layerCount = graph.layers.length;
+        int[] order = new int[nodeCount];
+        int[][] orderedLayers = new int[layerCount][];
+        for (int l = 0; l < layerCount; l++) {
+            int[] source = graph.layers[downward ? l : layerCount - 1 - l];
+            int[] ordered = new int[source.length];
+            for (int i = 0; i < source.length; i++) {
+                ordered[i] = source[leftToRight ? i : source.length - 1 - i];
+                order[ordered[i]] = i;
+            }
+            orderedLayers[l] = ordered;
+        }
+
+        int[] root = new int[nodeCount];
+        int[] align = new int[nodeCount];
+        for (int v = 0; v < nodeCount; v++) {
+            root[v] = v;
+            align[v] = v;
+        }
+        alignVertically(orderedLayers, order, downward ? graph.upper : graph.lower, root, align);
+
+        double[] x = compactHorizontally(orderedLayers, root);
+        if (!leftToRight) {
+            for (int v = 0; v < nodeCount; v++) {
+                x[v] = -x[v];
+            }
+        }
+        return x;
+    }
+
+    private void alignVertically(int[][] orderedLayers, int[] order, int[][] neighbours, int[] root, int[] align) {
+        int[] sorted = new int[0];
+        for (int l = 1; l < orderedLayers.length; l++) {
+            int aligned = -1;
+            for (int v : orderedLayers[l]) {
+                int degree = neighbours[v].length;
+                if (degree == 0) {
+                    continue;
+                }
+                if (sorted.length < degree) {
+                    sorted = new int[degree];
+                }
+                for (int i = 0; i < degree; i++) {
+                    sorted[i] = order[neighbours[v][i]];
+                }
+                Arrays.sort(sorted, 0, degree);
+
+                int lowMedian = (degree - 1) / 2;
+                int highMedian = degree / 2;
+                for (int m = lowMedian; m <= highMedian; m++) {
+                    if (align[v] != v) {
+                        break;
+                    }
+                    int u = orderedLayers[l - 1][sorted[m]];
+                    if (aligned < sorted[m] && !conflicts.contains(getEdgeKey(u, v))
+                            && !conflicts.contains(getEdgeKey(v, u))) {
+                        align[u] = v;
+                        root[v] = root[u];
+                        align[v] = root[v];
+                        aligned = sorted[m];
+                    }
+                }
+            }
+        }
+    }
+
+    private double[] compactHorizontally(int[][] orderedLayers, int[] root) {
+        int nodeCount = graph.nodeCount;
+        int constraintCount = 0;
+        for (int[] layer : orderedLayers) {
+            constraintCount += Math.max(0, layer.length - 1);
+        }
+
+        int[] from = new int[constraintCount];
+        int[] to = new int[constraintCount];
+        double[] gap = new double[constraintCount];
+        int[] inDegree = new int[nodeCount];
+        int[] outDegree = new int[nodeCount];
+        int constraints = 0;
+        for (int[] layer : orderedLayers) {
+            for (int i = 1; i < layer.length; i++) {
+                int left = layer[i - 1];
+                int right = layer[i];
+                from[constraints] = root[left];
+                to[constraints] = root[right];
+                gap[constraints] = getSeparation(left, right);
+                outDegree[root[left]]++;
+                inDegree[root[right]]++;
+                constraints++;
+            }
+        }
+
+        int[] start = new int[nodeCount + 1];
+        for (int v = 0; v < nodeCount; v++) {
+            start[v + 1] = start[v] + outDegree[v];
+        }
+        int[] next = Arrays.copyOf(start, nodeCount);
+        int[] edges = new int[constraints];
+        for (int c = 0; c < constraints; c++) {
+            edges[next[from[c]]++] = c;
+        }
+
+        double[] blockX = new double[nodeCount];
+        int[] queue = new int[nodeCount];
+        int head = 0;
+        int tail = 0;
+        for (int v = 0; v < nodeCount; v++) {
+            if (root[v] == v && inDegree[v] == 0) {
+                queue[tail++] = v;
+            }
+        }
+        while (head < tail) {
+            int block = queue[head++];
+            for (int e = start[block]; e < start[block + 1]; e++) {
+                int c = edges[e];
+                blockX[to[c]] = Math.max(blockX[to[c]], blockX[block] + gap[c]);
+                if (--inDegree[to[c]] == 0) {
+                    queue[tail++] = to[c];
+                }
+            }
+        }
+
+        double[] x = new double[nodeCount];
+        for (int v = 0; v < nodeCount; v++) {
+            x[v] = blockX[root[v]];
+        }
+        return x;
+    }
+
+    private double getSeparation(int left, int right) {
+        double spacing = graph.isDummy(left) || graph.isDummy(right) ? dummySpacing : nodeSpacing;
+        return (graph.width[left] + graph.width[right]) / 2 + spacing;
+    }
+
+    private long getEdgeKey(int upper, int lower) {
+        return ((long) upper << 32) | (lower & 0xFFFFFFFFL);
+    }
+}
@@ -0,0 +1,59 @@
+package com.diaggen.layout;
+
+import com.diaggen.model.DiagramClass;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+public class CapturedNodeSizes implements NodeSizeProvider {
+
+    private final Map<DiagramClass, double[]> sizes = new HashMap<>();
+    private final List<DiagramClass> pending = new ArrayList<>();
+    private final NodeSizeProvider fallback;
+
+    private CapturedNodeSizes(NodeSizeProvider fallback) {
+        this.fallback = fallback;
+    }
+
+    public static CapturedNodeSizes capture(List<DiagramClass> measured, List<DiagramClass> targets,
+                                            NodeSizeProvider provider) {
+        return capture(measured, targets, provider, diagramClass -> false);
+    }
+
+    public static CapturedNodeSizes capture(List<DiagramClass> measured, List<DiagramClass> targets,
+                                            NodeSizeProvider provider, Predicate<DiagramClass> deferred) {
+        CapturedNodeSizes captured = new CapturedNodeSizes(provider);
+        for (int i = 0; i < measured.size() && i < targets.size(); i++) {
+            DiagramClass diagramClass = measured.get(i);
+            if (deferred.test(diagramClass)) {
+                captured.pending.add(targets.get(i));
+            } else {
+                captured.sizes.put(targets.get(i),
+                        new double[]{provider.getWidth(diagramClass), provider.getHeight(diagramClass)});
+            }
+        }
+        return captured;
+    }
+
+    public void measurePending(NodeSizeProvider provider) {
+        for (DiagramClass diagramClass : pending) {
+            sizes.put(diagramClass, new double[]{provider.getWidth(diagramClass), provider.getHeight(diagramClass)});
+        }
+        pending.clear();
+    }
+
+    @Override
+    public double getWidth(DiagramClass diagramClass) {
+        double[] size = sizes.get(diagramClass);
+        return size != null ? size[0] : fallback.getWidth(diagramClass);
+    }
+
+    @Override
+    public double getHeight(DiagramClass diagramClass) {
+        double[] size = sizes.get(diagramClass);
+        return size != null ? size[1] : fallback.getHeight(diagramClass);
+    }
+}
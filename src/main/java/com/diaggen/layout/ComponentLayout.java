@@ -0,0 +1,351 @@
+package com.diaggen.layout;
+
+import com.diaggen.model.ClassDiagram;
+import com.diaggen.model.DiagramClass;
+import com.diaggen.model.DiagramRelation;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+public class ComponentLayout implements LayoutManager.LayoutAlgorithm {
+
+    private static final Logger LOGGER = Logger.getLogger(ComponentLayout.class.getName());
+
+    private final LayoutFactory.LayoutType layoutType;
+    private final LayoutOptions options;
+    private final double margin = 50;
+    private final double componentSpacing = 100;
+    private final double areaFactor = 4;
+    private double width = 1000;
+    private double height = 1000;
+    private boolean parallel = true;
+    private LayoutResult lastResult;
+    private ForceDirectedLayout.ProgressListener progressListener;
+    private BooleanSupplier cancellationCheck;
+
+    public ComponentLayout(LayoutFactory.LayoutType layoutType, LayoutOptions options) {
+        this.layoutType = layoutType;
+        this.options = options.copy();
+        this.options.setIncremental(false);
+        this.options.setRemoveOverlaps(false);
+        this.options.setDecomposeComponents(false);
+        this.options.setProgressListener(null);
+        this.options.setCancellationCheck(null);
+        this.progressListener = options.getProgressListener();
+        this.cancellationCheck = options.getCancellationCheck();
+    }
+
+    public boolean isParallel() {
+        return parallel;
+    }
+
+    public void setParallel(boolean parallel) {
+        this.parallel = parallel;
+    }
+
+    public void setProgressListener(ForceDirectedLayout.ProgressListener progressListener) {
+        this.progressListener = progressListener;
+    }
+
+    public void setCancellationCheck(BooleanSupplier cancellationCheck) {
+        this.cancellationCheck = cancellationCheck;
+    }
+
+    @Override
+    public LayoutResult getLastResult() {
+        return lastResult;
+    }
+
+    @Override
+    public void setDimensions(double width, double height) {
+        this.width = width;
+        this.height = height;
+    }
+
+    @Override
+    public void layout(ClassDiagram diagram) {
+        lastResult = null;
+        if (diagram == null || diagram.getClasses().isEmpty()) {
+            return;
+        }
+
+        List<DiagramClass> classes = diagram.getClasses();
+        List<List<DiagramClass>> components = findComponents(diagram);
+        if (components.size() == 1) {
+            LayoutManager.LayoutAlgorithm algorithm = createAlgorithm(options);
+            if (algorithm instanceof ForceDirectedLayout) {
+                ((ForceDirectedLayout) algorithm).setProgressListener(progressListener);
+            }
+            algorithm.setDimensions(width, height);
+            algorithm.layout(diagram);
+            lastResult = algorithm.getLastResult();
+            return;
+        }
+
+        long start = System.nanoTime();
+        Map<DiagramClass, Integer> componentOf = new HashMap<>();
+        List<List<DiagramRelation>> componentRelations = new ArrayList<>();
+        for (int c = 0; c < components.size(); c++) {
+            for (DiagramClass diagramClass : components.get(c)) {
+                componentOf.put(diagramClass, c);
+            }
+            componentRelations.add(new ArrayList<>());
+        }
+        for (DiagramRelation relation : diagram.getRelations()) {
+            Integer component = componentOf.get(relation.getSourceClass());
+            if (component != null && componentOf.containsKey(relation.getTargetClass())) {
+                componentRelations.get(component).add(relation);
+            }
+        }
+
+        List<Component> laidOut = new ArrayList<>();
+        List<Component> pending = new ArrayList<>();
+        for (int c = 0; c < components.size(); c++) {
+            Component component = new Component(diagram.getName(), components.get(c), componentRelations.get(c),
+                    options.getNodeSizeProvider());
+            laidOut.add(component);
+            if (components.get(c).size() > 1) {
+                pending.add(component);
+            }
+        }
+        pending.sort(Comparator.comparingInt((Component component) -> -component.originals.size()));
+
+        AtomicInteger placed = new AtomicInteger(classes.size() - pending.stream()
+                .mapToInt(component -> component.originals.size()).sum());
+        if (parallel && pending.size() > 1 && ForkJoinPool.getCommonPoolParallelism() > 1) {
+            ForkJoinPool.commonPool().invoke(new ComponentTask(pending, 0, pending.size(), placed, classes.size()));
+        } else {
+            for (Component component : pending) {
+                layoutComponent(component, placed, classes.size());
+            }
+        }
+        if (cancellationCheck != null && cancellationCheck.getAsBoolean()) {
+            return;
+        }
+
+        pack(laidOut);
+        lastResult = combineResults(pending);
+
+        LOGGER.log(Level.INFO, "Laid out {0} components ({1} with relations) of {2} classes in {3} ms: {4}",
+                new Object[]{components.size(), pending.size(), classes.size(),
+                        (System.nanoTime() - start) / 1_000_000, lastResult});
+    }
+
+    private List<List<DiagramClass>> findComponents(ClassDiagram diagram) {
+        List<DiagramClass> classes = diagram.getClasses();
+        Map<DiagramClass, Integer> indices = new HashMap<>();
+        for (int i = 0; i < classes.size(); i++) {
+            indices.put(classes.get(i), i);
+        }
+
+        int[] parent = new int[classes.size()];
+        for (int i = 0; i < parent.length; i++) {
+            parent[i] = i;
+        }
+        for (DiagramRelation relation : diagram.getRelations()) {
+            Integer source = indices.get(relation.getSourceClass());
+            Integer target = indices.get(relation.getTargetClass());
+            if (source != null && target != null) {
+                int sourceRoot = findRoot(parent, source);
+                int targetRoot = findRoot(parent, target);
+                if (sourceRoot != targetRoot) {
+                    parent[Math.max(sourceRoot, targetRoot)] = Math.min(sourceRoot, targetRoot);
+                }
+            }
+        }
+
+        List<List<DiagramClass>> components = new ArrayList<>();
+        int[] componentOf = new int[classes.size()];
+        for (int i = 0; i < classes.size(); i++) {
+            int root = findRoot(parent, i);
+            if (root == i) {
+                componentOf[i] = components.size();
+                components.add(new ArrayList<>());
+            }
+            components.get(componentOf[root]).add(classes.get(i));
+        }
+        return components;
+    }
+
+    private int findRoot(int[] parent, int node) {
+        while (parent[node] != node) {
+            parent[node] = parent[parent[node]];
+            node = parent[node];
+        }
+        return node;
+    }
+
+    private void layoutComponent(Component component, AtomicInteger placed, int total) {
+        if (cancellationCheck != null && cancellationCheck.getAsBoolean()) {
+            return;
+        }
+
+        LayoutOptions componentOptions = options.copy();
+        componentOptions.setNodeSizeProvider(component.sizes);
+        LayoutManager.LayoutAlgorithm algorithm = createAlgorithm(componentOptions);
+
+        double area = 0;
+        double extent = 0;
+        for (DiagramClass diagramClass : component.copy.getClasses()) {
+            double classWidth = component.sizes.getWidth(diagramClass);
+            double classHeight = component.sizes.getHeight(diagramClass);
+            area += (classWidth + componentSpacing) * (classHeight + componentSpacing);
+            extent = Math.max(extent, Math.max(classWidth, classHeight));
+        }
+        double side = Math.max(extent + 2 * margin, Math.sqrt(area * areaFactor));
+        algorithm.setDimensions(side, side);
+        algorithm.layout(component.copy);
+        component.result = algorithm.getLastResult();
+
+        int done = placed.addAndGet(component.originals.size());
+        if (progressListener != null && component.result != null) {
+            progressListener.onIteration(done, total, component.result.getEnergy());
+        }
+    }
+
+    private LayoutManager.LayoutAlgorithm createAlgorithm(LayoutOptions componentOptions) {
+        LayoutManager.LayoutAlgorithm algorithm = LayoutFactory.createLayout(layoutType, componentOptions);
+        if (algorithm instanceof ForceDirectedLayout) {
+            ((ForceDirectedLayout) algorithm).setCancellationCheck(cancellationCheck);
+        }
+        return algorithm;
+    }
+
+    private void pack(List<Component> components) {
+        double totalArea = 0;
+        double widest = 0;
+        for (Component component : components) {
+            component.measureBounds();
+            totalArea += (component.width + componentSpacing) * (component.height + componentSpacing);
+            widest = Math.max(widest, component.width);
+        }
+
+        List<Component> byHeight = new ArrayList<>(components);
+        byHeight.sort(Comparator.comparingDouble((Component component) -> -component.height));
+        double aspect = width > 0 && height > 0 ? width / height : 1;
+        double rowWidth = Math.max(widest, Math.sqrt(totalArea * aspect));
+
+        double rowX = margin;
+        double rowY = margin;
+        double rowHeight = 0;
+        for (Component component : byHeight) {
+            if (rowX > margin && rowX + component.width > margin + rowWidth) {
+                rowX = margin;
+                rowY += rowHeight + componentSpacing;
+                rowHeight = 0;
+            }
+            component.moveTo(rowX, rowY);
+            rowX += component.width + componentSpacing;
+            rowHeight = Math.max(rowHeight, component.height);
+        }
+    }
+
+    private LayoutResult combineResults(List<Component> components) {
+        int iterations = 0;
+        double energy = 0;
+        boolean converged = true;
+        for (Component component : components) {
+            if (component.result != null) {
+                iterations = Math.max(iterations, component.result.getIterations());
+                energy += component.result.getEnergy();
+                converged &= component.result.isConverged();
+            }
+        }
+        return new LayoutResult(iterations, energy, converged);
+    }
+
+    private static class Component {
+
+        private final List<DiagramClass> originals;
+        private final ClassDiagram copy;
+        private final CapturedNodeSizes sizes;
+        private LayoutResult result;
+        private double left;
+        private double top;
+        private double width;
+        private double height;
+
+        Component(String name, List<DiagramClass> originals, List<DiagramRelation> relations,
+                  NodeSizeProvider nodeSizes) {
+            this.originals = originals;
+            this.copy = new ClassDiagram(name);
+            Map<DiagramClass, DiagramClass> copies = new HashMap<>();
+            for (DiagramClass original : originals) {
+                DiagramClass classCopy = new DiagramClass(original.getName(), original.getPackageName(),
+                        original.getClassType(), original.getMemberStore());
+                classCopy.setX(original.getX());
+                classCopy.setY(original.getY());
+                copies.put(original, classCopy);
+                copy.addClass(classCopy);
+            }
+            for (DiagramRelation relation : relations) {
+                copy.addRelation(new DiagramRelation(copies.get(relation.getSourceClass()),
+                        copies.get(relation.getTargetClass()), relation.getRelationType(), "", "", ""));
+            }
+            this.sizes = CapturedNodeSizes.capture(originals, copy.getClasses(), nodeSizes);
+        }
+
+        void measureBounds() {
+            left = Double.POSITIVE_INFINITY;
+            top = Double.POSITIVE_INFINITY;
+            double right = Double.NEGATIVE_INFINITY;
+            double bottom = Double.NEGATIVE_INFINITY;
+            for (DiagramClass diagramClass : copy.getClasses()) {
+                left = Math.min(left, diagramClass.getX());
+                top = Math.min(top, diagramClass.getY());
+                right = Math.max(right, diagramClass.getX() + sizes.getWidth(diagramClass));
+                bottom = Math.max(bottom, diagramClass.getY() + sizes.getHeight(diagramClass));
+            }
+            width = right - left;
+            height = bottom - top;
+        }
+
+        void moveTo(double x, double y) {
+            List<DiagramClass> copies = copy.getClasses();
+            for (int i = 0; i < originals.size(); i++) {
+                originals.get(i).setX(copies.get(i).getX() - left + x);
+                originals.get(i).setY(copies.get(i).getY() - top + y);
+            }
+        }
+    }
+
+    private class ComponentTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final List<Component> components;
+        private final int from;
+        private final int to;
+        private final AtomicInteger placed;
+        private final int total;
+
+        ComponentTask(List<Component> components, int from, int to, AtomicInteger placed, int total) {
+            this.components = components;
+            this.from = from;
+            this.to = to;
+            this.placed = placed;
+            this.total = total;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from == 1) {
+                layoutComponent(components.get(from), placed, total);
+                return;
+            }
+
+            int middle = (from + to) >>> 1;
+            invokeAll(new ComponentTask(components, from, middle, placed, total),
+                    new ComponentTask(components, middle, to, placed, total));
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.diaggen.layout;
+
+import com.diaggen.model.DiagramClass;
+
+class EstimatedNodeSizes implements NodeSizeProvider {
+
+    @Override
+    public double getWidth(DiagramClass diagramClass) {
+        return 200;
+    }
+
+    @Override
+    public double getHeight(DiagramClass diagramClass) {
+        return 120 + diagramClass.getAttributeCount() * 20 + diagramClass.getMethodCount() * 20;
+    }
+}
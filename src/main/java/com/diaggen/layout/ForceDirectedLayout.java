@@ -3,6 +3,9 @@ package com.diaggen.layout;
 import com.diaggen.model.*;
 
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.BooleanSupplier;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -15,47 +18,130 @@ public class ForceDirectedLayout implements LayoutManager.LayoutAlgorithm {
     private static final double AGGREGATION_WEIGHT = 1.5;
     private static final double ASSOCIATION_WEIGHT = 1.2;
     private static final double DEPENDENCY_WEIGHT = 1.0;
+    private static final int PARALLEL_THRESHOLD = 1000;
+    private static final int MIN_CHUNK_SIZE = 256;
     private final double margin = 50;
-    private final int iterations = 100;
+    private final int minIterations = 10;
+    private final int maxIterations = 500;
     private final double k = 100.0;
     private final double gravity = 0.1;
     private final double damping = 0.9;
-    private final double maxVelocity = 10.0;
-    private final Random random = new Random(System.currentTimeMillis());
+    private final double initialTemperature = 10.0;
+    private final double maxTemperature = 50.0;
+    private final double coolingFactor = 0.9;
+    private final int heatingStreak = 5;
+    private final double convergenceThreshold = 0.5;
+    private final double initialJitter = 10.0;
+    private final double referenceArea = 200.0 * 120.0;
+    private final BarnesHutTree tree = new BarnesHutTree(0.8);
+    private final int[] stack = tree.createStack();
+    private boolean parallel = true;
     private double width = 1000;
     private double height = 1000;
+    private long seed = LayoutOptions.DEFAULT_SEED;
+    private LayoutResult lastResult;
+    private ProgressListener progressListener;
+    private BooleanSupplier cancellationCheck;
+    private NodeSizeProvider nodeSizes = new EstimatedNodeSizes();
+
+    public ForceDirectedLayout() {
+    }
+
+    public ForceDirectedLayout(LayoutOptions options) {
+        this.seed = options.getSeed();
+        this.nodeSizes = options.getNodeSizeProvider();
+        this.progressListener = options.getProgressListener();
+        this.cancellationCheck = options.getCancellationCheck();
+    }
 
     @Override
     public void layout(ClassDiagram diagram) {
         LOGGER.log(Level.INFO, "Starting force-directed layout algorithm");
+        lastResult = null;
         if (diagram == null || diagram.getClasses().isEmpty()) {
             return;
         }
-        Map<String, Vector2D> positions = initializePositions(diagram);
-        Map<String, Vector2D> velocities = new HashMap<>();
-        Map<String, Double> classWeights = calculateClassWeights(diagram);
-        for (DiagramClass diagramClass : diagram.getClasses()) {
-            velocities.put(diagramClass.getId(), new Vector2D(0, 0));
+        List<DiagramClass> classes = new ArrayList<>(diagram.getClasses());
+        Map<DiagramClass, Integer> indices = new HashMap<>();
+        for (int i = 0; i < classes.size(); i++) {
+            indices.put(classes.get(i), i);
         }
-        for (int i = 0; i < iterations; i++) {
-            Map<String, Vector2D> forces = calculateForces(diagram, positions, classWeights);
-            for (DiagramClass diagramClass : diagram.getClasses()) {
-                String id = diagramClass.getId();
-                Vector2D force = forces.get(id);
-                Vector2D velocity = velocities.get(id);
-                velocity.x = (velocity.x + force.x) * damping;
-                velocity.y = (velocity.y + force.y) * damping;
-                limitVelocity(velocity);
-                Vector2D position = positions.get(id);
-                position.x += velocity.x;
-                position.y += velocity.y;
-                position.x = Math.max(margin, Math.min(width - margin, position.x));
-                position.y = Math.max(margin, Math.min(height - margin, position.y));
+
+        int count = classes.size();
+        double[] x = new double[count];
+        double[] y = new double[count];
+        double[] velocityX = new double[count];
+        double[] velocityY = new double[count];
+        double[] forceX = new double[count];
+        double[] forceY = new double[count];
+        double[] halfWidth = new double[count];
+        double[] halfHeight = new double[count];
+        for (int i = 0; i < count; i++) {
+            halfWidth[i] = nodeSizes.getWidth(classes.get(i)) / 2;
+            halfHeight[i] = nodeSizes.getHeight(classes.get(i)) / 2;
+        }
+        double[] charges = calculateCharges(classes, halfWidth, halfHeight);
+        EdgeList edges = buildEdges(diagram, indices, count);
+        initializePositions(classes, halfWidth, halfHeight, x, y, new Random(seed));
+
+        double temperature = initialTemperature;
+        double previousForceEnergy = Double.POSITIVE_INFINITY;
+        double kineticEnergy = 0;
+        int progress = 0;
+        int iteration = 0;
+        boolean converged = false;
+        while (iteration < maxIterations && !converged) {
+            if (cancellationCheck != null && cancellationCheck.getAsBoolean()) {
+                LOGGER.log(Level.INFO, "Force-directed layout cancelled after {0} iterations", iteration);
+                return;
+            }
+            calculateForces(x, y, charges, edges, forceX, forceY, count);
+            double forceEnergy = 0;
+            double maxDisplacement = 0;
+            kineticEnergy = 0;
+            for (int node = 0; node < count; node++) {
+                forceEnergy += forceX[node] * forceX[node] + forceY[node] * forceY[node];
+                velocityX[node] = (velocityX[node] + forceX[node]) * damping;
+                velocityY[node] = (velocityY[node] + forceY[node]) * damping;
+                double speed = Math.sqrt(velocityX[node] * velocityX[node] + velocityY[node] * velocityY[node]);
+                if (speed > temperature) {
+                    velocityX[node] = velocityX[node] / speed * temperature;
+                    velocityY[node] = velocityY[node] / speed * temperature;
+                }
+                double newX = Math.max(margin + halfWidth[node],
+                        Math.min(width - margin - halfWidth[node], x[node] + velocityX[node]));
+                double newY = Math.max(margin + halfHeight[node],
+                        Math.min(height - margin - halfHeight[node], y[node] + velocityY[node]));
+                double dx = newX - x[node];
+                double dy = newY - y[node];
+                double displacement = dx * dx + dy * dy;
+                kineticEnergy += displacement / 2;
+                maxDisplacement = Math.max(maxDisplacement, displacement);
+                x[node] = newX;
+                y[node] = newY;
+            }
+            iteration++;
+
+            if (forceEnergy < previousForceEnergy) {
+                if (++progress >= heatingStreak) {
+                    progress = 0;
+                    temperature = Math.min(maxTemperature, temperature / coolingFactor);
+                }
+            } else {
+                progress = 0;
+                temperature *= coolingFactor;
+            }
+            previousForceEnergy = forceEnergy;
+            converged = iteration >= minIterations
+                    && Math.sqrt(maxDisplacement) < convergenceThreshold;
+            if (progressListener != null) {
+                progressListener.onIteration(iteration, maxIterations, kineticEnergy);
             }
         }
-        applyPositionsWithHierarchy(diagram, positions);
+        applyPositionsWithHierarchy(diagram, classes, indices, halfWidth, halfHeight, x, y);
+        lastResult = new LayoutResult(iteration, kineticEnergy, converged);
 
-        LOGGER.log(Level.INFO, "Force-directed layout completed");
+        LOGGER.log(Level.INFO, "Force-directed layout completed: {0}", lastResult);
     }
 
     @Override
@@ -64,10 +150,47 @@ public class ForceDirectedLayout implements LayoutManager.LayoutAlgorithm {
         this.height = height;
     }
 
-    private Map<String, Vector2D> initializePositions(ClassDiagram diagram) {
-        Map<String, Vector2D> positions = new HashMap<>();
+    public long getSeed() {
+        return seed;
+    }
+
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+
+    public void setProgressListener(ProgressListener progressListener) {
+        this.progressListener = progressListener;
+    }
+
+    public void setCancellationCheck(BooleanSupplier cancellationCheck) {
+        this.cancellationCheck = cancellationCheck;
+    }
+
+    @Override
+    public LayoutResult getLastResult() {
+        return lastResult;
+    }
+
+    public double getTheta() {
+        return tree.getTheta();
+    }
+
+    public void setTheta(double theta) {
+        tree.setTheta(theta);
+    }
+
+    public boolean isParallel() {
+        return parallel;
+    }
+
+    public void setParallel(boolean parallel) {
+        this.parallel = parallel;
+    }
+
+    private void initializePositions(List<DiagramClass> classes, double[] halfWidth, double[] halfHeight,
+                                     double[] x, double[] y, Random random) {
         boolean hasPositions = false;
-        for (DiagramClass diagramClass : diagram.getClasses()) {
+        for (DiagramClass diagramClass : classes) {
             if (diagramClass.getX() != 0 || diagramClass.getY() != 0) {
                 hasPositions = true;
                 break;
@@ -76,107 +199,105 @@ public class ForceDirectedLayout implements LayoutManager.LayoutAlgorithm {
         double centerX = width / 2;
         double centerY = height / 2;
         double radius = Math.min(width, height) / 3;
-        int count = diagram.getClasses().size();
+        int count = classes.size();
         int index = 0;
 
-        for (DiagramClass diagramClass : diagram.getClasses()) {
-            Vector2D position;
+        for (int i = 0; i < count; i++) {
+            DiagramClass diagramClass = classes.get(i);
             if (hasPositions && (diagramClass.getX() != 0 || diagramClass.getY() != 0)) {
-                position = new Vector2D(diagramClass.getX(), diagramClass.getY());
+                x[i] = diagramClass.getX() + halfWidth[i];
+                y[i] = diagramClass.getY() + halfHeight[i];
             } else {
                 double angle = 2 * Math.PI * index / count;
-                double x = centerX + radius * Math.cos(angle);
-                double y = centerY + radius * Math.sin(angle);
-                position = new Vector2D(x, y);
+                x[i] = centerX + radius * Math.cos(angle) + (random.nextDouble() - 0.5) * initialJitter;
+                y[i] = centerY + radius * Math.sin(angle) + (random.nextDouble() - 0.5) * initialJitter;
                 index++;
             }
-            positions.put(diagramClass.getId(), position);
         }
-
-        return positions;
     }
 
-    private Map<String, Double> calculateClassWeights(ClassDiagram diagram) {
-        Map<String, Double> weights = new HashMap<>();
-        for (DiagramClass diagramClass : diagram.getClasses()) {
-            double weight = 1.0;
-            weight += diagramClass.getAttributes().size() * 0.1;
-            weight += diagramClass.getMethods().size() * 0.15;
+    private double[] calculateCharges(List<DiagramClass> classes, double[] halfWidth, double[] halfHeight) {
+        double[] charges = new double[classes.size()];
+        for (int i = 0; i < classes.size(); i++) {
+            DiagramClass diagramClass = classes.get(i);
+            double weight = Math.max(1.0, 4 * halfWidth[i] * halfHeight[i] / referenceArea);
             if (diagramClass.getClassType() == ClassType.ABSTRACT_CLASS) {
                 weight *= 1.2;
             } else if (diagramClass.getClassType() == ClassType.INTERFACE) {
                 weight *= 1.3;
             }
 
-            weights.put(diagramClass.getId(), weight);
+            charges[i] = Math.sqrt(weight);
         }
 
-        return weights;
+        return charges;
     }
 
-    private Map<String, Vector2D> calculateForces(ClassDiagram diagram, Map<String, Vector2D> positions, Map<String, Double> weights) {
-        Map<String, Vector2D> forces = new HashMap<>();
-        for (DiagramClass diagramClass : diagram.getClasses()) {
-            forces.put(diagramClass.getId(), new Vector2D(0, 0));
+    private EdgeList buildEdges(ClassDiagram diagram, Map<DiagramClass, Integer> indices, int count) {
+        List<DiagramRelation> relations = new ArrayList<>();
+        EdgeList edges = new EdgeList(count);
+        for (DiagramRelation relation : diagram.getRelations()) {
+            Integer source = indices.get(relation.getSourceClass());
+            Integer target = indices.get(relation.getTargetClass());
+            if (source != null && target != null && !source.equals(target)) {
+                relations.add(relation);
+                edges.start[source + 1]++;
+                edges.start[target + 1]++;
+            }
+        }
+        for (int i = 0; i < count; i++) {
+            edges.start[i + 1] += edges.start[i];
         }
-        for (DiagramClass class1 : diagram.getClasses()) {
-            String id1 = class1.getId();
-            Vector2D pos1 = positions.get(id1);
-            Vector2D force = forces.get(id1);
-            double centerX = width / 2;
-            double centerY = height / 2;
-            force.x -= gravity * (pos1.x - centerX);
-            force.y -= gravity * (pos1.y - centerY);
-
-            for (DiagramClass class2 : diagram.getClasses()) {
-                if (class1 == class2) continue;
-
-                String id2 = class2.getId();
-                Vector2D pos2 = positions.get(id2);
-
-                double dx = pos1.x - pos2.x;
-                double dy = pos1.y - pos2.y;
-                double distance = Math.sqrt(dx * dx + dy * dy);
-                if (distance < 1) distance = 1;
-                double repulsiveForce = k * k / distance;
-                double weight1 = weights.get(id1);
-                double weight2 = weights.get(id2);
-                repulsiveForce *= Math.sqrt(weight1 * weight2);
 
-                force.x += repulsiveForce * dx / distance;
-                force.y += repulsiveForce * dy / distance;
-            }
+        edges.target = new int[edges.start[count]];
+        edges.weight = new double[edges.start[count]];
+        int[] next = Arrays.copyOf(edges.start, count);
+        for (DiagramRelation relation : relations) {
+            int source = indices.get(relation.getSourceClass());
+            int target = indices.get(relation.getTargetClass());
+            double weight = getRelationWeight(relation.getRelationType());
+            edges.target[next[source]] = target;
+            edges.weight[next[source]++] = weight;
+            edges.target[next[target]] = source;
+            edges.weight[next[target]++] = weight;
         }
-        for (DiagramRelation relation : diagram.getRelations()) {
-            DiagramClass sourceClass = relation.getSourceClass();
-            DiagramClass targetClass = relation.getTargetClass();
-
-            String sourceId = sourceClass.getId();
-            String targetId = targetClass.getId();
-
-            Vector2D sourcePos = positions.get(sourceId);
-            Vector2D targetPos = positions.get(targetId);
-
-            Vector2D sourceForce = forces.get(sourceId);
-            Vector2D targetForce = forces.get(targetId);
-
-            double dx = sourcePos.x - targetPos.x;
-            double dy = sourcePos.y - targetPos.y;
-            double distance = Math.sqrt(dx * dx + dy * dy);
-            if (distance < 1) distance = 1;
-            double attractiveForce = distance / k;
-            double relationWeight = getRelationWeight(relation.getRelationType());
-            attractiveForce *= relationWeight;
-            double fx = attractiveForce * dx / distance;
-            double fy = attractiveForce * dy / distance;
-
-            sourceForce.x -= fx;
-            sourceForce.y -= fy;
-            targetForce.x += fx;
-            targetForce.y += fy;
+        return edges;
+    }
+
+    private void calculateForces(double[] x, double[] y, double[] charges, EdgeList edges,
+                                 double[] forceX, double[] forceY, int count) {
+        tree.build(x, y, charges, count);
+        if (parallel && count >= PARALLEL_THRESHOLD && ForkJoinPool.getCommonPoolParallelism() > 1) {
+            int chunkSize = Math.max(MIN_CHUNK_SIZE, count / (ForkJoinPool.getCommonPoolParallelism() * 4));
+            ForkJoinPool.commonPool().invoke(
+                    new ForceTask(x, y, charges, edges, forceX, forceY, 0, count, chunkSize));
+        } else {
+            calculateForces(x, y, charges, edges, forceX, forceY, 0, count, stack);
         }
+    }
 
-        return forces;
+    private void calculateForces(double[] x, double[] y, double[] charges, EdgeList edges,
+                                 double[] forceX, double[] forceY, int from, int to, int[] nodeStack) {
+        double centerX = width / 2;
+        double centerY = height / 2;
+        for (int node = from; node < to; node++) {
+            forceX[node] = 0;
+            forceY[node] = 0;
+            tree.addRepulsion(node, x, y, charges, k * k, forceX, forceY, nodeStack);
+            forceX[node] -= gravity * (x[node] - centerX);
+            forceY[node] -= gravity * (y[node] - centerY);
+
+            for (int edge = edges.start[node]; edge < edges.start[node + 1]; edge++) {
+                int other = edges.target[edge];
+                double dx = x[node] - x[other];
+                double dy = y[node] - y[other];
+                double distance = Math.sqrt(dx * dx + dy * dy);
+                if (distance < 1) distance = 1;
+                double attractiveForce = distance / k * edges.weight[edge];
+                forceX[node] -= attractiveForce * dx / distance;
+                forceY[node] -= attractiveForce * dy / distance;
+            }
+        }
     }
 
     private double getRelationWeight(RelationType type) {
@@ -198,77 +319,117 @@ public class ForceDirectedLayout implements LayoutManager.LayoutAlgorithm {
         }
     }
 
-    private void limitVelocity(Vector2D velocity) {
-        double speed = Math.sqrt(velocity.x * velocity.x + velocity.y * velocity.y);
-        if (speed > maxVelocity) {
-            velocity.x = (velocity.x / speed) * maxVelocity;
-            velocity.y = (velocity.y / speed) * maxVelocity;
+    private void applyPositionsWithHierarchy(ClassDiagram diagram, List<DiagramClass> classes,
+                                             Map<DiagramClass, Integer> indices, double[] halfWidth,
+                                             double[] halfHeight, double[] x, double[] y) {
+        int[][] hierarchies = identifyHierarchies(diagram, indices, classes.size());
+        adjustHierarchyPositions(hierarchies, halfHeight, x, y);
+        for (int i = 0; i < classes.size(); i++) {
+            DiagramClass diagramClass = classes.get(i);
+            diagramClass.setX(x[i] - halfWidth[i]);
+            diagramClass.setY(y[i] - halfHeight[i]);
         }
     }
 
-    private void applyPositionsWithHierarchy(ClassDiagram diagram, Map<String, Vector2D> positions) {
-        Map<String, Set<String>> hierarchies = identifyHierarchies(diagram);
-        adjustHierarchyPositions(diagram, positions, hierarchies);
-        for (DiagramClass diagramClass : diagram.getClasses()) {
-            String id = diagramClass.getId();
-            Vector2D position = positions.get(id);
-            diagramClass.setX(position.x);
-            diagramClass.setY(position.y);
-        }
-    }
-
-    private Map<String, Set<String>> identifyHierarchies(ClassDiagram diagram) {
-        Map<String, Set<String>> hierarchies = new HashMap<>();
-        for (DiagramClass diagramClass : diagram.getClasses()) {
-            hierarchies.put(diagramClass.getId(), new HashSet<>());
+    private int[][] identifyHierarchies(ClassDiagram diagram, Map<DiagramClass, Integer> indices, int count) {
+        List<Set<Integer>> children = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            children.add(new LinkedHashSet<>());
         }
         for (DiagramRelation relation : diagram.getRelations()) {
             if (relation.getRelationType() == RelationType.INHERITANCE ||
                     relation.getRelationType() == RelationType.IMPLEMENTATION) {
 
-                String parentId = relation.getTargetClass().getId();
-                String childId = relation.getSourceClass().getId();
-
-                hierarchies.get(parentId).add(childId);
+                Integer parent = indices.get(relation.getTargetClass());
+                Integer child = indices.get(relation.getSourceClass());
+                if (parent != null && child != null) {
+                    children.get(parent).add(child);
+                }
             }
         }
 
+        int[][] hierarchies = new int[count][];
+        for (int i = 0; i < count; i++) {
+            hierarchies[i] = children.get(i).stream().mapToInt(Integer::intValue).toArray();
+        }
         return hierarchies;
     }
 
-    private void adjustHierarchyPositions(ClassDiagram diagram, Map<String, Vector2D> positions, Map<String, Set<String>> hierarchies) {
-        double verticalSpacing = 150;
+    private void adjustHierarchyPositions(int[][] hierarchies, double[] halfHeight, double[] x, double[] y) {
+        double verticalSpacing = 50;
 
-        for (DiagramClass parentClass : diagram.getClasses()) {
-            String parentId = parentClass.getId();
-            Set<String> children = hierarchies.get(parentId);
+        for (int parent = 0; parent < hierarchies.length; parent++) {
+            int[] children = hierarchies[parent];
 
-            if (!children.isEmpty()) {
-                Vector2D parentPos = positions.get(parentId);
+            if (children.length > 0) {
                 double totalX = 0;
-                for (String childId : children) {
-                    totalX += positions.get(childId).x;
+                for (int child : children) {
+                    totalX += x[child];
                 }
-                double avgX = totalX / children.size();
-                parentPos.x = parentPos.x * 0.8 + avgX * 0.2;
-                for (String childId : children) {
-                    Vector2D childPos = positions.get(childId);
-                    if (childPos.y < parentPos.y + verticalSpacing) {
-                        childPos.y = parentPos.y + verticalSpacing;
+                double avgX = totalX / children.length;
+                x[parent] = x[parent] * 0.8 + avgX * 0.2;
+                for (int child : children) {
+                    double minY = y[parent] + halfHeight[parent] + halfHeight[child] + verticalSpacing;
+                    if (y[child] < minY) {
+                        y[child] = minY;
                     }
-                    childPos.x = childPos.x * 0.8 + parentPos.x * 0.2;
+                    x[child] = x[child] * 0.8 + x[parent] * 0.2;
                 }
             }
         }
     }
 
-    private static class Vector2D {
-        double x;
-        double y;
+    public interface ProgressListener {
+        void onIteration(int iteration, int maxIterations, double energy);
+    }
+
+    private static class EdgeList {
+        final int[] start;
+        int[] target;
+        double[] weight;
+
+        EdgeList(int nodeCount) {
+            this.start = new int[nodeCount + 1];
+        }
+    }
+
+    private class ForceTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final double[] x;
+        private final double[] y;
+        private final double[] charges;
+        private final EdgeList edges;
+        private final double[] forceX;
+        private final double[] forceY;
+        private final int from;
+        private final int to;
+        private final int chunkSize;
 
-        public Vector2D(double x, double y) {
+        ForceTask(double[] x, double[] y, double[] charges, EdgeList edges,
+                  double[] forceX, double[] forceY, int from, int to, int chunkSize) {
             this.x = x;
             this.y = y;
+            this.charges = charges;
+            this.edges = edges;
+            this.forceX = forceX;
+            this.forceY = forceY;
+            this.from = from;
+            this.to = to;
+            this.chunkSize = chunkSize;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= chunkSize) {
+                calculateForces(x, y, charges, edges, forceX, forceY, from, to, tree.createStack());
+                return;
+            }
+
+            int middle = (from + to) >>> 1;
+            invokeAll(new ForceTask(x, y, charges, edges, forceX, forceY, from, middle, chunkSize),
+                    new ForceTask(x, y, charges, edges, forceX, forceY, middle, to, chunkSize));
         }
     }
-}
\ No newline at end of file
+}
@@ -3,6 +3,7 @@ package com.diaggen.layout;
 import com.diaggen.model.ClassDiagram;
 import com.diaggen.model.DiagramClass;
 
+import java.util.List;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -15,35 +16,53 @@ public class GridLayout implements LayoutManager.LayoutAlgorithm {
     private double gridWidth = 250;
     private double gridHeight = 200;
     private int maxColumns = 4;
+    private NodeSizeProvider nodeSizes = new EstimatedNodeSizes();
+    private LayoutResult lastResult;
+
+    public GridLayout() {
+    }
+
+    public GridLayout(LayoutOptions options) {
+        this.nodeSizes = options.getNodeSizeProvider();
+    }
 
     @Override
     public void layout(ClassDiagram diagram) {
         LOGGER.log(Level.INFO, "Starting grid layout algorithm");
+        lastResult = null;
         if (diagram == null || diagram.getClasses().isEmpty()) {
             return;
         }
 
-        int row = 0;
-        int col = 0;
-        maxColumns = Math.max(1, (int) ((width - 2 * margin) / gridWidth));
-
-        for (DiagramClass diagramClass : diagram.getClasses()) {
-            double newX = margin + col * gridWidth;
-            double newY = margin + row * gridHeight;
-
-            diagramClass.setX(newX);
-            diagramClass.setY(newY);
+        List<DiagramClass> classes = diagram.getClasses();
+        double columnWidth = gridWidth;
+        for (DiagramClass diagramClass : classes) {
+            columnWidth = Math.max(columnWidth, nodeSizes.getWidth(diagramClass) + margin);
+        }
+        maxColumns = Math.max(1, (int) ((width - 2 * margin) / columnWidth));
 
-            col++;
-            if (col >= maxColumns) {
-                col = 0;
-                row++;
+        double rowY = margin;
+        for (int rowStart = 0; rowStart < classes.size(); rowStart += maxColumns) {
+            int rowEnd = Math.min(classes.size(), rowStart + maxColumns);
+            double rowHeight = gridHeight;
+            for (int i = rowStart; i < rowEnd; i++) {
+                DiagramClass diagramClass = classes.get(i);
+                diagramClass.setX(margin + (i - rowStart) * columnWidth);
+                diagramClass.setY(rowY);
+                rowHeight = Math.max(rowHeight, nodeSizes.getHeight(diagramClass) + margin);
             }
+            rowY += rowHeight;
         }
 
+        lastResult = new LayoutResult(1, 0, true);
         LOGGER.log(Level.INFO, "Grid layout completed");
     }
 
+    @Override
+    public LayoutResult getLastResult() {
+        return lastResult;
+    }
+
     @Override
     public void setDimensions(double width, double height) {
         this.width = width;
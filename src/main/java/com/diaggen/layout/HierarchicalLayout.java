@@ -11,34 +11,100 @@ import java.util.logging.Logger;
 public class HierarchicalLayout implements LayoutManager.LayoutAlgorithm {
 
     private static final Logger LOGGER = Logger.getLogger(HierarchicalLayout.class.getName());
-    private final double horizontalSpacing = 200;
+    private final double horizontalSpacing = 100;
+    private final double dummySpacing = 30;
     private final double verticalSpacing = 150;
     private final double margin = 50;
+    private final int maxSweeps = 24;
+    private final int sweepPatience = 4;
     private double width = 1000;
     private double height = 1000;
+    private NodeSizeProvider nodeSizes = new EstimatedNodeSizes();
+    private LayoutResult lastResult;
+
+    public HierarchicalLayout() {
+    }
+
+    public HierarchicalLayout(LayoutOptions options) {
+        this.nodeSizes = options.getNodeSizeProvider();
+    }
 
     @Override
     public void layout(ClassDiagram diagram) {
         LOGGER.log(Level.INFO, "Starting hierarchical layout algorithm");
+        lastResult = null;
         if (diagram == null || diagram.getClasses().isEmpty()) {
             return;
         }
-        Map<String, Node> nodes = createNodes(diagram);
-        List<Node> roots = findRoots(nodes);
-        if (roots.isEmpty()) {
-            roots = findClassesWithMostChildren(nodes);
-        }
-        assignLevels(roots);
-        positionNodes(nodes, roots);
-        for (DiagramClass diagramClass : diagram.getClasses()) {
-            Node node = nodes.get(diagramClass.getId());
-            if (node != null) {
-                diagramClass.setX(node.x);
-                diagramClass.setY(node.y);
+        List<DiagramClass> classes = new ArrayList<>(diagram.getClasses());
+        Map<DiagramClass, Integer> indices = new HashMap<>();
+        for (int i = 0; i < classes.size(); i++) {
+            indices.put(classes.get(i), i);
+        }
+
+        int count = classes.size();
+        double[] nodeWidths = new double[count];
+        double[] nodeHeights = new double[count];
+        for (int i = 0; i < count; i++) {
+            nodeWidths[i] = nodeSizes.getWidth(classes.get(i));
+            nodeHeights[i] = nodeSizes.getHeight(classes.get(i));
+        }
+        int[][] edges = collectEdges(diagram, indices);
+        int[] edgeSource = edges[0];
+        int[] edgeTarget = edges[1];
+        int edgeCount = edgeSource.length;
+        int reversed = removeCycles(count, edgeSource, edgeTarget);
+        int[] layerOf = assignLayers(count, edgeSource, edgeTarget);
+
+        boolean[] connected = new boolean[count];
+        for (int e = 0; e < edgeCount; e++) {
+            connected[edgeSource[e]] = true;
+            connected[edgeTarget[e]] = true;
+        }
+        int[] graphNodes = new int[count];
+        int[] graphIndex = new int[count];
+        int graphCount = 0;
+        for (int i = 0; i < count; i++) {
+            if (connected[i]) {
+                graphIndex[i] = graphCount;
+                graphNodes[graphCount++] = i;
             }
         }
+        int[] graphLayers = new int[graphCount];
+        for (int i = 0; i < graphCount; i++) {
+            graphLayers[i] = layerOf[graphNodes[i]];
+        }
+        for (int e = 0; e < edgeCount; e++) {
+            edgeSource[e] = graphIndex[edgeSource[e]];
+            edgeTarget[e] = graphIndex[edgeTarget[e]];
+        }
+        double[] widths = new double[graphCount];
+        for (int i = 0; i < graphCount; i++) {
+            widths[i] = nodeWidths[graphNodes[i]];
+        }
+
+        LayeredGraph graph = new LayeredGraph(graphCount, graphLayers, widths, edgeSource, edgeTarget, edgeCount);
+        orderInitially(graph);
+        long crossings = minimizeCrossings(graph);
+        double[] graphX = new BrandesKoepfPlacer(graph, horizontalSpacing, dummySpacing).place();
 
-        LOGGER.log(Level.INFO, "Hierarchical layout completed");
+        double[] x = new double[count];
+        double[] y = new double[count];
+        for (int i = 0; i < graphCount; i++) {
+            x[graphNodes[i]] = graphX[i];
+        }
+        double bottom = assignVerticalPositions(graph, graphNodes, nodeHeights, y);
+        placeIsolatedClasses(connected, nodeWidths, nodeHeights, x, y, bottom);
+        applyPositions(classes, nodeWidths, x, y);
+
+        lastResult = new LayoutResult(1, 0, true);
+        LOGGER.log(Level.INFO, "Hierarchical layout completed: {0} layers, {1} dummy nodes, {2} reversed edges, {3} crossings",
+                new Object[]{graph.layers.length, graph.nodeCount - graphCount, reversed, crossings});
+    }
+
+    @Override
+    public LayoutResult getLastResult() {
+        return lastResult;
     }
 
     @Override
@@ -47,223 +113,329 @@ public class HierarchicalLayout implements LayoutManager.LayoutAlgorithm {
         this.height = height;
     }
 
-    private Map<String, Node> createNodes(ClassDiagram diagram) {
-        Map<String, Node> nodes = new HashMap<>();
-        for (DiagramClass diagramClass : diagram.getClasses()) {
-            nodes.put(diagramClass.getId(), new Node(diagramClass));
-        }
+    private int[][] collectEdges(ClassDiagram diagram, Map<DiagramClass, Integer> indices) {
+        Set<Long> seen = new HashSet<>();
+        int[] sources = new int[diagram.getRelations().size()];
+        int[] targets = new int[diagram.getRelations().size()];
+        int count = 0;
+
         for (DiagramRelation relation : diagram.getRelations()) {
-            Node source = nodes.get(relation.getSourceClass().getId());
-            Node target = nodes.get(relation.getTargetClass().getId());
-
-            if (source != null && target != null) {
-                switch (relation.getRelationType()) {
-                    case INHERITANCE:
-                        source.parents.add(target);
-                        target.children.add(source);
-                        break;
-                    case IMPLEMENTATION:
-                        source.implementedInterfaces.add(target);
-                        target.implementingClasses.add(source);
-                        break;
-                    case COMPOSITION:
-                        source.compositions.add(target);
-                        target.compositedBy.add(source);
-                        break;
-                    case AGGREGATION:
-                        source.aggregations.add(target);
-                        target.aggregatedBy.add(source);
-                        break;
-                    case ASSOCIATION:
-                        source.associations.add(target);
-                        target.associatedBy.add(source);
-                        break;
-                    case DEPENDENCY:
-                        source.dependencies.add(target);
-                        target.dependedOnBy.add(source);
-                        break;
-                }
+            Integer source = indices.get(relation.getSourceClass());
+            Integer target = indices.get(relation.getTargetClass());
+            if (source == null || target == null || source.equals(target)) {
+                continue;
             }
-        }
 
-        return nodes;
-    }
-
-    private List<Node> findRoots(Map<String, Node> nodes) {
-        List<Node> roots = new ArrayList<>();
+            int upper;
+            int lower;
+            switch (relation.getRelationType()) {
+                case INHERITANCE:
+                case IMPLEMENTATION:
+                    upper = target;
+                    lower = source;
+                    break;
+                case COMPOSITION:
+                case AGGREGATION:
+                    upper = source;
+                    lower = target;
+                    break;
+                default:
+                    continue;
+            }
 
-        for (Node node : nodes.values()) {
-            if (node.parents.isEmpty() && node.implementingClasses.isEmpty() &&
-                    !node.aggregatedBy.isEmpty() && !node.compositedBy.isEmpty()) {
-                roots.add(node);
+            long key = ((long) Math.min(upper, lower) << 32) | Math.max(upper, lower);
+            if (seen.add(key)) {
+                sources[count] = upper;
+                targets[count] = lower;
+                count++;
             }
         }
-
-        return roots;
+        return new int[][]{Arrays.copyOf(sources, count), Arrays.copyOf(targets, count)};
     }
 
-    private List<Node> findClassesWithMostChildren(Map<String, Node> nodes) {
-        List<Node> candidates = new ArrayList<>(nodes.values());
-        candidates.sort((a, b) -> Integer.compare(
-                b.children.size() + b.implementingClasses.size(),
-                a.children.size() + a.implementingClasses.size()
-        ));
-        int numRoots = Math.max(1, (int) (nodes.size() * 0.2));
-        return candidates.subList(0, Math.min(numRoots, candidates.size()));
-    }
+    private int removeCycles(int count, int[] edgeSource, int[] edgeTarget) {
+        int[][] outgoing = buildAdjacency(count, edgeSource);
+        int[] inDegree = new int[count];
+        for (int target : edgeTarget) {
+            inDegree[target]++;
+        }
+
+        int[] state = new int[count];
+        int[] stack = new int[count];
+        int[] cursor = new int[count];
+        int reversed = 0;
+        for (int pass = 0; pass < 2; pass++) {
+            for (int start = 0; start < count; start++) {
+                if (state[start] != 0 || (pass == 0 && inDegree[start] > 0)) {
+                    continue;
+                }
 
-    private void assignLevels(List<Node> roots) {
-        for (Node root : roots) {
-            root.level = 0;
-            assignLevelsRecursive(root, new HashSet<>());
+                int size = 0;
+                stack[size++] = start;
+                state[start] = 1;
+                while (size > 0) {
+                    int node = stack[size - 1];
+                    if (cursor[node] == outgoing[node].length) {
+                        state[node] = 2;
+                        size--;
+                        continue;
+                    }
+
+                    int edge = outgoing[node][cursor[node]++];
+                    int next = edgeTarget[edge];
+                    if (state[next] == 1) {
+                        edgeTarget[edge] = edgeSource[edge];
+                        edgeSource[edge] = next;
+                        reversed++;
+                    } else if (state[next] == 0) {
+                        state[next] = 1;
+                        stack[size++] = next;
+                    }
+                }
+            }
         }
+        return reversed;
     }
 
-    private void assignLevelsRecursive(Node node, Set<Node> visited) {
-        if (visited.contains(node)) {
-            return;
+    private int[] assignLayers(int count, int[] edgeSource, int[] edgeTarget) {
+        int[][] outgoing = buildAdjacency(count, edgeSource);
+        int[] inDegree = new int[count];
+        for (int target : edgeTarget) {
+            inDegree[target]++;
         }
 
-        visited.add(node);
-        for (Node child : node.children) {
-            child.level = Math.max(child.level, node.level + 1);
-            assignLevelsRecursive(child, visited);
-        }
-        for (Node impl : node.implementingClasses) {
-            impl.level = Math.max(impl.level, node.level + 1);
-            assignLevelsRecursive(impl, visited);
+        boolean[] hasParent = new boolean[count];
+        for (int v = 0; v < count; v++) {
+            hasParent[v] = inDegree[v] > 0;
         }
-        for (Node comp : node.compositions) {
-            comp.level = Math.max(comp.level, node.level);
-            assignLevelsRecursive(comp, visited);
+
+        int[] layer = new int[count];
+        int[] queue = new int[count];
+        int head = 0;
+        int tail = 0;
+        for (int v = 0; v < count; v++) {
+            if (inDegree[v] == 0) {
+                queue[tail++] = v;
+            }
         }
-        for (Node agg : node.aggregations) {
-            agg.level = Math.max(agg.level, node.level);
-            assignLevelsRecursive(agg, visited);
+        while (head < tail) {
+            int node = queue[head++];
+            for (int edge : outgoing[node]) {
+                int next = edgeTarget[edge];
+                layer[next] = Math.max(layer[next], layer[node] + 1);
+                if (--inDegree[next] == 0) {
+                    queue[tail++] = next;
+                }
+            }
         }
-        for (Node assoc : node.associations) {
-            assoc.level = Math.max(assoc.level, node.level);
-            assignLevelsRecursive(assoc, visited);
+
+        for (int i = tail - 1; i >= 0; i--) {
+            int node = queue[i];
+            if (outgoing[node].length == 0 || hasParent[node]) {
+                continue;
+            }
+            int closest = Integer.MAX_VALUE;
+            for (int edge : outgoing[node]) {
+                closest = Math.min(closest, layer[edgeTarget[edge]]);
+            }
+            layer[node] = closest - 1;
         }
+        return layer;
     }
 
-    private void positionNodes(Map<String, Node> nodes, List<Node> roots) {
-        Map<Integer, List<Node>> levelGroups = new HashMap<>();
-
-        for (Node node : nodes.values()) {
-            levelGroups.computeIfAbsent(node.level, k -> new ArrayList<>()).add(node);
+    private int[][] buildAdjacency(int count, int[] edgeSource) {
+        int[] degree = new int[count];
+        for (int source : edgeSource) {
+            degree[source]++;
+        }
+        int[][] adjacency = new int[count][];
+        for (int v = 0; v < count; v++) {
+            adjacency[v] = new int[degree[v]];
+            degree[v] = 0;
         }
-        int maxLevel = levelGroups.keySet().stream().mapToInt(Integer::intValue).max().orElse(0);
-        double yPosition = margin;
+        for (int e = 0; e < edgeSource.length; e++) {
+            adjacency[edgeSource[e]][degree[edgeSource[e]]++] = e;
+        }
+        return adjacency;
+    }
 
-        for (int level = 0; level <= maxLevel; level++) {
-            List<Node> levelNodes = levelGroups.get(level);
+    private void orderInitially(LayeredGraph graph) {
+        int[] filled = new int[graph.layers.length];
+        boolean[] visited = new boolean[graph.nodeCount];
+        int[] stack = new int[graph.nodeCount];
+        int[] cursor = new int[graph.nodeCount];
 
-            if (levelNodes != null && !levelNodes.isEmpty()) {
-                double xPosition = margin;
-                double maxHeight = 0;
-                sortNodesByRelations(levelNodes);
+        for (int start = 0; start < graph.nodeCount; start++) {
+            if (visited[start] || graph.upper[start].length > 0) {
+                continue;
+            }
+            int size = 0;
+            stack[size++] = start;
+            visited[start] = true;
+            graph.layers[graph.layer[start]][filled[graph.layer[start]]++] = start;
+            while (size > 0) {
+                int node = stack[size - 1];
+                if (cursor[node] == graph.lower[node].length) {
+                    size--;
+                    continue;
+                }
+                int next = graph.lower[node][cursor[node]++];
+                if (!visited[next]) {
+                    visited[next] = true;
+                    graph.layers[graph.layer[next]][filled[graph.layer[next]]++] = next;
+                    stack[size++] = next;
+                }
+            }
+        }
 
-                for (Node node : levelNodes) {
-                    node.x = xPosition;
-                    node.y = yPosition;
-                    double width = 200;
-                    double height = 120 + estimateNodeHeight(node);
+        for (int l = 0; l < graph.layers.length; l++) {
+            graph.updatePositions(l);
+        }
+    }
 
-                    xPosition += width + horizontalSpacing;
-                    maxHeight = Math.max(maxHeight, height);
+    private long minimizeCrossings(LayeredGraph graph) {
+        int layerCount = graph.layers.length;
+        long bestCrossings = graph.countCrossings();
+        int[][] bestLayers = copyLayers(graph.layers);
+        double[] barycenters = new double[graph.nodeCount];
+        int sweepsWithoutImprovement = 0;
+
+        for (int sweep = 0; sweep < maxSweeps && bestCrossings > 0 && sweepsWithoutImprovement < sweepPatience; sweep++) {
+            if (sweep % 2 == 0) {
+                for (int l = 1; l < layerCount; l++) {
+                    reorderLayer(graph, l, graph.upper, barycenters);
                 }
+            } else {
+                for (int l = layerCount - 2; l >= 0; l--) {
+                    reorderLayer(graph, l, graph.lower, barycenters);
+                }
+            }
 
-                yPosition += maxHeight + verticalSpacing;
+            long crossings = graph.countCrossings();
+            if (crossings < bestCrossings) {
+                bestCrossings = crossings;
+                bestLayers = copyLayers(graph.layers);
+                sweepsWithoutImprovement = 0;
+            } else {
+                sweepsWithoutImprovement++;
             }
         }
-        centerNodesHorizontally(levelGroups);
-        alignParentsAndChildren(nodes);
-    }
 
-    private double estimateNodeHeight(Node node) {
-        DiagramClass diagramClass = node.diagramClass;
-        return diagramClass.getAttributes().size() * 20 + diagramClass.getMethods().size() * 20;
+        for (int l = 0; l < layerCount; l++) {
+            System.arraycopy(bestLayers[l], 0, graph.layers[l], 0, bestLayers[l].length);
+            graph.updatePositions(l);
+        }
+        return bestCrossings;
     }
 
-    private void sortNodesByRelations(List<Node> nodes) {
-        nodes.sort((a, b) -> {
-            int relationsA = countRelations(a);
-            int relationsB = countRelations(b);
-            return Integer.compare(relationsB, relationsA);
-        });
+    private void reorderLayer(LayeredGraph graph, int layerIndex, int[][] neighbours, double[] barycenters) {
+        int[] nodes = graph.layers[layerIndex];
+        Integer[] ordered = new Integer[nodes.length];
+        for (int i = 0; i < nodes.length; i++) {
+            int node = nodes[i];
+            ordered[i] = node;
+            if (neighbours[node].length == 0) {
+                barycenters[node] = graph.position[node];
+                continue;
+            }
+            double sum = 0;
+            for (int neighbour : neighbours[node]) {
+                sum += graph.position[neighbour];
+            }
+            barycenters[node] = sum / neighbours[node].length;
+        }
+
+        Arrays.sort(ordered, (a, b) -> Double.compare(barycenters[a], barycenters[b]));
+        for (int i = 0; i < nodes.length; i++) {
+            nodes[i] = ordered[i];
+        }
+        graph.updatePositions(layerIndex);
     }
 
-    private int countRelations(Node node) {
-        return node.children.size() + node.parents.size() +
-                node.implementingClasses.size() + node.implementedInterfaces.size() +
-                node.compositions.size() + node.compositedBy.size() +
-                node.aggregations.size() + node.aggregatedBy.size() +
-                node.associations.size() + node.associatedBy.size() +
-                node.dependencies.size() + node.dependedOnBy.size();
+    private int[][] copyLayers(int[][] layers) {
+        int[][] copy = new int[layers.length][];
+        for (int l = 0; l < layers.length; l++) {
+            copy[l] = layers[l].clone();
+        }
+        return copy;
     }
 
-    private void centerNodesHorizontally(Map<Integer, List<Node>> levelGroups) {
-        for (List<Node> levelNodes : levelGroups.values()) {
-            if (levelNodes.isEmpty()) continue;
-            double maxX = levelNodes.stream()
-                    .mapToDouble(node -> node.x)
-                    .max()
-                    .orElse(0);
-            double offset = (width - maxX) / 2;
-
-            if (offset > 0) {
-                for (Node node : levelNodes) {
-                    node.x += offset;
+    private double assignVerticalPositions(LayeredGraph graph, int[] graphNodes, double[] nodeHeights, double[] y) {
+        double layerY = margin;
+        for (int[] layer : graph.layers) {
+            double layerHeight = 0;
+            for (int node : layer) {
+                if (!graph.isDummy(node)) {
+                    y[graphNodes[node]] = layerY;
+                    layerHeight = Math.max(layerHeight, nodeHeights[graphNodes[node]]);
                 }
             }
+            if (layerHeight > 0) {
+                layerY += layerHeight + verticalSpacing;
+            }
         }
+        return layerY;
     }
 
-    private void alignParentsAndChildren(Map<String, Node> nodes) {
-        for (int i = 0; i < 3; i++) {
-            for (Node node : nodes.values()) {
-                if (!node.parents.isEmpty()) {
-                    double avgParentX = node.parents.stream()
-                            .mapToDouble(parent -> parent.x)
-                            .average()
-                            .orElse(node.x);
-                    node.x = node.x * 0.7 + avgParentX * 0.3;
-                }
+    private void placeIsolatedClasses(boolean[] connected, double[] nodeWidths, double[] nodeHeights,
+                                      double[] x, double[] y, double top) {
+        double left = Double.POSITIVE_INFINITY;
+        double right = Double.NEGATIVE_INFINITY;
+        double isolatedWidth = 0;
+        int isolated = 0;
+        for (int i = 0; i < connected.length; i++) {
+            if (connected[i]) {
+                left = Math.min(left, x[i] - nodeWidths[i] / 2);
+                right = Math.max(right, x[i] + nodeWidths[i] / 2);
+            } else {
+                isolatedWidth += nodeWidths[i] + horizontalSpacing;
+                isolated++;
+            }
+        }
+        if (isolated == 0) {
+            return;
+        }
+        if (left > right) {
+            left = 0;
+            right = 0;
+        }
 
-                if (!node.children.isEmpty()) {
-                    double avgChildX = node.children.stream()
-                            .mapToDouble(child -> child.x)
-                            .average()
-                            .orElse(node.x);
-                    node.x = node.x * 0.7 + avgChildX * 0.3;
-                }
+        double rowWidth = Math.max(right - left, isolatedWidth / Math.ceil(Math.sqrt(isolated)));
+        double rowX = left;
+        double rowY = top;
+        double rowHeight = 0;
+        for (int i = 0; i < connected.length; i++) {
+            if (connected[i]) {
+                continue;
             }
+            if (rowX > left && rowX + nodeWidths[i] > left + rowWidth) {
+                rowX = left;
+                rowY += rowHeight + verticalSpacing;
+                rowHeight = 0;
+            }
+            x[i] = rowX + nodeWidths[i] / 2;
+            y[i] = rowY;
+            rowX += nodeWidths[i] + horizontalSpacing;
+            rowHeight = Math.max(rowHeight, nodeHeights[i]);
         }
     }
 
-    private static class Node {
-        final DiagramClass diagramClass;
-        final Set<Node> parents = new HashSet<>();
-        final Set<Node> children = new HashSet<>();
-        final Set<Node> implementedInterfaces = new HashSet<>();
-        final Set<Node> implementingClasses = new HashSet<>();
-        final Set<Node> compositions = new HashSet<>();
-        final Set<Node> compositedBy = new HashSet<>();
-        final Set<Node> aggregations = new HashSet<>();
-        final Set<Node> aggregatedBy = new HashSet<>();
-        final Set<Node> associations = new HashSet<>();
-        final Set<Node> associatedBy = new HashSet<>();
-        final Set<Node> dependencies = new HashSet<>();
-        final Set<Node> dependedOnBy = new HashSet<>();
-        double x;
-        double y;
-        int level = 0;
-
-        public Node(DiagramClass diagramClass) {
-            this.diagramClass = diagramClass;
-            this.x = diagramClass.getX();
-            this.y = diagramClass.getY();
+    private void applyPositions(List<DiagramClass> classes, double[] nodeWidths, double[] x, double[] y) {
+        double left = Double.POSITIVE_INFINITY;
+        double right = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < classes.size(); i++) {
+            left = Math.min(left, x[i] - nodeWidths[i] / 2);
+            right = Math.max(right, x[i] + nodeWidths[i] / 2);
+        }
+        double offset = margin - left;
+        if (right - left + 2 * margin < width) {
+            offset += (width - 2 * margin - (right - left)) / 2;
+        }
+
+        for (int i = 0; i < classes.size(); i++) {
+            DiagramClass diagramClass = classes.get(i);
+            diagramClass.setX(x[i] - nodeWidths[i] / 2 + offset);
+            diagramClass.setY(y[i]);
         }
     }
-}
\ No newline at end of file
+}
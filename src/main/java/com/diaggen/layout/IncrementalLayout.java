@@ -0,0 +1,405 @@
+package com.diaggen.layout;
+
+import com.diaggen.model.ClassDiagram;
+import com.diaggen.model.DiagramClass;
+import com.diaggen.model.DiagramRelation;
+
+import java.util.*;
+import java.util.function.BooleanSupplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+public class IncrementalLayout implements LayoutManager.LayoutAlgorithm {
+
+    private static final Logger LOGGER = Logger.getLogger(IncrementalLayout.class.getName());
+
+    private final LayoutManager.LayoutAlgorithm fullLayout;
+    private final double k = 200.0;
+    private final double neighbourhoodRadius = 600.0;
+    private final double margin = 50;
+    private final int maxIterations = 100;
+    private final int obstacleRefreshInterval = 10;
+    private final double coolingFactor = 0.95;
+    private final double springStrength = 0.5;
+    private final double separationStrength = 1.0;
+    private final double separationGap = 50;
+    private final double convergenceThreshold = 0.5;
+    private long seed = LayoutOptions.DEFAULT_SEED;
+    private Set<DiagramClass> movableClasses;
+    private LayoutResult lastResult;
+    private NodeSizeProvider nodeSizes = new EstimatedNodeSizes();
+    private double[] halfWidth;
+    private double[] halfHeight;
+    private double cellSize;
+    private OverlapRemoval overlapRemoval;
+    private ForceDirectedLayout.ProgressListener progressListener;
+    private BooleanSupplier cancellationCheck;
+
+    public IncrementalLayout(LayoutManager.LayoutAlgorithm fullLayout) {
+        this.fullLayout = fullLayout;
+    }
+
+    public IncrementalLayout(LayoutManager.LayoutAlgorithm fullLayout, LayoutOptions options) {
+        this.fullLayout = fullLayout;
+        this.seed = options.getSeed();
+        this.nodeSizes = options.getNodeSizeProvider();
+        this.progressListener = options.getProgressListener();
+        this.cancellationCheck = options.getCancellationCheck();
+        if (options.isRemoveOverlaps()) {
+            this.overlapRemoval = new OverlapRemoval(null, options);
+        }
+    }
+
+    public void setMovableClasses(Collection<DiagramClass> movableClasses) {
+        this.movableClasses = movableClasses != null ? new HashSet<>(movableClasses) : null;
+    }
+
+    @Override
+    public LayoutResult getLastResult() {
+        return lastResult;
+    }
+
+    @Override
+    public void setDimensions(double width, double height) {
+        fullLayout.setDimensions(width, height);
+    }
+
+    @Override
+    public void layout(ClassDiagram diagram) {
+        lastResult = null;
+        if (diagram == null || diagram.getClasses().isEmpty()) {
+            return;
+        }
+
+        List<DiagramClass> classes = new ArrayList<>(diagram.getClasses());
+        Map<DiagramClass, Integer> indices = new HashMap<>();
+        int[] free = new int[classes.size()];
+        int freeCount = 0;
+        for (int i = 0; i < classes.size(); i++) {
+            DiagramClass diagramClass = classes.get(i);
+            indices.put(diagramClass, i);
+            if (isMovable(diagramClass)) {
+                free[freeCount++] = i;
+            }
+        }
+
+        if (freeCount == 0) {
+            lastResult = new LayoutResult(0, 0, true);
+            return;
+        }
+        if (freeCount == classes.size()) {
+            LOGGER.log(Level.INFO, "No positioned class to anchor on, running a full layout");
+            fullLayout.layout(diagram);
+            lastResult = fullLayout.getLastResult();
+            return;
+        }
+
+        int count = classes.size();
+        double[] x = new double[count];
+        double[] y = new double[count];
+        boolean[] movable = new boolean[count];
+        halfWidth = new double[count];
+        halfHeight = new double[count];
+        cellSize = neighbourhoodRadius;
+        for (int i = 0; i < count; i++) {
+            DiagramClass diagramClass = classes.get(i);
+            halfWidth[i] = nodeSizes.getWidth(diagramClass) / 2;
+            halfHeight[i] = nodeSizes.getHeight(diagramClass) / 2;
+            cellSize = Math.max(cellSize, 2 * Math.max(halfWidth[i], halfHeight[i]) + separationGap);
+            x[i] = diagramClass.getX() + halfWidth[i];
+            y[i] = diagramClass.getY() + halfHeight[i];
+        }
+        for (int i = 0; i < freeCount; i++) {
+            movable[free[i]] = true;
+        }
+
+        List<List<Integer>> neighbours = collectNeighbours(diagram, indices, movable);
+        placeInitially(free, freeCount, neighbours, movable, x, y);
+        int[][] obstacles = collectObstacles(free, freeCount, movable, x, y);
+        lastResult = relax(free, freeCount, movable, obstacles, neighbours, x, y);
+
+        for (int i = 0; i < freeCount; i++) {
+            DiagramClass diagramClass = classes.get(free[i]);
+            diagramClass.setX(x[free[i]] - halfWidth[free[i]]);
+            diagramClass.setY(y[free[i]] - halfHeight[free[i]]);
+        }
+        halfWidth = null;
+        halfHeight = null;
+        if (overlapRemoval != null) {
+            List<DiagramClass> fixedClasses = new ArrayList<>();
+            for (int i = 0; i < count; i++) {
+                if (!movable[i]) {
+                    fixedClasses.add(classes.get(i));
+                }
+            }
+            overlapRemoval.removeOverlaps(classes, fixedClasses);
+        }
+
+        LOGGER.log(Level.INFO, "Incremental layout placed {0} of {1} classes against {2} nearby classes: {3}",
+                new Object[]{freeCount, count, Arrays.stream(obstacles).mapToInt(nearby -> nearby.length).sum(),
+                        lastResult});
+    }
+
+    private boolean isMovable(DiagramClass diagramClass) {
+        if (movableClasses != null) {
+            return movableClasses.contains(diagramClass);
+        }
+        return diagramClass.getX() == 0 && diagramClass.getY() == 0;
+    }
+
+    private List<List<Integer>> collectNeighbours(ClassDiagram diagram, Map<DiagramClass, Integer> indices,
+                                                  boolean[] movable) {
+        List<List<Integer>> neighbours = new ArrayList<>(Collections.nCopies(movable.length, null));
+        for (DiagramRelation relation : diagram.getRelations()) {
+            Integer source = indices.get(relation.getSourceClass());
+            Integer target = indices.get(relation.getTargetClass());
+            if (source == null || target == null || source.equals(target)
+                    || (!movable[source] && !movable[target])) {
+                continue;
+            }
+            if (movable[source]) {
+                getNeighbours(neighbours, source).add(target);
+            }
+            if (movable[target]) {
+                getNeighbours(neighbours, target).add(source);
+            }
+        }
+        return neighbours;
+    }
+
+    private List<Integer> getNeighbours(List<List<Integer>> neighbours, int node) {
+        List<Integer> list = neighbours.get(node);
+        if (list == null) {
+            list = new ArrayList<>();
+            neighbours.set(node, list);
+        }
+        return list;
+    }
+
+    private void placeInitially(int[] free, int freeCount, List<List<Integer>> neighbours, boolean[] movable,
+                                double[] x, double[] y) {
+        Random random = new Random(seed);
+        boolean[] placed = new boolean[movable.length];
+        double minX = Double.POSITIVE_INFINITY;
+        double maxY = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < movable.length; i++) {
+            if (!movable[i]) {
+                placed[i] = true;
+                minX = Math.min(minX, x[i] - halfWidth[i]);
+                maxY = Math.max(maxY, y[i] + halfHeight[i]);
+            }
+        }
+
+        Deque<Integer> queue = new ArrayDeque<>();
+        boolean[] queued = new boolean[movable.length];
+        for (int i = 0; i < freeCount; i++) {
+            if (hasPlacedNeighbour(free[i], neighbours, placed)) {
+                queue.add(free[i]);
+                queued[free[i]] = true;
+            }
+        }
+
+        double rowX = minX;
+        int next = 0;
+        while (true) {
+            while (!queue.isEmpty()) {
+                int node = queue.poll();
+                double sumX = 0;
+                double sumY = 0;
+                int placedNeighbours = 0;
+                for (int neighbour : neighbours.get(node)) {
+                    if (placed[neighbour]) {
+                        sumX += x[neighbour];
+                        sumY += y[neighbour];
+                        placedNeighbours++;
+                    }
+                }
+                double angle = random.nextDouble() * 2 * Math.PI;
+                x[node] = sumX / placedNeighbours + Math.cos(angle) * k;
+                y[node] = sumY / placedNeighbours + Math.sin(angle) * k;
+                placed[node] = true;
+
+                for (int neighbour : neighbours.get(node)) {
+                    if (!placed[neighbour] && !queued[neighbour]) {
+                        queue.add(neighbour);
+                        queued[neighbour] = true;
+                    }
+                }
+            }
+
+            while (next < freeCount && placed[free[next]]) {
+                next++;
+            }
+            if (next == freeCount) {
+                return;
+            }
+
+            int node = free[next];
+            x[node] = rowX + halfWidth[node];
+            y[node] = maxY + k + halfHeight[node];
+            rowX += 2 * halfWidth[node] + separationGap;
+            placed[node] = true;
+            queued[node] = true;
+            if (neighbours.get(node) != null) {
+                for (int neighbour : neighbours.get(node)) {
+                    if (!placed[neighbour] && !queued[neighbour]) {
+                        queue.add(neighbour);
+                        queued[neighbour] = true;
+                    }
+                }
+            }
+        }
+    }
+
+    private boolean hasPlacedNeighbour(int node, List<List<Integer>> neighbours, boolean[] placed) {
+        if (neighbours.get(node) == null) {
+            return false;
+        }
+        for (int neighbour : neighbours.get(node)) {
+            if (placed[neighbour]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int[][] collectObstacles(int[] free, int freeCount, boolean[] movable, double[] x, double[] y) {
+        Map<Long, List<Integer>> grid = new HashMap<>();
+        for (int i = 0; i < movable.length; i++) {
+            if (!movable[i]) {
+                grid.computeIfAbsent(getCell(x[i], y[i]), cell -> new ArrayList<>()).add(i);
+            }
+        }
+
+        int[][] obstacles = new int[freeCount][];
+        for (int i = 0; i < freeCount; i++) {
+            int node = free[i];
+            long cellX = (long) Math.floor(x[node] / cellSize);
+            long cellY = (long) Math.floor(y[node] / cellSize);
+            List<Integer> nearby = new ArrayList<>();
+            for (long dx = -1; dx <= 1; dx++) {
+                for (long dy = -1; dy <= 1; dy++) {
+                    List<Integer> cell = grid.get(getCell(cellX + dx, cellY + dy));
+                    if (cell != null) {
+                        nearby.addAll(cell);
+                    }
+                }
+            }
+            obstacles[i] = nearby.stream().mapToInt(Integer::intValue).toArray();
+        }
+        return obstacles;
+    }
+
+    private long getCell(double x, double y) {
+        return getCell((long) Math.floor(x / cellSize), (long) Math.floor(y / cellSize));
+    }
+
+    private long getCell(long cellX, long cellY) {
+        return (cellX << 32) ^ (cellY & 0xFFFFFFFFL);
+    }
+
+    private LayoutResult relax(int[] free, int freeCount, boolean[] movable, int[][] obstacles,
+                               List<List<Integer>> neighbours, double[] x, double[] y) {
+        double[] forceX = new double[freeCount];
+        double[] forceY = new double[freeCount];
+        double temperature = k / 2;
+        double energy = 0;
+        int iteration = 0;
+        boolean converged = false;
+
+        while (iteration < maxIterations && !converged) {
+            if (cancellationCheck != null && cancellationCheck.getAsBoolean()) {
+                LOGGER.log(Level.INFO, "Incremental layout cancelled after {0} iterations", iteration);
+                break;
+            }
+            if (iteration > 0 && iteration % obstacleRefreshInterval == 0) {
+                obstacles = collectObstacles(free, freeCount, movable, x, y);
+            }
+            for (int i = 0; i < freeCount; i++) {
+                int node = free[i];
+                forceX[i] = 0;
+                forceY[i] = 0;
+                for (int obstacle : obstacles[i]) {
+                    addSeparation(i, node, obstacle, x, y, forceX, forceY);
+                }
+                for (int j = 0; j < freeCount; j++) {
+                    if (j != i) {
+                        addSeparation(i, node, free[j], x, y, forceX, forceY);
+                    }
+                }
+                if (neighbours.get(node) != null) {
+                    for (int neighbour : neighbours.get(node)) {
+                        double dx = x[neighbour] - x[node];
+                        double dy = y[neighbour] - y[node];
+                        double distance = Math.max(1, Math.sqrt(dx * dx + dy * dy));
+                        double stretch = (distance - getRestLength(node, neighbour, dx, dy, distance))
+                                * springStrength;
+                        forceX[i] += dx / distance * stretch;
+                        forceY[i] += dy / distance * stretch;
+                    }
+                }
+            }
+
+            double maxDisplacement = 0;
+            energy = 0;
+            for (int i = 0; i < freeCount; i++) {
+                int node = free[i];
+                double length = Math.sqrt(forceX[i] * forceX[i] + forceY[i] * forceY[i]);
+                if (length == 0) {
+                    continue;
+                }
+                double step = Math.min(length, temperature);
+                double newX = Math.max(margin + halfWidth[node], x[node] + forceX[i] / length * step);
+                double newY = Math.max(margin + halfHeight[node], y[node] + forceY[i] / length * step);
+                double dx = newX - x[node];
+                double dy = newY - y[node];
+                energy += (dx * dx + dy * dy) / 2;
+                maxDisplacement = Math.max(maxDisplacement, Math.sqrt(dx * dx + dy * dy));
+                x[node] = newX;
+                y[node] = newY;
+            }
+
+            iteration++;
+            temperature *= coolingFactor;
+            converged = maxDisplacement < convergenceThreshold;
+            if (progressListener != null) {
+                progressListener.onIteration(iteration, maxIterations, energy);
+            }
+        }
+
+        return new LayoutResult(iteration, energy, converged);
+    }
+
+    private double getRestLength(int node, int other, double dx, double dy, double distance) {
+        double clearX = halfWidth[node] + halfWidth[other] + separationGap;
+        double clearY = halfHeight[node] + halfHeight[other] + separationGap;
+        double directionX = Math.abs(dx) / distance;
+        double directionY = Math.abs(dy) / distance;
+        double contact = Math.min(directionX > 0 ? clearX / directionX : Double.POSITIVE_INFINITY,
+                directionY > 0 ? clearY / directionY : Double.POSITIVE_INFINITY);
+        return Math.max(k, Double.isInfinite(contact) ? clearX : contact);
+    }
+
+    private void addSeparation(int index, int node, int other, double[] x, double[] y,
+                               double[] forceX, double[] forceY) {
+        double dx = x[node] - x[other];
+        double dy = y[node] - y[other];
+        double overlapX = halfWidth[node] + halfWidth[other] + separationGap - Math.abs(dx);
+        double overlapY = halfHeight[node] + halfHeight[other] + separationGap - Math.abs(dy);
+        if (overlapX <= 0 || overlapY <= 0) {
+            return;
+        }
+        if (overlapX < overlapY) {
+            forceX[index] += getDirection(dx, node, other) * overlapX * separationStrength;
+        } else {
+            forceY[index] += getDirection(dy, node, other) * overlapY * separationStrength;
+        }
+    }
+
+    private int getDirection(double delta, int node, int other) {
+        if (delta == 0) {
+            return node < other ? -1 : 1;
+        }
+        return delta < 0 ? -1 : 1;
+    }
+}
@@ -0,0 +1,138 @@
+package com.diaggen.layout;
+
+import java.util.Arrays;
+
+class LayeredGraph {
+
+    final int realCount;
+    final int nodeCount;
+    final int[] layer;
+    final double[] width;
+    final int[][] upper;
+    final int[][] lower;
+    final int[][] layers;
+    final int[] position;
+
+    LayeredGraph(int realCount, int[] layerOf, double[] realWidths, int[] edgeSource, int[] edgeTarget, int edgeCount) {
+        this.realCount = realCount;
+
+        int dummyCount = 0;
+        for (int e = 0; e < edgeCount; e++) {
+            dummyCount += layerOf[edgeTarget[e]] - layerOf[edgeSource[e]] - 1;
+        }
+        this.nodeCount = realCount + dummyCount;
+        this.layer = Arrays.copyOf(layerOf, nodeCount);
+        this.width = Arrays.copyOf(realWidths, nodeCount);
+
+        int unitCount = edgeCount + dummyCount;
+        int[] unitSource = new int[unitCount];
+        int[] unitTarget = new int[unitCount];
+        int units = 0;
+        int nextDummy = realCount;
+        for (int e = 0; e < edgeCount; e++) {
+            int previous = edgeSource[e];
+            for (int l = layerOf[edgeSource[e]] + 1; l < layerOf[edgeTarget[e]]; l++) {
+                int dummy = nextDummy++;
+                layer[dummy] = l;
+                unitSource[units] = previous;
+                unitTarget[units++] = dummy;
+                previous = dummy;
+            }
+            unitSource[units] = previous;
+            unitTarget[units++] = edgeTarget[e];
+        }
+
+        this.upper = buildAdjacency(unitTarget, unitSource, units);
+        this.lower = buildAdjacency(unitSource, unitTarget, units);
+
+        int layerCount = 0;
+        for (int v = 0; v < nodeCount; v++) {
+            layerCount = Math.max(layerCount, layer[v] + 1);
+        }
+        int[] layerSizes = new int[layerCount];
+        for (int v = 0; v < nodeCount; v++) {
+            layerSizes[layer[v]]++;
+        }
+        this.layers = new int[layerCount][];
+        for (int l = 0; l < layerCount; l++) {
+            layers[l] = new int[layerSizes[l]];
+        }
+        this.position = new int[nodeCount];
+    }
+
+    boolean isDummy(int node) {
+        return node >= realCount;
+    }
+
+    void updatePositions(int layerIndex) {
+        int[] nodes = layers[layerIndex];
+        for (int i = 0; i < nodes.length; i++) {
+            position[nodes[i]] = i;
+        }
+    }
+
+    long countCrossings() {
+        long crossings = 0;
+        for (int l = 0; l + 1 < layers.length; l++) {
+            crossings += countCrossings(l);
+        }
+        return crossings;
+    }
+
+    long countCrossings(int layerIndex) {
+        int[] top = layers[layerIndex];
+        int bottomSize = layers[layerIndex + 1].length;
+        if (top.length < 2 || bottomSize < 2) {
+            return 0;
+        }
+
+        int treeSize = 1;
+        while (treeSize < bottomSize) {
+            treeSize *= 2;
+        }
+        int first = treeSize - 1;
+        long[] tree = new long[2 * treeSize - 1];
+        long crossings = 0;
+        int[] targets = new int[0];
+
+        for (int node : top) {
+            int degree = lower[node].length;
+            if (targets.length < degree) {
+                targets = new int[degree];
+            }
+            for (int i = 0; i < degree; i++) {
+                targets[i] = position[lower[node][i]];
+            }
+            Arrays.sort(targets, 0, degree);
+
+            for (int i = 0; i < degree; i++) {
+                int index = targets[i] + first;
+                tree[index]++;
+                while (index > 0) {
+                    if (index % 2 == 1) {
+                        crossings += tree[index + 1];
+                    }
+                    index = (index - 1) / 2;
+                    tree[index]++;
+                }
+            }
+        }
+        return crossings;
+    }
+
+    private int[][] buildAdjacency(int[] from, int[] to, int count) {
+        int[] degree = new int[nodeCount];
+        for (int i = 0; i < count; i++) {
+            degree[from[i]]++;
+        }
+        int[][] adjacency = new int[nodeCount][];
+        for (int v = 0; v < nodeCount; v++) {
+            adjacency[v] = new int[degree[v]];
+            degree[v] = 0;
+        }
+        for (int i = 0; i < count; i++) {
+            adjacency[from[i]][degree[from[i]]++] = to[i];
+        }
+        return adjacency;
+    }
+}
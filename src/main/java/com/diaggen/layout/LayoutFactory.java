@@ -3,15 +3,33 @@ package com.diaggen.layout;
 public class LayoutFactory {
 
     public static LayoutManager.LayoutAlgorithm createLayout(LayoutType type) {
+        return createLayout(type, LayoutOptions.defaults());
+    }
+
+    public static LayoutManager.LayoutAlgorithm createLayout(LayoutType type, LayoutOptions options) {
+        if (options.isIncremental()) {
+            LayoutOptions fullOptions = options.copy();
+            fullOptions.setIncremental(false);
+            return new IncrementalLayout(createLayout(type, fullOptions), options);
+        }
+        if (options.isRemoveOverlaps()) {
+            LayoutOptions layoutOptions = options.copy();
+            layoutOptions.setRemoveOverlaps(false);
+            return new OverlapRemoval(createLayout(type, layoutOptions), options);
+        }
+        if (options.isDecomposeComponents() && type != LayoutType.GRID) {
+            return new ComponentLayout(type, options);
+        }
+
         switch (type) {
             case FORCE_DIRECTED:
-                return new ForceDirectedLayout();
+                return new ForceDirectedLayout(options);
             case HIERARCHICAL:
-                return new HierarchicalLayout();
+                return new HierarchicalLayout(options);
             case GRID:
-                return new GridLayout();
+                return new GridLayout(options);
             default:
-                return new ForceDirectedLayout();
+                return new ForceDirectedLayout(options);
         }
     }
 
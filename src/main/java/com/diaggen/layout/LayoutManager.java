@@ -9,41 +9,69 @@ public class LayoutManager {
     private static final Logger LOGGER = Logger.getLogger(LayoutManager.class.getName());
 
     private final ClassDiagram diagram;
+    private LayoutOptions options;
     private LayoutAlgorithm currentAlgorithm;
 
     public LayoutManager(ClassDiagram diagram) {
+        this(diagram, LayoutOptions.defaults());
+    }
+
+    public LayoutManager(ClassDiagram diagram, LayoutOptions options) {
         this.diagram = diagram;
-        this.currentAlgorithm = new ForceDirectedLayout();
+        this.options = options;
+        this.currentAlgorithm = new ForceDirectedLayout(options);
+    }
+
+    public LayoutOptions getOptions() {
+        return options;
+    }
+
+    public void setOptions(LayoutOptions options) {
+        this.options = options;
     }
 
     public void setAlgorithm(LayoutAlgorithm algorithm) {
         this.currentAlgorithm = algorithm;
     }
 
-    public void applyLayout() {
+    public void setAlgorithm(LayoutFactory.LayoutType layoutType) {
+        this.currentAlgorithm = LayoutFactory.createLayout(layoutType, options);
+    }
+
+    public LayoutResult applyLayout() {
         if (diagram == null || diagram.getClasses().isEmpty()) {
             LOGGER.log(Level.INFO, "No diagram or empty diagram to layout");
-            return;
+            return null;
         }
 
         LOGGER.log(Level.INFO, "Applying layout to diagram: {0} with {1} classes and {2} relations",
                 new Object[]{diagram.getName(), diagram.getClasses().size(), diagram.getRelations().size()});
 
         currentAlgorithm.layout(diagram);
+        return getResult();
     }
 
-    public void applyLayout(double width, double height) {
+    public LayoutResult applyLayout(double width, double height) {
         if (diagram == null || diagram.getClasses().isEmpty()) {
-            return;
+            return null;
         }
 
         currentAlgorithm.setDimensions(width, height);
         currentAlgorithm.layout(diagram);
+        return getResult();
+    }
+
+    private LayoutResult getResult() {
+        return currentAlgorithm.getLastResult();
     }
 
     public interface LayoutAlgorithm {
         void layout(ClassDiagram diagram);
 
         void setDimensions(double width, double height);
+
+        default LayoutResult getLastResult() {
+            return null;
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,92 @@
+package com.diaggen.layout;
+
+import java.util.function.BooleanSupplier;
+
+public class LayoutOptions {
+
+    public static final long DEFAULT_SEED = 42L;
+
+    private long seed = DEFAULT_SEED;
+    private boolean incremental;
+    private boolean removeOverlaps = true;
+    private boolean decomposeComponents = true;
+    private NodeSizeProvider nodeSizeProvider = new EstimatedNodeSizes();
+    private ForceDirectedLayout.ProgressListener progressListener;
+    private BooleanSupplier cancellationCheck;
+
+    public static LayoutOptions defaults() {
+        return new LayoutOptions();
+    }
+
+    public LayoutOptions copy() {
+        LayoutOptions copy = new LayoutOptions();
+        copy.setSeed(seed);
+        copy.setIncremental(incremental);
+        copy.setRemoveOverlaps(removeOverlaps);
+        copy.setDecomposeComponents(decomposeComponents);
+        copy.setNodeSizeProvider(nodeSizeProvider);
+        copy.setProgressListener(progressListener);
+        copy.setCancellationCheck(cancellationCheck);
+        return copy;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+
+    public boolean isIncremental() {
+        return incremental;
+    }
+
+    public void setIncremental(boolean incremental) {
+        this.incremental = incremental;
+    }
+
+    public boolean isRemoveOverlaps() {
+        return removeOverlaps;
+    }
+
+    public void setRemoveOverlaps(boolean removeOverlaps) {
+        this.removeOverlaps = removeOverlaps;
+    }
+
+    public boolean isDecomposeComponents() {
+        return decomposeComponents;
+    }
+
+    public void setDecomposeComponents(boolean decomposeComponents) {
+        this.decomposeComponents = decomposeComponents;
+    }
+
+    public NodeSizeProvider getNodeSizeProvider() {
+        return nodeSizeProvider;
+    }
+
+    public void setNodeSizeProvider(NodeSizeProvider nodeSizeProvider) {
+        this.nodeSizeProvider = nodeSizeProvider;
+    }
+
+    public ForceDirectedLayout.ProgressListener getProgressListener() {
+        return progressListener;
+    }
+
+    public void setProgressListener(ForceDirectedLayout.ProgressListener progressListener) {
+        this.progressListener = progressListener;
+    }
+
+    public BooleanSupplier getCancellationCheck() {
+        return cancellationCheck;
+    }
+
+    public void setCancellationCheck(BooleanSupplier cancellationCheck) {
+        this.cancellationCheck = cancellationCheck;
+    }
+
+    public boolean isCancelled() {
+        return cancellationCheck != null && cancellationCheck.getAsBoolean();
+    }
+}
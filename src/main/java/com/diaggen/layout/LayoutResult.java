@@ -0,0 +1,31 @@
+package com.diaggen.layout;
+
+public class LayoutResult {
+
+    private final int iterations;
+    private final double energy;
+    private final boolean converged;
+
+    public LayoutResult(int iterations, double energy, boolean converged) {
+        this.iterations = iterations;
+        this.energy = energy;
+        this.converged = converged;
+    }
+
+    public int getIterations() {
+        return iterations;
+    }
+
+    public double getEnergy() {
+        return energy;
+    }
+
+    public boolean isConverged() {
+        return converged;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d iterations, energy %.3f%s", iterations, energy, converged ? ", converged" : "");
+    }
+}
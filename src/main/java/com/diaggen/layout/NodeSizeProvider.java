@@ -0,0 +1,10 @@
+package com.diaggen.layout;
+
+import com.diaggen.model.DiagramClass;
+
+public interface NodeSizeProvider {
+
+    double getWidth(DiagramClass diagramClass);
+
+    double getHeight(DiagramClass diagramClass);
+}
@@ -0,0 +1,401 @@
+package com.diaggen.layout;
+
+import com.diaggen.model.ClassDiagram;
+import com.diaggen.model.DiagramClass;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+public class OverlapRemoval implements LayoutManager.LayoutAlgorithm {
+
+    private static final Logger LOGGER = Logger.getLogger(OverlapRemoval.class.getName());
+    private static final double FIXED_WEIGHT = 1e9;
+    private static final int RELOCATION_DEPTH = 3;
+    private static final double TOLERANCE = 1e-6;
+
+    private final LayoutManager.LayoutAlgorithm algorithm;
+    private final NodeSizeProvider nodeSizes;
+    private final LayoutOptions options;
+    private double gap = 20;
+
+    public OverlapRemoval(LayoutManager.LayoutAlgorithm algorithm) {
+        this(algorithm, LayoutOptions.defaults());
+    }
+
+    public OverlapRemoval(LayoutManager.LayoutAlgorithm algorithm, LayoutOptions options) {
+        this.algorithm = algorithm;
+        this.nodeSizes = options.getNodeSizeProvider();
+        this.options = options;
+    }
+
+    public LayoutManager.LayoutAlgorithm getAlgorithm() {
+        return algorithm;
+    }
+
+    public double getGap() {
+        return gap;
+    }
+
+    public void setGap(double gap) {
+        this.gap = gap;
+    }
+
+    @Override
+    public void layout(ClassDiagram diagram) {
+        if (algorithm != null) {
+            algorithm.layout(diagram);
+        }
+        if (diagram != null && !options.isCancelled()) {
+            removeOverlaps(diagram.getClasses());
+        }
+    }
+
+    @Override
+    public LayoutResult getLastResult() {
+        return algorithm != null ? algorithm.getLastResult() : null;
+    }
+
+    @Override
+    public void setDimensions(double width, double height) {
+        if (algorithm != null) {
+            algorithm.setDimensions(width, height);
+        }
+    }
+
+    public void removeOverlaps(List<DiagramClass> classes) {
+        removeOverlaps(classes, Collections.emptySet());
+    }
+
+    public void removeOverlaps(List<DiagramClass> classes, Collection<DiagramClass> fixedClasses) {
+        int count = classes.size();
+        if (count < 2) {
+            return;
+        }
+
+        long start = System.nanoTime();
+        Set<DiagramClass> fixedSet = fixedClasses instanceof Set ? (Set<DiagramClass>) fixedClasses
+                : new HashSet<>(fixedClasses);
+        double[] originalX = new double[count];
+        double[] originalY = new double[count];
+        double[] halfWidth = new double[count];
+        double[] halfHeight = new double[count];
+        double[] weight = new double[count];
+        boolean[] fixed = new boolean[count];
+        double minLeft = Double.POSITIVE_INFINITY;
+        double minTop = Double.POSITIVE_INFINITY;
+        for (int i = 0; i < count; i++) {
+            DiagramClass diagramClass = classes.get(i);
+            halfWidth[i] = (nodeSizes.getWidth(diagramClass) + gap) / 2;
+            halfHeight[i] = (nodeSizes.getHeight(diagramClass) + gap) / 2;
+            originalX[i] = diagramClass.getX() + halfWidth[i];
+            originalY[i] = diagramClass.getY() + halfHeight[i];
+            fixed[i] = fixedSet.contains(diagramClass);
+            weight[i] = fixed[i] ? FIXED_WEIGHT : 1;
+            minLeft = Math.min(minLeft, diagramClass.getX());
+            minTop = Math.min(minTop, diagramClass.getY());
+        }
+
+        Constraints horizontal = generateConstraints(originalX, originalY, halfWidth, halfHeight, fixed, true);
+        double[] x = solve(originalX, weight, fixed, horizontal);
+        Constraints vertical = generateConstraints(originalY, x, halfHeight, halfWidth, fixed, false);
+        double[] y = solve(originalY, weight, fixed, vertical);
+        int constraintCount = horizontal.count + vertical.count;
+        if (!fixedSet.isEmpty()) {
+            relocateOverlapping(x, y, halfWidth, halfHeight, fixed);
+        }
+
+        double shiftX = 0;
+        double shiftY = 0;
+        if (fixedSet.isEmpty()) {
+            double newLeft = Double.POSITIVE_INFINITY;
+            double newTop = Double.POSITIVE_INFINITY;
+            for (int i = 0; i < count; i++) {
+                newLeft = Math.min(newLeft, x[i] - halfWidth[i]);
+                newTop = Math.min(newTop, y[i] - halfHeight[i]);
+            }
+            shiftX = Math.max(0, minLeft - newLeft);
+            shiftY = Math.max(0, minTop - newTop);
+        }
+
+        int moved = 0;
+        for (int i = 0; i < count; i++) {
+            if (fixed[i]) {
+                continue;
+            }
+            DiagramClass diagramClass = classes.get(i);
+            double newX = x[i] - halfWidth[i] + shiftX;
+            double newY = y[i] - halfHeight[i] + shiftY;
+            if (newX != diagramClass.getX() || newY != diagramClass.getY()) {
+                diagramClass.setX(newX);
+                diagramClass.setY(newY);
+                moved++;
+            }
+        }
+
+        LOGGER.log(Level.INFO, "Overlap removal moved {0} of {1} classes with {2} constraints in {3} ms",
+                new Object[]{moved, count, constraintCount, (System.nanoTime() - start) / 1_000_000});
+    }
+
+    private double[] solve(double[] desired, double[] weight, boolean[] fixed, Constraints constraints) {
+        double[] solved = new VpscSolver(desired, weight, constraints.left, constraints.right, constraints.gap,
+                constraints.count).solve();
+        for (int i = 0; i < solved.length; i++) {
+            if (fixed[i]) {
+                solved[i] = desired[i];
+            }
+        }
+        return solved;
+    }
+
+    private Constraints generateConstraints(double[] position, double[] crossPosition, double[] halfSize,
+                                            double[] crossHalfSize, boolean[] fixed, boolean scanNeighbours) {
+        int count = position.length;
+        Integer[] events = new Integer[2 * count];
+        double[] eventPosition = new double[2 * count];
+        for (int i = 0; i < count; i++) {
+            events[2 * i] = 2 * i;
+            events[2 * i + 1] = 2 * i + 1;
+            eventPosition[2 * i] = crossPosition[i] - crossHalfSize[i];
+            eventPosition[2 * i + 1] = crossPosition[i] + crossHalfSize[i];
+        }
+        Arrays.sort(events, (a, b) -> {
+            int compare = Double.compare(eventPosition[a], eventPosition[b]);
+            if (compare != 0) {
+                return compare;
+            }
+            return Integer.compare(b & 1, a & 1);
+        });
+
+        TreeSet<Integer> scanLine = new TreeSet<>((a, b) -> {
+            int compare = Double.compare(position[a], position[b]);
+            return compare != 0 ? compare : Integer.compare(a, b);
+        });
+        List<Set<Integer>> leftNeighbours = new ArrayList<>(Collections.nCopies(count, null));
+        List<Set<Integer>> rightNeighbours = new ArrayList<>(Collections.nCopies(count, null));
+        Constraints constraints = new Constraints(count);
+
+        for (int event : events) {
+            int node = event >> 1;
+            if ((event & 1) == 0) {
+                scanLine.add(node);
+                Set<Integer> leftSet = new HashSet<>();
+                for (Integer other = scanLine.lower(node); other != null; other = scanLine.lower(other)) {
+                    if (addNeighbour(leftSet, node, other, position, crossPosition, halfSize, crossHalfSize,
+                            scanNeighbours)) {
+                        break;
+                    }
+                }
+                Set<Integer> rightSet = new HashSet<>();
+                for (Integer other = scanLine.higher(node); other != null; other = scanLine.higher(other)) {
+                    if (addNeighbour(rightSet, node, other, position, crossPosition, halfSize, crossHalfSize,
+                            scanNeighbours)) {
+                        break;
+                    }
+                }
+                for (int other : leftSet) {
+                    getSet(rightNeighbours, other).add(node);
+                }
+                for (int other : rightSet) {
+                    getSet(leftNeighbours, other).add(node);
+                }
+                getSet(leftNeighbours, node).addAll(leftSet);
+                getSet(rightNeighbours, node).addAll(rightSet);
+            } else {
+                for (int other : getSet(leftNeighbours, node)) {
+                    if (!fixed[other] || !fixed[node]) {
+                        constraints.add(other, node, halfSize[other] + halfSize[node]);
+                    }
+                    getSet(rightNeighbours, other).remove(node);
+                }
+                for (int other : getSet(rightNeighbours, node)) {
+                    if (!fixed[other] || !fixed[node]) {
+                        constraints.add(node, other, halfSize[node] + halfSize[other]);
+                    }
+                    getSet(leftNeighbours, other).remove(node);
+                }
+                leftNeighbours.set(node, null);
+                rightNeighbours.set(node, null);
+                scanLine.remove(node);
+            }
+        }
+        return constraints;
+    }
+
+    private boolean addNeighbour(Set<Integer> neighbours, int node, int other, double[] position,
+                                 double[] crossPosition, double[] halfSize, double[] crossHalfSize,
+                                 boolean scanNeighbours) {
+        double overlap = halfSize[node] + halfSize[other] - Math.abs(position[node] - position[other]);
+        if (!scanNeighbours || overlap <= 0) {
+            neighbours.add(other);
+            return true;
+        }
+        double crossOverlap = crossHalfSize[node] + crossHalfSize[other]
+                - Math.abs(crossPosition[node] - crossPosition[other]);
+        if (overlap <= crossOverlap) {
+            neighbours.add(other);
+        }
+        return false;
+    }
+
+    private void relocateOverlapping(double[] x, double[] y, double[] halfWidth, double[] halfHeight,
+                                     boolean[] fixed) {
+        double cellSize = 1;
+        for (int i = 0; i < x.length; i++) {
+            cellSize = Math.max(cellSize, 2 * Math.max(halfWidth[i], halfHeight[i]));
+        }
+        SpatialGrid grid = new SpatialGrid(cellSize, x, y, halfWidth, halfHeight);
+        for (int i = 0; i < x.length; i++) {
+            grid.insert(i);
+        }
+
+        for (int node = 0; node < x.length; node++) {
+            if (fixed[node]) {
+                continue;
+            }
+            List<Integer> blocking = grid.findOverlapping(node, x[node], y[node]);
+            if (blocking.isEmpty()) {
+                continue;
+            }
+
+            double bestX = x[node];
+            double bestY = y[node];
+            double bestDistance = Double.POSITIVE_INFINITY;
+            for (int depth = 0; depth < RELOCATION_DEPTH && bestDistance == Double.POSITIVE_INFINITY; depth++) {
+                List<double[]> candidates = new ArrayList<>();
+                for (int other : blocking) {
+                    double spanX = halfWidth[node] + halfWidth[other];
+                    double spanY = halfHeight[node] + halfHeight[other];
+                    candidates.add(new double[]{x[other] - spanX, y[node]});
+                    candidates.add(new double[]{x[other] + spanX, y[node]});
+                    candidates.add(new double[]{x[node], y[other] - spanY});
+                    candidates.add(new double[]{x[node], y[other] + spanY});
+                }
+                Set<Integer> nextBlocking = new HashSet<>();
+                for (double[] candidate : candidates) {
+                    double dx = candidate[0] - x[node];
+                    double dy = candidate[1] - y[node];
+                    double distance = dx * dx + dy * dy;
+                    if (distance >= bestDistance) {
+                        continue;
+                    }
+                    List<Integer> overlapping = grid.findOverlapping(node, candidate[0], candidate[1]);
+                    if (overlapping.isEmpty()) {
+                        bestX = candidate[0];
+                        bestY = candidate[1];
+                        bestDistance = distance;
+                    } else {
+                        nextBlocking.addAll(overlapping);
+                    }
+                }
+                blocking = new ArrayList<>(nextBlocking);
+            }
+
+            if (bestDistance < Double.POSITIVE_INFINITY) {
+                grid.remove(node);
+                x[node] = bestX;
+                y[node] = bestY;
+                grid.insert(node);
+            }
+        }
+    }
+
+    private Set<Integer> getSet(List<Set<Integer>> sets, int node) {
+        Set<Integer> set = sets.get(node);
+        if (set == null) {
+            set = new HashSet<>();
+            sets.set(node, set);
+        }
+        return set;
+    }
+
+    private static class SpatialGrid {
+
+        private final double cellSize;
+        private final double[] x;
+        private final double[] y;
+        private final double[] halfWidth;
+        private final double[] halfHeight;
+        private final Map<Long, List<Integer>> cells = new HashMap<>();
+
+        SpatialGrid(double cellSize, double[] x, double[] y, double[] halfWidth, double[] halfHeight) {
+            this.cellSize = cellSize;
+            this.x = x;
+            this.y = y;
+            this.halfWidth = halfWidth;
+            this.halfHeight = halfHeight;
+        }
+
+        void insert(int node) {
+            cells.computeIfAbsent(getCell(x[node], y[node]), cell -> new ArrayList<>()).add(node);
+        }
+
+        void remove(int node) {
+            cells.get(getCell(x[node], y[node])).remove(Integer.valueOf(node));
+        }
+
+        List<Integer> findOverlapping(int node, double centerX, double centerY) {
+            List<Integer> overlapping = new ArrayList<>();
+            long cellX = (long) Math.floor(centerX / cellSize);
+            long cellY = (long) Math.floor(centerY / cellSize);
+            for (long dx = -1; dx <= 1; dx++) {
+                for (long dy = -1; dy <= 1; dy++) {
+                    List<Integer> cell = cells.get(getCell(cellX + dx, cellY + dy));
+                    if (cell == null) {
+                        continue;
+                    }
+                    for (int other : cell) {
+                        if (other != node
+                                && Math.abs(centerX - x[other]) < halfWidth[node] + halfWidth[other] - TOLERANCE
+                                && Math.abs(centerY - y[other]) < halfHeight[node] + halfHeight[other] - TOLERANCE) {
+                            overlapping.add(other);
+                        }
+                    }
+                }
+            }
+            return overlapping;
+        }
+
+        private long getCell(double px, double py) {
+            return getCell((long) Math.floor(px / cellSize), (long) Math.floor(py / cellSize));
+        }
+
+        private long getCell(long cellX, long cellY) {
+            return (cellX << 32) ^ (cellY & 0xFFFFFFFFL);
+        }
+    }
+
+    private static class Constraints {
+
+        private int[] left;
+        private int[] right;
+        private double[] gap;
+        private int count;
+
+        Constraints(int capacity) {
+            left = new int[capacity];
+            right = new int[capacity];
+            gap = new double[capacity];
+        }
+
+        void add(int leftNode, int rightNode, double separation) {
+            if (count == left.length) {
+                left = Arrays.copyOf(left, count * 2);
+                right = Arrays.copyOf(right, count * 2);
+                gap = Arrays.copyOf(gap, count * 2);
+            }
+            left[count] = leftNode;
+            right[count] = rightNode;
+            gap[count++] = separation;
+        }
+    }
+}
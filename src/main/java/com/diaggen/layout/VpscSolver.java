@@ -0,0 +1,174 @@
+package com.diaggen.layout;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+class VpscSolver {
+
+    private static final double TOLERANCE = 1e-6;
+
+    private final double[] desired;
+    private final double[] weight;
+    private final int[] left;
+    private final int[] right;
+    private final double[] gap;
+    private final int constraintCount;
+    private final double[] offset;
+    private final Block[] block;
+    private final double[] key;
+
+    VpscSolver(double[] desired, double[] weight, int[] left, int[] right, double[] gap, int constraintCount) {
+        this.desired = desired;
+        this.weight = weight;
+        this.left = left;
+        this.right = right;
+        this.gap = gap;
+        this.constraintCount = constraintCount;
+        this.offset = new double[desired.length];
+        this.block = new Block[desired.length];
+        this.key = new double[constraintCount];
+    }
+
+    double[] solve() {
+        int count = desired.length;
+        int[] start = new int[count + 1];
+        for (int c = 0; c < constraintCount; c++) {
+            start[right[c] + 1]++;
+        }
+        for (int v = 0; v < count; v++) {
+            start[v + 1] += start[v];
+        }
+        int[] incoming = new int[constraintCount];
+        int[] next = Arrays.copyOf(start, count);
+        for (int c = 0; c < constraintCount; c++) {
+            incoming[next[right[c]]++] = c;
+        }
+
+        for (int v : getTopologicalOrder(start, incoming)) {
+            Block current = new Block(v);
+            block[v] = current;
+            for (int e = start[v]; e < start[v + 1]; e++) {
+                current.addIncoming(incoming[e]);
+            }
+            mergeLeft(current);
+        }
+
+        double[] positions = new double[count];
+        for (int v = 0; v < count; v++) {
+            positions[v] = block[v].position + offset[v];
+        }
+        return positions;
+    }
+
+    private int[] getTopologicalOrder(int[] start, int[] incoming) {
+        int count = desired.length;
+        int[] outDegree = new int[count];
+        int[] inDegree = new int[count];
+        for (int c = 0; c < constraintCount; c++) {
+            outDegree[left[c]]++;
+            inDegree[right[c]]++;
+        }
+        int[] outStart = new int[count + 1];
+        for (int v = 0; v < count; v++) {
+            outStart[v + 1] = outStart[v] + outDegree[v];
+        }
+        int[] outgoing = new int[constraintCount];
+        int[] next = Arrays.copyOf(outStart, count);
+        for (int c = 0; c < constraintCount; c++) {
+            outgoing[next[left[c]]++] = c;
+        }
+
+        int[] order = new int[count];
+        int head = 0;
+        int tail = 0;
+        for (int v = 0; v < count; v++) {
+            if (inDegree[v] == 0) {
+                order[tail++] = v;
+            }
+        }
+        while (head < tail) {
+            int v = order[head++];
+            for (int e = outStart[v]; e < outStart[v + 1]; e++) {
+                if (--inDegree[right[outgoing[e]]] == 0) {
+                    order[tail++] = right[outgoing[e]];
+                }
+            }
+        }
+        if (tail < count) {
+            throw new IllegalArgumentException("Separation constraints contain a cycle");
+        }
+        return order;
+    }
+
+    private void mergeLeft(Block current) {
+        while (!current.incoming.isEmpty()) {
+            int c = current.incoming.peek();
+            Block leftBlock = block[left[c]];
+            if (leftBlock == current) {
+                current.incoming.poll();
+                continue;
+            }
+            double currentKey = leftBlock.position + offset[left[c]] + gap[c] - offset[right[c]];
+            if (Math.abs(currentKey - key[c]) > TOLERANCE) {
+                current.incoming.poll();
+                key[c] = currentKey;
+                current.incoming.add(c);
+                continue;
+            }
+            if (key[c] - current.position <= TOLERANCE) {
+                return;
+            }
+
+            current.incoming.poll();
+            double distance = offset[left[c]] + gap[c] - offset[right[c]];
+            if (current.variables.size() > leftBlock.variables.size()) {
+                current.absorb(leftBlock, -distance);
+            } else {
+                leftBlock.absorb(current, distance);
+                current = leftBlock;
+            }
+        }
+    }
+
+    private class Block {
+
+        private final List<Integer> variables = new ArrayList<>();
+        private final PriorityQueue<Integer> incoming =
+                new PriorityQueue<>(Comparator.comparingDouble((Integer c) -> key[c]).reversed());
+        private double weightedPosition;
+        private double totalWeight;
+        private double position;
+
+        Block(int variable) {
+            variables.add(variable);
+            weightedPosition = weight[variable] * desired[variable];
+            totalWeight = weight[variable];
+            position = desired[variable];
+        }
+
+        void addIncoming(int c) {
+            Block leftBlock = block[left[c]];
+            key[c] = leftBlock.position + offset[left[c]] + gap[c] - offset[right[c]];
+            incoming.add(c);
+        }
+
+        void absorb(Block other, double distance) {
+            for (int variable : other.variables) {
+                offset[variable] += distance;
+                block[variable] = this;
+                variables.add(variable);
+            }
+            weightedPosition += other.weightedPosition - distance * other.totalWeight;
+            totalWeight += other.totalWeight;
+            position = weightedPosition / totalWeight;
+            for (int c : other.incoming) {
+                if (block[left[c]] != this) {
+                    addIncoming(c);
+                }
+            }
+        }
+    }
+}
@@ -13,6 +13,7 @@ public class ClassDiagram {
     private final StringProperty name;
     private final ObservableList<DiagramClass> classes;
     private final ObservableList<DiagramRelation> relations;
+    private PackageAggregation packageAggregation;
 
     public ClassDiagram(String name) {
         this.id = UUID.randomUUID().toString();
@@ -45,6 +46,14 @@ public class ClassDiagram {
         return relations;
     }
 
+    public PackageAggregation getPackageAggregation() {
+        return packageAggregation;
+    }
+
+    public void setPackageAggregation(PackageAggregation packageAggregation) {
+        this.packageAggregation = packageAggregation;
+    }
+
     public void addClass(DiagramClass diagramClass) {
         classes.add(diagramClass);
         diagramClass.setDiagramId(this.id);
@@ -53,9 +62,14 @@ public class ClassDiagram {
     public void removeClass(DiagramClass diagramClass) {
         classes.remove(diagramClass);
 
-        relations.removeIf(relation ->
-                relation.getSourceClass().equals(diagramClass) ||
-                        relation.getTargetClass().equals(diagramClass));
+        Set<DiagramRelation> attachedRelations = new HashSet<>();
+        for (DiagramRelation relation : relations) {
+            if (relation.getSourceClass().equals(diagramClass) || relation.getTargetClass().equals(diagramClass)) {
+                attachedRelations.add(relation);
+            }
+        }
+        relations.removeAll(attachedRelations);
+        attachedRelations.forEach(relation -> relation.setDiagramId(null));
         diagramClass.setDiagramId(null);
     }
 
@@ -75,14 +89,58 @@ public class ClassDiagram {
 
         Map<String, DiagramClass> originalToNewClassMap = new HashMap<>();
         for (DiagramClass originalClass : getClasses()) {
-            DiagramClass classCopy = new DiagramClass(
-                    originalClass.getName(),
-                    originalClass.getPackageName(),
-                    originalClass.getClassType()
-            );
-            classCopy.setX(originalClass.getX());
-            classCopy.setY(originalClass.getY());
+            DiagramClass classCopy = copyClass(originalClass);
+            copy.addClass(classCopy);
+            originalToNewClassMap.put(originalClass.getId(), classCopy);
+        }
 
+        for (DiagramRelation relation : getRelations()) {
+            if (packageAggregation != null && packageAggregation.isSummaryRelation(relation)) {
+                continue;
+            }
+            DiagramRelation relationCopy = copyRelation(relation, originalToNewClassMap);
+            if (relationCopy != null) {
+                copy.addRelation(relationCopy);
+            }
+        }
+
+        if (packageAggregation != null) {
+            PackageAggregation aggregationCopy = new PackageAggregation(copy);
+            for (String packageName : packageAggregation.getPackageNames()) {
+                DiagramClass packageNode = packageAggregation.getPackageNode(packageName);
+                DiagramClass nodeCopy = originalToNewClassMap.computeIfAbsent(packageNode.getId(),
+                        id -> copyClass(packageNode));
+                List<DiagramClass> hiddenCopies = new ArrayList<>();
+                for (DiagramClass hiddenClass : packageAggregation.getHiddenClasses(packageName)) {
+                    DiagramClass hiddenCopy = copyClass(hiddenClass);
+                    originalToNewClassMap.put(hiddenClass.getId(), hiddenCopy);
+                    hiddenCopies.add(hiddenCopy);
+                }
+                aggregationCopy.restorePackage(packageName, nodeCopy, hiddenCopies);
+            }
+            for (DiagramRelation relation : packageAggregation.getHiddenRelations()) {
+                DiagramRelation relationCopy = copyRelation(relation, originalToNewClassMap);
+                if (relationCopy != null) {
+                    aggregationCopy.restoreHiddenRelation(relationCopy);
+                }
+            }
+            aggregationCopy.refresh();
+        }
+
+        return copy;
+    }
+
+    private static DiagramClass copyClass(DiagramClass originalClass) {
+        DiagramClass classCopy = new DiagramClass(
+                originalClass.getName(),
+                originalClass.getPackageName(),
+                originalClass.getClassType(),
+                originalClass.getMemberStore()
+        );
+        classCopy.setX(originalClass.getX());
+        classCopy.setY(originalClass.getY());
+
+        if (originalClass.isMaterialized()) {
             for (Member attribute : originalClass.getAttributes()) {
                 Member attributeCopy = new Member(
                         attribute.getName(),
@@ -108,28 +166,26 @@ public class ClassDiagram {
                 );
                 classCopy.addMethod(methodCopy);
             }
-
-            copy.addClass(classCopy);
-            originalToNewClassMap.put(originalClass.getId(), classCopy);
         }
+        return classCopy;
+    }
 
-        for (DiagramRelation relation : getRelations()) {
-            DiagramClass sourceClass = originalToNewClassMap.get(relation.getSourceClass().getId());
-            DiagramClass targetClass = originalToNewClassMap.get(relation.getTargetClass().getId());
-
-            if (sourceClass != null && targetClass != null) {
-                DiagramRelation relationCopy = new DiagramRelation(
-                        sourceClass,
-                        targetClass,
-                        relation.getRelationType(),
-                        relation.getSourceMultiplicity(),
-                        relation.getTargetMultiplicity(),
-                        relation.getLabel()
-                );
-                copy.addRelation(relationCopy);
-            }
+    private static DiagramRelation copyRelation(DiagramRelation relation, Map<String, DiagramClass> classCopies) {
+        DiagramClass sourceClass = classCopies.get(relation.getSourceClass().getId());
+        DiagramClass targetClass = classCopies.get(relation.getTargetClass().getId());
+        if (sourceClass == null || targetClass == null) {
+            return null;
         }
 
-        return copy;
+        DiagramRelation relationCopy = new DiagramRelation(
+                sourceClass,
+                targetClass,
+                relation.getRelationType(),
+                relation.getSourceMultiplicity(),
+                relation.getTargetMultiplicity(),
+                relation.getLabel()
+        );
+        relationCopy.setWeight(relation.getWeight());
+        return relationCopy;
     }
-}
\ No newline at end of file
+}
@@ -1,10 +1,15 @@
 package com.diaggen.model;
 
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
 public enum ClassType {
     CLASS("Classe"),
     INTERFACE("Interface"),
     ABSTRACT_CLASS("Classe abstraite"),
-    ENUM("Énumération");
+    ENUM("Énumération"),
+    PACKAGE("Paquetage");
 
     private final String displayName;
 
@@ -15,6 +20,10 @@ public enum ClassType {
     public String getDisplayName() {
         return displayName;
     }
+
+    public static List<ClassType> getEditableTypes() {
+        return Arrays.stream(values()).filter(type -> type != PACKAGE).collect(Collectors.toList());
+    }
 }
 
 
@@ -11,19 +11,27 @@ public class DiagramClass {
     private final String id;
     private final StringProperty name;
     private final StringProperty packageName;
-    private final ObservableList<Member> attributes;
-    private final ObservableList<Method> methods;
+    private ObservableList<Member> attributes;
+    private ObservableList<Method> methods;
+    private final ReadOnlyObjectWrapper<MemberStore> memberStore;
     private final DoubleProperty x;
     private final DoubleProperty y;
     private final ObjectProperty<ClassType> classType;
     private String diagramId;
 
     public DiagramClass(String name, String packageName, ClassType classType) {
+        this(name, packageName, classType, null);
+    }
+
+    public DiagramClass(String name, String packageName, ClassType classType, MemberStore memberStore) {
         this.id = UUID.randomUUID().toString();
         this.name = new SimpleStringProperty(name);
         this.packageName = new SimpleStringProperty(packageName);
-        this.attributes = FXCollections.observableArrayList();
-        this.methods = FXCollections.observableArrayList();
+        this.memberStore = new ReadOnlyObjectWrapper<>(memberStore);
+        if (memberStore == null) {
+            this.attributes = FXCollections.observableArrayList();
+            this.methods = FXCollections.observableArrayList();
+        }
         this.x = new SimpleDoubleProperty(0);
         this.y = new SimpleDoubleProperty(0);
         this.classType = new SimpleObjectProperty<>(classType);
@@ -59,13 +67,52 @@ public class DiagramClass {
     }
 
     public ObservableList<Member> getAttributes() {
+        materializeMembers();
         return attributes;
     }
 
     public ObservableList<Method> getMethods() {
+        materializeMembers();
         return methods;
     }
 
+    public int getAttributeCount() {
+        return attributes != null ? attributes.size() : memberStore.get().getAttributeCount();
+    }
+
+    public int getMethodCount() {
+        return methods != null ? methods.size() : memberStore.get().getMethodCount();
+    }
+
+    public boolean isMaterialized() {
+        return attributes != null;
+    }
+
+    public MemberStore getMemberStore() {
+        return attributes != null ? null : memberStore.get();
+    }
+
+    public ReadOnlyObjectProperty<MemberStore> memberStoreProperty() {
+        return memberStore.getReadOnlyProperty();
+    }
+
+    public void materializeMembers() {
+        if (attributes == null) {
+            attributes = FXCollections.observableArrayList(memberStore.get().createAttributes());
+            methods = FXCollections.observableArrayList(memberStore.get().createMethods());
+            memberStore.set(null);
+        }
+    }
+
+    public void setMembersFrom(DiagramClass source) {
+        if (attributes == null && source.attributes == null) {
+            memberStore.set(source.memberStore.get());
+        } else {
+            getAttributes().setAll(source.getAttributes());
+            getMethods().setAll(source.getMethods());
+        }
+    }
+
     public double getX() {
         return x.get();
     }
@@ -111,19 +158,19 @@ public class DiagramClass {
     }
 
     public void addAttribute(Member attribute) {
-        attributes.add(attribute);
+        getAttributes().add(attribute);
     }
 
     public void removeAttribute(Member attribute) {
-        attributes.remove(attribute);
+        getAttributes().remove(attribute);
     }
 
     public void addMethod(Method method) {
-        methods.add(method);
+        getMethods().add(method);
     }
 
     public void removeMethod(Method method) {
-        methods.remove(method);
+        getMethods().remove(method);
     }
 
     @Override
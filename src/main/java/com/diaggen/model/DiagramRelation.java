@@ -14,6 +14,7 @@ public class DiagramRelation {
     private final StringProperty sourceMultiplicity;
     private final StringProperty targetMultiplicity;
     private final StringProperty label;
+    private int weight = 1;
     private String diagramId;
 
     public DiagramRelation(DiagramClass sourceClass, DiagramClass targetClass, RelationType relationType,
@@ -80,6 +81,14 @@ public class DiagramRelation {
         return label;
     }
 
+    public int getWeight() {
+        return weight;
+    }
+
+    public void setWeight(int weight) {
+        this.weight = Math.max(1, weight);
+    }
+
     public String getDiagramId() {
         return diagramId;
     }
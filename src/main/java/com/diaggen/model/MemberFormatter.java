@@ -0,0 +1,86 @@
+package com.diaggen.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public final class MemberFormatter {
+
+    private MemberFormatter() {
+    }
+
+    public static List<String> formatAttributes(DiagramClass diagramClass) {
+        int count = diagramClass.getAttributeCount();
+        List<String> lines = new ArrayList<>(count);
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            text.setLength(0);
+            lines.add(appendAttribute(text, diagramClass, i).toString());
+        }
+        return lines;
+    }
+
+    public static List<String> formatMethods(DiagramClass diagramClass) {
+        int count = diagramClass.getMethodCount();
+        List<String> lines = new ArrayList<>(count);
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            text.setLength(0);
+            lines.add(appendMethod(text, diagramClass, i).toString());
+        }
+        return lines;
+    }
+
+    public static StringBuilder appendAttribute(StringBuilder text, DiagramClass diagramClass, int index) {
+        MemberStore memberStore = diagramClass.getMemberStore();
+        if (memberStore != null) {
+            return appendAttribute(text, memberStore.getAttributeVisibility(index),
+                    memberStore.getAttributeName(index), memberStore.getAttributeType(index));
+        }
+        Member attribute = diagramClass.getAttributes().get(index);
+        return appendAttribute(text, attribute.getVisibility(), attribute.getName(), attribute.getType());
+    }
+
+    public static StringBuilder appendMethod(StringBuilder text, DiagramClass diagramClass, int index) {
+        MemberStore memberStore = diagramClass.getMemberStore();
+        if (memberStore != null) {
+            appendMethodStart(text, memberStore.getMethodVisibility(index), memberStore.isMethodStatic(index),
+                    memberStore.isMethodAbstract(index), memberStore.getMethodName(index));
+            for (int j = 0; j < memberStore.getParameterCount(index); j++) {
+                appendParameter(text, j, memberStore.getParameterName(index, j),
+                        memberStore.getParameterType(index, j));
+            }
+            return text.append(") : ").append(memberStore.getMethodReturnType(index));
+        }
+
+        Method method = diagramClass.getMethods().get(index);
+        appendMethodStart(text, method.getVisibility(), method.isStatic(), method.isAbstract(), method.getName());
+        List<Parameter> parameters = method.getParameters();
+        for (int j = 0; j < parameters.size(); j++) {
+            appendParameter(text, j, parameters.get(j).getName(), parameters.get(j).getType());
+        }
+        return text.append(") : ").append(method.getReturnType());
+    }
+
+    private static StringBuilder appendAttribute(StringBuilder text, Visibility visibility, String name, String type) {
+        return text.append(visibility.getSymbol()).append(" ").append(name).append(" : ").append(type);
+    }
+
+    private static void appendMethodStart(StringBuilder text, Visibility visibility, boolean isStatic,
+                                          boolean isAbstract, String name) {
+        text.append(visibility.getSymbol()).append(" ");
+        if (isStatic) {
+            text.append("static ");
+        }
+        if (isAbstract) {
+            text.append("abstract ");
+        }
+        text.append(name).append("(");
+    }
+
+    private static void appendParameter(StringBuilder text, int index, String name, String type) {
+        if (index > 0) {
+            text.append(", ");
+        }
+        text.append(name).append(" : ").append(type);
+    }
+}
@@ -0,0 +1,36 @@
+package com.diaggen.model;
+
+import java.util.List;
+
+public interface MemberStore {
+
+    int getAttributeCount();
+
+    int getMethodCount();
+
+    String getAttributeName(int attribute);
+
+    String getAttributeType(int attribute);
+
+    Visibility getAttributeVisibility(int attribute);
+
+    String getMethodName(int method);
+
+    String getMethodReturnType(int method);
+
+    Visibility getMethodVisibility(int method);
+
+    boolean isMethodAbstract(int method);
+
+    boolean isMethodStatic(int method);
+
+    int getParameterCount(int method);
+
+    String getParameterName(int method, int parameter);
+
+    String getParameterType(int method, int parameter);
+
+    List<Member> createAttributes();
+
+    List<Method> createMethods();
+}
@@ -0,0 +1,398 @@
+package com.diaggen.model;
+
+import java.util.*;
+
+public class PackageAggregation {
+
+    private static final String DEFAULT_PACKAGE_NAME = "(défaut)";
+    private static final double EXPANDED_CLASS_SPACING_X = 250;
+    private static final double EXPANDED_CLASS_SPACING_Y = 200;
+
+    private final ClassDiagram diagram;
+    private final Map<String, DiagramClass> packageNodes = new TreeMap<>();
+    private final Map<DiagramClass, String> nodePackages = new HashMap<>();
+    private Map<String, List<DiagramClass>> hiddenClasses = new HashMap<>();
+    private Map<DiagramClass, String> hiddenClassPackages = new HashMap<>();
+    private Set<DiagramRelation> hiddenRelations = new LinkedHashSet<>();
+    private Set<DiagramRelation> summaryRelations = new LinkedHashSet<>();
+
+    public PackageAggregation(ClassDiagram diagram) {
+        this.diagram = diagram;
+        diagram.setPackageAggregation(this);
+    }
+
+    public static PackageAggregation collapse(ClassDiagram diagram) {
+        PackageAggregation aggregation = new PackageAggregation(diagram);
+        Set<String> packageNames = new TreeSet<>();
+        for (DiagramClass diagramClass : diagram.getClasses()) {
+            packageNames.add(getPackageKey(diagramClass));
+        }
+        aggregation.collapsePackages(packageNames);
+        return aggregation;
+    }
+
+    public ClassDiagram getDiagram() {
+        return diagram;
+    }
+
+    public boolean isPackageNode(DiagramClass diagramClass) {
+        return nodePackages.containsKey(diagramClass);
+    }
+
+    public boolean isSummaryRelation(DiagramRelation relation) {
+        return summaryRelations.contains(relation);
+    }
+
+    public boolean hasCollapsedPackages() {
+        return !hiddenClasses.isEmpty();
+    }
+
+    public boolean isCollapsed(String packageName) {
+        return hiddenClasses.containsKey(packageName);
+    }
+
+    public String getPackageOf(DiagramClass diagramClass) {
+        String packageName = nodePackages.get(diagramClass);
+        if (packageName != null) {
+            return packageName;
+        }
+        packageName = hiddenClassPackages.get(diagramClass);
+        return packageName != null ? packageName : getPackageKey(diagramClass);
+    }
+
+    public int getClassCount(String packageName) {
+        List<DiagramClass> classes = hiddenClasses.get(packageName);
+        return classes != null ? classes.size() : 0;
+    }
+
+    public Set<String> getPackageNames() {
+        return Collections.unmodifiableSet(packageNodes.keySet());
+    }
+
+    public DiagramClass getPackageNode(String packageName) {
+        DiagramClass packageNode = packageNodes.get(packageName);
+        if (packageNode == null) {
+            packageNode = new DiagramClass(packageName.isEmpty() ? DEFAULT_PACKAGE_NAME : packageName, "",
+                    ClassType.PACKAGE);
+            registerPackageNode(packageName, packageNode);
+        }
+        return packageNode;
+    }
+
+    public List<DiagramClass> getHiddenClasses(String packageName) {
+        List<DiagramClass> classes = hiddenClasses.get(packageName);
+        return classes != null ? Collections.unmodifiableList(classes) : Collections.emptyList();
+    }
+
+    public Collection<DiagramRelation> getHiddenRelations() {
+        return Collections.unmodifiableSet(hiddenRelations);
+    }
+
+    public void restorePackage(String packageName, DiagramClass packageNode, List<DiagramClass> classes) {
+        registerPackageNode(packageName, packageNode);
+        if (!classes.isEmpty()) {
+            hiddenClasses.put(packageName, new ArrayList<>(classes));
+            for (DiagramClass diagramClass : classes) {
+                hiddenClassPackages.put(diagramClass, packageName);
+            }
+        }
+    }
+
+    public void restoreHiddenRelation(DiagramRelation relation) {
+        hiddenRelations.add(relation);
+    }
+
+    public void refresh() {
+        updateRelations(new Change());
+    }
+
+    public Change expandPackage(String packageName) {
+        List<DiagramClass> classes = hiddenClasses.get(packageName);
+        if (classes == null) {
+            return null;
+        }
+
+        Change change = new Change();
+        change.saveState(this);
+        hiddenClasses = new HashMap<>(hiddenClasses);
+        hiddenClassPackages = new HashMap<>(hiddenClassPackages);
+        hiddenRelations = new LinkedHashSet<>(hiddenRelations);
+        hiddenClasses.remove(packageName);
+        classes.forEach(hiddenClassPackages::remove);
+
+        DiagramClass packageNode = getPackageNode(packageName);
+        int columns = (int) Math.ceil(Math.sqrt(classes.size()));
+        double originX = packageNode.getX() - (columns - 1) * EXPANDED_CLASS_SPACING_X / 2;
+        double originY = packageNode.getY();
+
+        if (isVisible(packageNode)) {
+            List<DiagramRelation> attached = new ArrayList<>();
+            List<DiagramRelation> summaries = new ArrayList<>();
+            for (DiagramRelation relation : diagram.getRelations()) {
+                if (relation.getSourceClass() == packageNode || relation.getTargetClass() == packageNode) {
+                    (summaryRelations.contains(relation) ? summaries : attached).add(relation);
+                }
+            }
+            hideRelations(attached, change);
+            removeRelations(summaries, change);
+            removeClasses(List.of(packageNode), change);
+        }
+
+        for (int i = 0; i < classes.size(); i++) {
+            DiagramClass diagramClass = classes.get(i);
+            change.savePosition(diagramClass);
+            diagramClass.setX(originX + (i % columns) * EXPANDED_CLASS_SPACING_X);
+            diagramClass.setY(originY + (i / columns) * EXPANDED_CLASS_SPACING_Y);
+        }
+        addClasses(classes, change);
+
+        updateRelations(change);
+        return change;
+    }
+
+    public Change collapsePackage(String packageName) {
+        return collapsePackages(List.of(packageName));
+    }
+
+    private Change collapsePackages(Collection<String> packageNames) {
+        Map<String, List<DiagramClass>> collapsing = new LinkedHashMap<>();
+        for (DiagramClass diagramClass : diagram.getClasses()) {
+            String packageName = getPackageKey(diagramClass);
+            if (!isPackageNode(diagramClass) && packageNames.contains(packageName)) {
+                collapsing.computeIfAbsent(packageName, k -> new ArrayList<>()).add(diagramClass);
+            }
+        }
+        if (collapsing.isEmpty()) {
+            return null;
+        }
+
+        Change change = new Change();
+        change.saveState(this);
+        hiddenClasses = new HashMap<>(hiddenClasses);
+        hiddenClassPackages = new HashMap<>(hiddenClassPackages);
+        hiddenRelations = new LinkedHashSet<>(hiddenRelations);
+
+        Set<DiagramClass> removed = new LinkedHashSet<>();
+        collapsing.values().forEach(removed::addAll);
+        List<DiagramRelation> attached = new ArrayList<>();
+        for (DiagramRelation relation : diagram.getRelations()) {
+            if (!summaryRelations.contains(relation)
+                    && (removed.contains(relation.getSourceClass()) || removed.contains(relation.getTargetClass()))) {
+                attached.add(relation);
+            }
+        }
+        hideRelations(attached, change);
+        removeClasses(removed, change);
+
+        List<DiagramClass> addedNodes = new ArrayList<>();
+        for (Map.Entry<String, List<DiagramClass>> entry : collapsing.entrySet()) {
+            String packageName = entry.getKey();
+            List<DiagramClass> classes = entry.getValue();
+            List<DiagramClass> hidden = new ArrayList<>(hiddenClasses.getOrDefault(packageName, List.of()));
+            hidden.addAll(classes);
+            hiddenClasses.put(packageName, hidden);
+            for (DiagramClass diagramClass : classes) {
+                hiddenClassPackages.put(diagramClass, packageName);
+            }
+
+            DiagramClass packageNode = getPackageNode(packageName);
+            if (!isVisible(packageNode)) {
+                double sumX = 0;
+                double sumY = 0;
+                for (DiagramClass diagramClass : classes) {
+                    sumX += diagramClass.getX();
+                    sumY += diagramClass.getY();
+                }
+                change.savePosition(packageNode);
+                packageNode.setX(sumX / classes.size());
+                packageNode.setY(sumY / classes.size());
+                addedNodes.add(packageNode);
+            }
+        }
+        addClasses(addedNodes, change);
+
+        updateRelations(change);
+        return change;
+    }
+
+    public void revert(Change change) {
+        removeRelationsFromDiagram(change.addedRelations);
+        removeClassesFromDiagram(change.addedClasses);
+        addClassesToDiagram(change.removedClasses);
+        addRelationsToDiagram(change.removedRelations);
+        for (Map.Entry<DiagramClass, double[]> entry : change.positions.entrySet()) {
+            entry.getKey().setX(entry.getValue()[0]);
+            entry.getKey().setY(entry.getValue()[1]);
+        }
+
+        hiddenClasses = change.hiddenClasses;
+        hiddenClassPackages = change.hiddenClassPackages;
+        hiddenRelations = change.hiddenRelations;
+        summaryRelations = change.summaryRelations;
+    }
+
+    private void updateRelations(Change change) {
+        List<DiagramRelation> restored = new ArrayList<>();
+        Map<String, Integer> packageWeights = new LinkedHashMap<>();
+        Map<String, DiagramClass[]> packageEndpoints = new HashMap<>();
+
+        for (DiagramRelation relation : hiddenRelations) {
+            DiagramClass source = getVisibleNode(relation.getSourceClass());
+            DiagramClass target = getVisibleNode(relation.getTargetClass());
+            if (source == null || target == null || source == target) {
+                continue;
+            }
+            if (source == relation.getSourceClass() && target == relation.getTargetClass()) {
+                restored.add(relation);
+                continue;
+            }
+
+            String key = source.getId() + "|" + target.getId();
+            packageWeights.merge(key, relation.getWeight(), Integer::sum);
+            packageEndpoints.putIfAbsent(key, new DiagramClass[]{source, target});
+        }
+        if (!restored.isEmpty()) {
+            hiddenRelations = new LinkedHashSet<>(hiddenRelations);
+            restored.forEach(hiddenRelations::remove);
+            addRelations(restored, change);
+        }
+
+        Set<DiagramRelation> keptSummaries = new LinkedHashSet<>();
+        Set<String> keptKeys = new HashSet<>();
+        List<DiagramRelation> obsolete = new ArrayList<>();
+        for (DiagramRelation relation : summaryRelations) {
+            String key = relation.getSourceClass().getId() + "|" + relation.getTargetClass().getId();
+            Integer weight = packageWeights.get(key);
+            if (isVisible(relation) && weight != null && weight == relation.getWeight() && keptKeys.add(key)) {
+                keptSummaries.add(relation);
+            } else if (isVisible(relation)) {
+                obsolete.add(relation);
+            }
+        }
+        removeRelations(obsolete, change);
+
+        List<DiagramRelation> added = new ArrayList<>();
+        for (Map.Entry<String, Integer> entry : packageWeights.entrySet()) {
+            if (keptKeys.contains(entry.getKey())) {
+                continue;
+            }
+            DiagramClass[] endpoints = packageEndpoints.get(entry.getKey());
+            DiagramRelation relation = new DiagramRelation(endpoints[0], endpoints[1], RelationType.DEPENDENCY,
+                    "", "", String.valueOf(entry.getValue()));
+            relation.setWeight(entry.getValue());
+            added.add(relation);
+            keptSummaries.add(relation);
+        }
+        addRelations(added, change);
+        summaryRelations = keptSummaries;
+    }
+
+    private DiagramClass getVisibleNode(DiagramClass diagramClass) {
+        if (isVisible(diagramClass)) {
+            return diagramClass;
+        }
+        String packageName = hiddenClassPackages.get(diagramClass);
+        if (packageName == null) {
+            return null;
+        }
+        DiagramClass packageNode = packageNodes.get(packageName);
+        return packageNode != null && isVisible(packageNode) ? packageNode : null;
+    }
+
+    private void hideRelations(List<DiagramRelation> relations, Change change) {
+        hiddenRelations.addAll(relations);
+        removeRelations(relations, change);
+    }
+
+    private void addClasses(List<DiagramClass> classes, Change change) {
+        addClassesToDiagram(classes);
+        change.addedClasses.addAll(classes);
+    }
+
+    private void removeClasses(Collection<DiagramClass> classes, Change change) {
+        removeClassesFromDiagram(classes);
+        change.removedClasses.addAll(classes);
+    }
+
+    private void addRelations(List<DiagramRelation> relations, Change change) {
+        addRelationsToDiagram(relations);
+        change.addedRelations.addAll(relations);
+    }
+
+    private void removeRelations(List<DiagramRelation> relations, Change change) {
+        removeRelationsFromDiagram(relations);
+        change.removedRelations.addAll(relations);
+    }
+
+    private void addClassesToDiagram(List<DiagramClass> classes) {
+        if (!classes.isEmpty()) {
+            diagram.getClasses().addAll(classes);
+            classes.forEach(diagramClass -> diagramClass.setDiagramId(diagram.getId()));
+        }
+    }
+
+    private void removeClassesFromDiagram(Collection<DiagramClass> classes) {
+        if (!classes.isEmpty()) {
+            diagram.getClasses().removeAll(classes instanceof Set ? classes : new HashSet<>(classes));
+            classes.forEach(diagramClass -> diagramClass.setDiagramId(null));
+        }
+    }
+
+    private void addRelationsToDiagram(List<DiagramRelation> relations) {
+        if (!relations.isEmpty()) {
+            diagram.getRelations().addAll(relations);
+            relations.forEach(relation -> relation.setDiagramId(diagram.getId()));
+        }
+    }
+
+    private void removeRelationsFromDiagram(List<DiagramRelation> relations) {
+        if (!relations.isEmpty()) {
+            diagram.getRelations().removeAll(new HashSet<>(relations));
+            relations.forEach(relation -> relation.setDiagramId(null));
+        }
+    }
+
+    private boolean isVisible(DiagramClass diagramClass) {
+        return diagram.getId().equals(diagramClass.getDiagramId());
+    }
+
+    private boolean isVisible(DiagramRelation relation) {
+        return diagram.getId().equals(relation.getDiagramId());
+    }
+
+    private void registerPackageNode(String packageName, DiagramClass packageNode) {
+        packageNodes.put(packageName, packageNode);
+        nodePackages.put(packageNode, packageName);
+    }
+
+    private static String getPackageKey(DiagramClass diagramClass) {
+        return diagramClass.getPackageName() != null ? diagramClass.getPackageName() : "";
+    }
+
+    public static class Change {
+        private final List<DiagramClass> addedClasses = new ArrayList<>();
+        private final List<DiagramClass> removedClasses = new ArrayList<>();
+        private final List<DiagramRelation> addedRelations = new ArrayList<>();
+        private final List<DiagramRelation> removedRelations = new ArrayList<>();
+        private final Map<DiagramClass, double[]> positions = new HashMap<>();
+        private Map<String, List<DiagramClass>> hiddenClasses;
+        private Map<DiagramClass, String> hiddenClassPackages;
+        private Set<DiagramRelation> hiddenRelations;
+        private Set<DiagramRelation> summaryRelations;
+
+        public List<DiagramClass> getAddedClasses() {
+            return addedClasses;
+        }
+
+        void saveState(PackageAggregation aggregation) {
+            hiddenClasses = aggregation.hiddenClasses;
+            hiddenClassPackages = aggregation.hiddenClassPackages;
+            hiddenRelations = aggregation.hiddenRelations;
+            summaryRelations = aggregation.summaryRelations;
+        }
+
+        void savePosition(DiagramClass diagramClass) {
+            positions.putIfAbsent(diagramClass, new double[]{diagramClass.getX(), diagramClass.getY()});
+        }
+    }
+}
@@ -18,8 +18,18 @@ public class JavaCodeExporter implements DiagramExporter {
             directory.mkdirs();
         }
 
+        PackageAggregation aggregation = diagram.getPackageAggregation();
         for (DiagramClass diagramClass : diagram.getClasses()) {
-            exportClass(diagramClass, directory.toPath());
+            if (diagramClass.getClassType() != ClassType.PACKAGE) {
+                exportClass(diagramClass, directory.toPath());
+            }
+        }
+        if (aggregation != null) {
+            for (String packageName : aggregation.getPackageNames()) {
+                for (DiagramClass diagramClass : aggregation.getHiddenClasses(packageName)) {
+                    exportClass(diagramClass, directory.toPath());
+                }
+            }
         }
     }
 
@@ -53,6 +53,9 @@ public class PlantUMLExporter implements DiagramExporter {
                     case ENUM:
                         classDeclaration = "enum";
                         break;
+                    case PACKAGE:
+                        classDeclaration = "package";
+                        break;
                     default:
                         classDeclaration = "class";
                 }
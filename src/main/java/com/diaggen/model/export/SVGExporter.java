@@ -68,9 +68,9 @@ public class SVGExporter implements DiagramExporter {
                 int classWidth = 200;
                 int nameHeight = 30;
                 int separatorHeight = 2;
-                int attributeHeight = 20 * diagramClass.getAttributes().size();
+                int attributeHeight = 20 * diagramClass.getAttributeCount();
                 if (attributeHeight == 0) attributeHeight = separatorHeight;
-                int methodHeight = 20 * diagramClass.getMethods().size();
+                int methodHeight = 20 * diagramClass.getMethodCount();
                 if (methodHeight == 0) methodHeight = separatorHeight;
                 int classHeight = nameHeight + separatorHeight + attributeHeight + separatorHeight + methodHeight;
 
@@ -97,9 +97,9 @@ public class SVGExporter implements DiagramExporter {
                 writer.println("<line x1=\"" + classX + "\" y1=\"" + (classY + nameHeight) + "\" x2=\"" + (classX + classWidth) + "\" y2=\"" + (classY + nameHeight) + "\" stroke=\"black\" stroke-width=\"1\"/>");
 
                 int attributeY = classY + nameHeight + 5;
-                for (Member attribute : diagramClass.getAttributes()) {
+                for (String attribute : MemberFormatter.formatAttributes(diagramClass)) {
                     writer.println("<text x=\"" + (classX + 10) + "\" y=\"" + (attributeY + 15) + "\" class=\"attribute\">" +
-                            attribute.getVisibility().getSymbol() + " " + attribute.getName() + " : " + attribute.getType() + "</text>");
+                            attribute + "</text>");
                     attributeY += 20;
                 }
 
@@ -108,28 +108,7 @@ public class SVGExporter implements DiagramExporter {
                         "\" stroke=\"black\" stroke-width=\"1\"/>");
 
                 int methodY = classY + nameHeight + attributeHeight + separatorHeight + 5;
-                for (Method method : diagramClass.getMethods()) {
-                    StringBuilder methodText = new StringBuilder();
-                    methodText.append(method.getVisibility().getSymbol()).append(" ");
-                    if (method.isStatic()) {
-                        methodText.append("static ");
-                    }
-                    if (method.isAbstract()) {
-                        methodText.append("abstract ");
-                    }
-                    methodText.append(method.getName()).append("(");
-
-                    boolean first = true;
-                    for (Parameter param : method.getParameters()) {
-                        if (!first) {
-                            methodText.append(", ");
-                        }
-                        methodText.append(param.getName()).append(" : ").append(param.getType());
-                        first = false;
-                    }
-
-                    methodText.append(") : ").append(method.getReturnType());
-
+                for (String methodText : MemberFormatter.formatMethods(diagramClass)) {
                     writer.println("<text x=\"" + (classX + 10) + "\" y=\"" + (methodY + 15) + "\" class=\"method\">" +
                             methodText + "</text>");
                     methodY += 20;
@@ -0,0 +1,604 @@
+package com.diaggen.model.java;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+class ClassFileReader {
+
+    static final int ACC_PUBLIC = 0x0001;
+    static final int ACC_PRIVATE = 0x0002;
+    static final int ACC_PROTECTED = 0x0004;
+    static final int ACC_STATIC = 0x0008;
+    static final int ACC_FINAL = 0x0010;
+    static final int ACC_BRIDGE = 0x0040;
+    static final int ACC_INTERFACE = 0x0200;
+    static final int ACC_ABSTRACT = 0x0400;
+    static final int ACC_SYNTHETIC = 0x1000;
+    static final int ACC_ANNOTATION = 0x2000;
+    static final int ACC_ENUM = 0x4000;
+    static final int ACC_MODULE = 0x8000;
+
+    private static final int MAGIC = 0xCAFEBABE;
+
+    private static final int CONSTANT_UTF8 = 1;
+    private static final int CONSTANT_INTEGER = 3;
+    private static final int CONSTANT_FLOAT = 4;
+    private static final int CONSTANT_LONG = 5;
+    private static final int CONSTANT_DOUBLE = 6;
+    private static final int CONSTANT_CLASS = 7;
+    private static final int CONSTANT_STRING = 8;
+    private static final int CONSTANT_FIELD_REF = 9;
+    private static final int CONSTANT_METHOD_REF = 10;
+    private static final int CONSTANT_INTERFACE_METHOD_REF = 11;
+    private static final int CONSTANT_NAME_AND_TYPE = 12;
+    private static final int CONSTANT_METHOD_HANDLE = 15;
+    private static final int CONSTANT_METHOD_TYPE = 16;
+    private static final int CONSTANT_DYNAMIC = 17;
+    private static final int CONSTANT_INVOKE_DYNAMIC = 18;
+    private static final int CONSTANT_MODULE = 19;
+    private static final int CONSTANT_PACKAGE = 20;
+
+    private static final int OPCODE_TABLESWITCH = 0xaa;
+    private static final int OPCODE_LOOKUPSWITCH = 0xab;
+    private static final int OPCODE_NEW = 0xbb;
+    private static final int OPCODE_INVOKESPECIAL = 0xb7;
+    private static final int OPCODE_WIDE = 0xc4;
+    private static final int OPCODE_IINC = 0x84;
+
+    private static final byte[] INSTRUCTION_LENGTHS = createInstructionLengths();
+
+    private final ByteBuffer buffer;
+    private int[] constantOffsets;
+    private String[] utf8Cache;
+    private final List<Map<String, Integer>> constructorInstantiations = new ArrayList<>();
+
+    ClassFileReader(ByteBuffer buffer) {
+        this.buffer = buffer;
+    }
+
+    ClassFileInfo read() {
+        if (buffer.getInt(0) != MAGIC) {
+            throw new IllegalArgumentException("Not a class file");
+        }
+        buffer.position(8);
+        readConstantPool();
+
+        ClassFileInfo info = new ClassFileInfo();
+        info.access = u2();
+        info.name = readClassName(u2());
+        info.superName = readClassName(u2());
+
+        int interfaceCount = u2();
+        for (int i = 0; i < interfaceCount; i++) {
+            info.interfaces.add(readClassName(u2()));
+        }
+
+        int fieldCount = u2();
+        for (int i = 0; i < fieldCount; i++) {
+            info.fields.add(readField());
+        }
+
+        int methodCount = u2();
+        for (int i = 0; i < methodCount; i++) {
+            info.methods.add(readMethod(info));
+        }
+        mergeConstructorInstantiations(info);
+
+        int attributeCount = u2();
+        for (int i = 0; i < attributeCount; i++) {
+            String attributeName = readUtf8(u2());
+            int length = buffer.getInt();
+            int end = buffer.position() + length;
+            switch (attributeName) {
+                case "Signature" -> info.signature = readUtf8(u2());
+                case "InnerClasses" -> readInnerClasses(info);
+                case "EnclosingMethod" -> info.enclosingClassName = readClassName(u2());
+                case "Record" -> info.record = true;
+                default -> {
+                }
+            }
+            buffer.position(end);
+        }
+
+        return info;
+    }
+
+    private void readConstantPool() {
+        int count = u2();
+        constantOffsets = new int[count];
+        utf8Cache = new String[count];
+
+        for (int i = 1; i < count; i++) {
+            int tag = buffer.get() & 0xff;
+            constantOffsets[i] = buffer.position();
+            switch (tag) {
+                case CONSTANT_UTF8 -> buffer.position(buffer.position() + 2 + u2());
+                case CONSTANT_CLASS, CONSTANT_STRING, CONSTANT_METHOD_TYPE, CONSTANT_MODULE,
+                     CONSTANT_PACKAGE -> buffer.position(buffer.position() + 2);
+                case CONSTANT_METHOD_HANDLE -> buffer.position(buffer.position() + 3);
+                case CONSTANT_INTEGER, CONSTANT_FLOAT, CONSTANT_FIELD_REF, CONSTANT_METHOD_REF,
+                     CONSTANT_INTERFACE_METHOD_REF, CONSTANT_NAME_AND_TYPE, CONSTANT_DYNAMIC,
+                     CONSTANT_INVOKE_DYNAMIC -> buffer.position(buffer.position() + 4);
+                case CONSTANT_LONG, CONSTANT_DOUBLE -> {
+                    buffer.position(buffer.position() + 8);
+                    i++;
+                }
+                default -> throw new IllegalArgumentException("Unknown constant pool tag " + tag);
+            }
+        }
+    }
+
+    private FieldInfo readField() {
+        FieldInfo field = new FieldInfo();
+        field.access = u2();
+        field.name = readUtf8(u2());
+        field.descriptor = readUtf8(u2());
+
+        int attributeCount = u2();
+        for (int i = 0; i < attributeCount; i++) {
+            String attributeName = readUtf8(u2());
+            int length = buffer.getInt();
+            int end = buffer.position() + length;
+            if (attributeName.equals("Signature")) {
+                field.signature = readUtf8(u2());
+            }
+            buffer.position(end);
+        }
+        return field;
+    }
+
+    private MethodInfo readMethod(ClassFileInfo info) {
+        MethodInfo method = new MethodInfo();
+        method.access = u2();
+        method.name = readUtf8(u2());
+        method.descriptor = readUtf8(u2());
+
+        int attributeCount = u2();
+        for (int i = 0; i < attributeCount; i++) {
+            String attributeName = readUtf8(u2());
+            int length = buffer.getInt();
+            int end = buffer.position() + length;
+            switch (attributeName) {
+                case "Signature" -> method.signature = readUtf8(u2());
+                case "MethodParameters" -> {
+                    int parameterCount = buffer.get() & 0xff;
+                    method.parameterNames = new String[parameterCount];
+                    for (int p = 0; p < parameterCount; p++) {
+                        int nameIndex = u2();
+                        u2();
+                        method.parameterNames[p] = nameIndex == 0 ? null : readUtf8(nameIndex);
+                    }
+                }
+                case "Code" -> readCode(info, method);
+                default -> {
+                }
+            }
+            buffer.position(end);
+        }
+        return method;
+    }
+
+    private void readCode(ClassFileInfo info, MethodInfo method) {
+        buffer.position(buffer.position() + 4);
+        int codeLength = buffer.getInt();
+        int codeStart = buffer.position();
+        if (method.name.equals("<init>")) {
+            Map<String, Integer> instantiations = new LinkedHashMap<>();
+            if (scanInstructions(info, codeStart, codeLength, instantiations)) {
+                instantiations.forEach((type, count) -> info.instantiatedTypes.merge(type, count, Integer::sum));
+            } else {
+                constructorInstantiations.add(instantiations);
+            }
+        } else {
+            scanInstructions(info, codeStart, codeLength, info.instantiatedTypes);
+        }
+        buffer.position(codeStart + codeLength);
+
+        int exceptionTableLength = u2();
+        buffer.position(buffer.position() + exceptionTableLength * 8);
+
+        int attributeCount = u2();
+        for (int i = 0; i < attributeCount; i++) {
+            String attributeName = readUtf8(u2());
+            int length = buffer.getInt();
+            int end = buffer.position() + length;
+            if (attributeName.equals("LocalVariableTable")) {
+                int entryCount = u2();
+                for (int e = 0; e < entryCount; e++) {
+                    int startPc = u2();
+                    u2();
+                    int nameIndex = u2();
+                    u2();
+                    int slot = u2();
+                    if (startPc == 0) {
+                        method.localVariableNames.putIfAbsent(slot, readUtf8(nameIndex));
+                    }
+                }
+            }
+            buffer.position(end);
+        }
+    }
+
+    private boolean scanInstructions(ClassFileInfo info, int codeStart, int codeLength,
+                                     Map<String, Integer> instantiations) {
+        int selfInstantiations = 0;
+        int selfConstructorCalls = 0;
+        int pc = 0;
+        while (pc < codeLength) {
+            int opcode = buffer.get(codeStart + pc) & 0xff;
+            switch (opcode) {
+                case OPCODE_NEW -> {
+                    String typeName = readClassName(buffer.getShort(codeStart + pc + 1) & 0xffff);
+                    if (typeName.equals(info.name)) {
+                        selfInstantiations++;
+                    }
+                    instantiations.merge(typeName, 1, Integer::sum);
+                    pc += 3;
+                }
+                case OPCODE_INVOKESPECIAL -> {
+                    if (isConstructorOf(buffer.getShort(codeStart + pc + 1) & 0xffff, info.name)) {
+                        selfConstructorCalls++;
+                    }
+                    pc += 3;
+                }
+                case OPCODE_TABLESWITCH -> {
+                    int base = pc + 1 + ((4 - (pc + 1) % 4) % 4);
+                    int low = buffer.getInt(codeStart + base + 4);
+                    int high = buffer.getInt(codeStart + base + 8);
+                    pc = base + 12 + (high - low + 1) * 4;
+                }
+                case OPCODE_LOOKUPSWITCH -> {
+                    int base = pc + 1 + ((4 - (pc + 1) % 4) % 4);
+                    int pairCount = buffer.getInt(codeStart + base + 4);
+                    pc = base + 8 + pairCount * 8;
+                }
+                case OPCODE_WIDE -> pc += (buffer.get(codeStart + pc + 1) & 0xff) == OPCODE_IINC ? 6 : 4;
+                default -> {
+                    int length = opcode < INSTRUCTION_LENGTHS.length ? INSTRUCTION_LENGTHS[opcode] : 0;
+                    if (length == 0) {
+                        throw new IllegalArgumentException("Unknown opcode " + opcode);
+                    }
+                    pc += length;
+                }
+            }
+        }
+        return selfConstructorCalls > selfInstantiations;
+    }
+
+    private boolean isConstructorOf(int methodRefIndex, String className) {
+        int offset = constantOffsets[methodRefIndex];
+        int nameAndTypeOffset = constantOffsets[buffer.getShort(offset + 2) & 0xffff];
+        return readUtf8(buffer.getShort(nameAndTypeOffset) & 0xffff).equals("<init>")
+                && className.equals(readClassName(buffer.getShort(offset) & 0xffff));
+    }
+
+    private void mergeConstructorInstantiations(ClassFileInfo info) {
+        if (constructorInstantiations.isEmpty()) {
+            return;
+        }
+
+        Map<String, Integer> shared = new LinkedHashMap<>(constructorInstantiations.get(0));
+        for (Map<String, Integer> instantiations : constructorInstantiations) {
+            shared.replaceAll((type, count) -> Math.min(count, instantiations.getOrDefault(type, 0)));
+        }
+        shared.values().removeIf(count -> count == 0);
+        shared.forEach((type, count) -> info.instantiatedTypes.merge(type, count, Integer::sum));
+        for (Map<String, Integer> instantiations : constructorInstantiations) {
+            instantiations.forEach((type, count) -> {
+                int own = count - shared.getOrDefault(type, 0);
+                if (own > 0) {
+                    info.instantiatedTypes.merge(type, own, Integer::sum);
+                }
+            });
+        }
+        constructorInstantiations.clear();
+    }
+
+    private void readInnerClasses(ClassFileInfo info) {
+        int count = u2();
+        for (int i = 0; i < count; i++) {
+            int innerIndex = u2();
+            int outerIndex = u2();
+            int nameIndex = u2();
+            int access = u2();
+            if (!info.name.equals(readClassName(innerIndex))) {
+                continue;
+            }
+            info.innerAccess = access;
+            if (outerIndex != 0 && nameIndex != 0) {
+                info.outerName = readClassName(outerIndex);
+                info.innerSimpleName = readUtf8(nameIndex);
+            } else {
+                info.local = true;
+                info.anonymous = nameIndex == 0;
+            }
+        }
+    }
+
+    private String readClassName(int index) {
+        if (index == 0) {
+            return null;
+        }
+        return readUtf8(buffer.getShort(constantOffsets[index]) & 0xffff);
+    }
+
+    private String readUtf8(int index) {
+        String cached = utf8Cache[index];
+        if (cached != null) {
+            return cached;
+        }
+
+        int offset = constantOffsets[index];
+        int length = buffer.getShort(offset) & 0xffff;
+        char[] chars = new char[length];
+        int charCount = 0;
+        int position = offset + 2;
+        int end = position + length;
+        while (position < end) {
+            int b = buffer.get(position++) & 0xff;
+            if (b < 0x80) {
+                chars[charCount++] = (char) b;
+            } else if ((b & 0xe0) == 0xc0) {
+                chars[charCount++] = (char) (((b & 0x1f) << 6) | (buffer.get(position++) & 0x3f));
+            } else {
+                int b2 = buffer.get(position++) & 0x3f;
+                int b3 = buffer.get(position++) & 0x3f;
+                chars[charCount++] = (char) (((b & 0x0f) << 12) | (b2 << 6) | b3);
+            }
+        }
+
+        String value = new String(chars, 0, charCount);
+        utf8Cache[index] = value;
+        return value;
+    }
+
+    private int u2() {
+        return buffer.getShort() & 0xffff;
+    }
+
+    private static byte[] createInstructionLengths() {
+        byte[] lengths = new byte[0xca];
+        fill(lengths, 0x00, 0x0f, 1);
+        lengths[0x10] = 2;
+        lengths[0x11] = 3;
+        lengths[0x12] = 2;
+        lengths[0x13] = 3;
+        lengths[0x14] = 3;
+        fill(lengths, 0x15, 0x19, 2);
+        fill(lengths, 0x1a, 0x35, 1);
+        fill(lengths, 0x36, 0x3a, 2);
+        fill(lengths, 0x3b, 0x83, 1);
+        lengths[OPCODE_IINC] = 3;
+        fill(lengths, 0x85, 0x98, 1);
+        fill(lengths, 0x99, 0xa8, 3);
+        lengths[0xa9] = 2;
+        fill(lengths, 0xac, 0xb1, 1);
+        fill(lengths, 0xb2, 0xb8, 3);
+        lengths[0xb9] = 5;
+        lengths[0xba] = 5;
+        lengths[OPCODE_NEW] = 3;
+        lengths[0xbc] = 2;
+        lengths[0xbd] = 3;
+        lengths[0xbe] = 1;
+        lengths[0xbf] = 1;
+        lengths[0xc0] = 3;
+        lengths[0xc1] = 3;
+        lengths[0xc2] = 1;
+        lengths[0xc3] = 1;
+        lengths[0xc5] = 4;
+        lengths[0xc6] = 3;
+        lengths[0xc7] = 3;
+        lengths[0xc8] = 5;
+        lengths[0xc9] = 5;
+        return lengths;
+    }
+
+    private static void fill(byte[] lengths, int from, int to, int length) {
+        for (int opcode = from; opcode <= to; opcode++) {
+            lengths[opcode] = (byte) length;
+        }
+    }
+
+    static String toSourceType(String signature) {
+        return new TypeCursor(signature).readType();
+    }
+
+    static List<String> toSourceParameterTypes(String methodSignature) {
+        TypeCursor cursor = new TypeCursor(methodSignature);
+        cursor.skipTypeParameters();
+        cursor.expect('(');
+        List<String> types = new ArrayList<>();
+        while (cursor.peek() != ')') {
+            types.add(cursor.readType());
+        }
+        return types;
+    }
+
+    static String toSourceReturnType(String methodSignature) {
+        TypeCursor cursor = new TypeCursor(methodSignature);
+        cursor.position = methodSignature.indexOf(')') + 1;
+        return cursor.readType();
+    }
+
+    static List<String> toDescriptorParameterTypes(String methodDescriptor) {
+        List<String> types = new ArrayList<>();
+        int position = 1;
+        while (methodDescriptor.charAt(position) != ')') {
+            int start = position;
+            while (methodDescriptor.charAt(position) == '[') {
+                position++;
+            }
+            position = methodDescriptor.charAt(position) == 'L'
+                    ? methodDescriptor.indexOf(';', position) + 1
+                    : position + 1;
+            types.add(methodDescriptor.substring(start, position));
+        }
+        return types;
+    }
+
+    static String toQualifiedName(String internalName) {
+        return internalName.replace('/', '.').replace('$', '.');
+    }
+
+    static String getElementClassName(String descriptor) {
+        int start = 0;
+        while (descriptor.charAt(start) == '[') {
+            start++;
+        }
+        if (descriptor.charAt(start) != 'L') {
+            return null;
+        }
+        return descriptor.substring(start + 1, descriptor.length() - 1);
+    }
+
+    private static class TypeCursor {
+        private final String signature;
+        private int position;
+
+        TypeCursor(String signature) {
+            this.signature = signature;
+        }
+
+        char peek() {
+            return signature.charAt(position);
+        }
+
+        void expect(char c) {
+            if (signature.charAt(position++) != c) {
+                throw new IllegalArgumentException("Malformed signature " + signature);
+            }
+        }
+
+        void skipTypeParameters() {
+            if (peek() != '<') {
+                return;
+            }
+            int depth = 0;
+            do {
+                char c = signature.charAt(position++);
+                if (c == '<') {
+                    depth++;
+                } else if (c == '>') {
+                    depth--;
+                }
+            } while (depth > 0);
+        }
+
+        String readType() {
+            char c = signature.charAt(position++);
+            switch (c) {
+                case 'B': return "byte";
+                case 'C': return "char";
+                case 'D': return "double";
+                case 'F': return "float";
+                case 'I': return "int";
+                case 'J': return "long";
+                case 'S': return "short";
+                case 'Z': return "boolean";
+                case 'V': return "void";
+                case '[': return readType() + "[]";
+                case 'T': {
+                    int end = signature.indexOf(';', position);
+                    String typeVariable = signature.substring(position, end);
+                    position = end + 1;
+                    return typeVariable;
+                }
+                case 'L': return readClassType();
+                default: throw new IllegalArgumentException("Malformed signature " + signature);
+            }
+        }
+
+        private String readClassType() {
+            StringBuilder type = new StringBuilder();
+            String identifier = readIdentifier();
+            type.append(identifier.substring(identifier.lastIndexOf('/') + 1).replace('$', '.'));
+            readTypeArguments(type);
+            while (peek() == '.') {
+                position++;
+                type.append('.').append(readIdentifier());
+                readTypeArguments(type);
+            }
+            expect(';');
+            return type.toString();
+        }
+
+        private String readIdentifier() {
+            int start = position;
+            while ("<.;".indexOf(signature.charAt(position)) < 0) {
+                position++;
+            }
+            return signature.substring(start, position);
+        }
+
+        private void readTypeArguments(StringBuilder type) {
+            if (peek() != '<') {
+                return;
+            }
+            position++;
+            type.append('<');
+            boolean first = true;
+            while (peek() != '>') {
+                if (!first) {
+                    type.append(",");
+                }
+                first = false;
+                char c = peek();
+                if (c == '*') {
+                    position++;
+                    type.append('?');
+                } else if (c == '+') {
+                    position++;
+                    type.append("? extends ").append(readType());
+                } else if (c == '-') {
+                    position++;
+                    type.append("? super ").append(readType());
+                } else {
+                    type.append(readType());
+                }
+            }
+            position++;
+            type.append('>');
+        }
+    }
+
+    static class ClassFileInfo {
+        int access;
+        String name;
+        String superName;
+        final List<String> interfaces = new ArrayList<>();
+        String signature;
+        final List<FieldInfo> fields = new ArrayList<>();
+        final List<MethodInfo> methods = new ArrayList<>();
+        final Map<String, Integer> instantiatedTypes = new LinkedHashMap<>();
+        int innerAccess = -1;
+        String outerName;
+        String innerSimpleName;
+        String enclosingClassName;
+        boolean local;
+        boolean anonymous;
+        boolean record;
+
+        int getEffectiveAccess() {
+            return innerAccess >= 0 ? innerAccess : access;
+        }
+    }
+
+    static class FieldInfo {
+        int access;
+        String name;
+        String descriptor;
+        String signature;
+    }
+
+    static class MethodInfo {
+        int access;
+        String name;
+        String descriptor;
+        String signature;
+        String[] parameterNames;
+        final Map<Integer, String> localVariableNames = new LinkedHashMap<>();
+    }
+}
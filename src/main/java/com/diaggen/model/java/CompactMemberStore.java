@@ -0,0 +1,242 @@
+package com.diaggen.model.java;
+
+import com.diaggen.model.DiagramClass;
+import com.diaggen.model.Member;
+import com.diaggen.model.MemberStore;
+import com.diaggen.model.Method;
+import com.diaggen.model.Parameter;
+import com.diaggen.model.Visibility;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+class CompactMemberStore implements MemberStore {
+
+    private static final Visibility[] VISIBILITIES = Visibility.values();
+    private static final int VISIBILITY_MASK = 0x0F;
+    private static final int ABSTRACT_FLAG = 0x10;
+    private static final int STATIC_FLAG = 0x20;
+
+    private String[] attributeStrings = new String[0];
+    private byte[] attributeFlags = new byte[0];
+    private int attributeCount;
+
+    private String[] methodStrings = new String[0];
+    private int[] methodStarts = new int[1];
+    private byte[] methodFlags = new byte[0];
+    private int methodCount;
+    private int methodStringCount;
+
+    static CompactMemberStore of(DiagramClass diagramClass) {
+        if (diagramClass.getMemberStore() instanceof CompactMemberStore store) {
+            return store;
+        }
+
+        CompactMemberStore store = new CompactMemberStore();
+        for (Member attribute : diagramClass.getAttributes()) {
+            store.addAttribute(attribute.getName(), attribute.getType(), attribute.getVisibility());
+        }
+        for (Method method : diagramClass.getMethods()) {
+            store.addMethod(method.getName(), method.getReturnType(), method.getVisibility(),
+                    method.isAbstract(), method.isStatic());
+            for (Parameter parameter : method.getParameters()) {
+                store.addParameter(parameter.getName(), parameter.getType());
+            }
+        }
+        return store.trim();
+    }
+
+    static CompactMemberStore read(DataInputStream in) throws IOException {
+        CompactMemberStore store = new CompactMemberStore();
+        int attributes = in.readInt();
+        for (int i = 0; i < attributes; i++) {
+            store.addAttribute(in.readUTF(), in.readUTF(), VISIBILITIES[in.readByte()]);
+        }
+
+        int methods = in.readInt();
+        for (int i = 0; i < methods; i++) {
+            String name = in.readUTF();
+            String returnType = in.readUTF();
+            Visibility visibility = VISIBILITIES[in.readByte()];
+            boolean isAbstract = in.readBoolean();
+            boolean isStatic = in.readBoolean();
+            store.addMethod(name, returnType, visibility, isAbstract, isStatic);
+            int parameters = in.readInt();
+            for (int j = 0; j < parameters; j++) {
+                store.addParameter(in.readUTF(), in.readUTF());
+            }
+        }
+        return store.trim();
+    }
+
+    void write(DataOutputStream out) throws IOException {
+        out.writeInt(attributeCount);
+        for (int i = 0; i < attributeCount; i++) {
+            out.writeUTF(attributeStrings[i * 2]);
+            out.writeUTF(attributeStrings[i * 2 + 1]);
+            out.writeByte(attributeFlags[i] & VISIBILITY_MASK);
+        }
+
+        out.writeInt(methodCount);
+        for (int i = 0; i < methodCount; i++) {
+            int start = methodStarts[i];
+            out.writeUTF(methodStrings[start]);
+            out.writeUTF(methodStrings[start + 1]);
+            out.writeByte(methodFlags[i] & VISIBILITY_MASK);
+            out.writeBoolean((methodFlags[i] & ABSTRACT_FLAG) != 0);
+            out.writeBoolean((methodFlags[i] & STATIC_FLAG) != 0);
+            out.writeInt(getParameterCount(i));
+            for (int j = start + 2; j < methodStarts[i + 1]; j++) {
+                out.writeUTF(methodStrings[j]);
+            }
+        }
+    }
+
+    void addAttribute(String name, String type, Visibility visibility) {
+        if (attributeStrings.length < (attributeCount + 1) * 2) {
+            attributeStrings = Arrays.copyOf(attributeStrings, Math.max(8, attributeStrings.length * 2));
+            attributeFlags = Arrays.copyOf(attributeFlags, attributeStrings.length / 2);
+        }
+        attributeStrings[attributeCount * 2] = name;
+        attributeStrings[attributeCount * 2 + 1] = type.intern();
+        attributeFlags[attributeCount] = (byte) visibility.ordinal();
+        attributeCount++;
+    }
+
+    void addMethod(String name, String returnType, Visibility visibility, boolean isAbstract, boolean isStatic) {
+        if (methodFlags.length == methodCount) {
+            methodFlags = Arrays.copyOf(methodFlags, Math.max(8, methodCount * 2));
+            methodStarts = Arrays.copyOf(methodStarts, methodFlags.length + 1);
+        }
+        methodFlags[methodCount] = (byte) (visibility.ordinal()
+                | (isAbstract ? ABSTRACT_FLAG : 0)
+                | (isStatic ? STATIC_FLAG : 0));
+        methodStarts[methodCount] = methodStringCount;
+        appendMethodString(name);
+        appendMethodString(returnType.intern());
+        methodCount++;
+        methodStarts[methodCount] = methodStringCount;
+    }
+
+    void addParameter(String name, String type) {
+        appendMethodString(name);
+        appendMethodString(type.intern());
+        methodStarts[methodCount] = methodStringCount;
+    }
+
+    CompactMemberStore trim() {
+        attributeStrings = Arrays.copyOf(attributeStrings, attributeCount * 2);
+        attributeFlags = Arrays.copyOf(attributeFlags, attributeCount);
+        methodStrings = Arrays.copyOf(methodStrings, methodStringCount);
+        methodStarts = Arrays.copyOf(methodStarts, methodCount + 1);
+        methodFlags = Arrays.copyOf(methodFlags, methodCount);
+        return this;
+    }
+
+    @Override
+    public int getAttributeCount() {
+        return attributeCount;
+    }
+
+    @Override
+    public int getMethodCount() {
+        return methodCount;
+    }
+
+    @Override
+    public String getAttributeName(int attribute) {
+        return attributeStrings[attribute * 2];
+    }
+
+    @Override
+    public String getAttributeType(int attribute) {
+        return attributeStrings[attribute * 2 + 1];
+    }
+
+    @Override
+    public Visibility getAttributeVisibility(int attribute) {
+        return VISIBILITIES[attributeFlags[attribute] & VISIBILITY_MASK];
+    }
+
+    @Override
+    public String getMethodName(int method) {
+        return methodStrings[methodStarts[method]];
+    }
+
+    @Override
+    public String getMethodReturnType(int method) {
+        return methodStrings[methodStarts[method] + 1];
+    }
+
+    @Override
+    public Visibility getMethodVisibility(int method) {
+        return VISIBILITIES[methodFlags[method] & VISIBILITY_MASK];
+    }
+
+    @Override
+    public boolean isMethodAbstract(int method) {
+        return (methodFlags[method] & ABSTRACT_FLAG) != 0;
+    }
+
+    @Override
+    public boolean isMethodStatic(int method) {
+        return (methodFlags[method] & STATIC_FLAG) != 0;
+    }
+
+    @Override
+    public int getParameterCount(int method) {
+        return (methodStarts[method + 1] - methodStarts[method] - 2) / 2;
+    }
+
+    @Override
+    public String getParameterName(int method, int parameter) {
+        return methodStrings[methodStarts[method] + 2 + parameter * 2];
+    }
+
+    @Override
+    public String getParameterType(int method, int parameter) {
+        return methodStrings[methodStarts[method] + 3 + parameter * 2];
+    }
+
+    @Override
+    public List<Member> createAttributes() {
+        List<Member> attributes = new ArrayList<>(attributeCount);
+        for (int i = 0; i < attributeCount; i++) {
+            attributes.add(new Member(attributeStrings[i * 2], attributeStrings[i * 2 + 1],
+                    VISIBILITIES[attributeFlags[i] & VISIBILITY_MASK]));
+        }
+        return attributes;
+    }
+
+    @Override
+    public List<Method> createMethods() {
+        List<Method> methods = new ArrayList<>(methodCount);
+        for (int i = 0; i < methodCount; i++) {
+            int start = methodStarts[i];
+            List<Parameter> parameters = new ArrayList<>(getParameterCount(i));
+            for (int j = start + 2; j < methodStarts[i + 1]; j += 2) {
+                parameters.add(new Parameter(methodStrings[j], methodStrings[j + 1]));
+            }
+            methods.add(new Method(
+                    methodStrings[start],
+                    methodStrings[start + 1],
+                    parameters,
+                    VISIBILITIES[methodFlags[i] & VISIBILITY_MASK],
+                    (methodFlags[i] & ABSTRACT_FLAG) != 0,
+                    (methodFlags[i] & STATIC_FLAG) != 0
+            ));
+        }
+        return methods;
+    }
+
+    private void appendMethodString(String value) {
+        if (methodStrings.length == methodStringCount) {
+            methodStrings = Arrays.copyOf(methodStrings, Math.max(16, methodStringCount * 2));
+        }
+        methodStrings[methodStringCount++] = value;
+    }
+}
@@ -0,0 +1,134 @@
+package com.diaggen.model.java;
+
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+public class ImportOptions {
+
+    public static final List<String> DEFAULT_EXCLUDE_PATTERNS = List.of(
+            "{,**/}target",
+            "{,**/}build",
+            "{,**/}out",
+            "{,**/}generated",
+            "{,**/}generated-sources",
+            "{,**/}src/test"
+    );
+
+    private static final List<String> BUILD_FILES = List.of("pom.xml", "build.gradle", "build.gradle.kts");
+    private static final Path MAIN_SOURCE_ROOT = Path.of("src", "main", "java");
+
+    private final List<String> includePatterns = new ArrayList<>();
+    private final List<String> excludePatterns = new ArrayList<>();
+    private final List<PathMatcher> includeMatchers = new ArrayList<>();
+    private final List<PathMatcher> excludeMatchers = new ArrayList<>();
+    private boolean detectSourceRoots = true;
+    private boolean aggregatePackages;
+    private boolean lazyMembers = true;
+
+    public static ImportOptions defaults() {
+        ImportOptions options = new ImportOptions();
+        options.setExcludePatterns(DEFAULT_EXCLUDE_PATTERNS);
+        return options;
+    }
+
+    public static List<String> parsePatterns(String patterns) {
+        if (patterns == null || patterns.isBlank()) {
+            return Collections.emptyList();
+        }
+        return Arrays.stream(patterns.split("[;\\n]"))
+                .map(String::trim)
+                .filter(pattern -> !pattern.isEmpty())
+                .toList();
+    }
+
+    public List<String> getIncludePatterns() {
+        return Collections.unmodifiableList(includePatterns);
+    }
+
+    public void setIncludePatterns(List<String> patterns) {
+        includePatterns.clear();
+        includePatterns.addAll(patterns);
+        compile(includePatterns, includeMatchers);
+    }
+
+    public List<String> getExcludePatterns() {
+        return Collections.unmodifiableList(excludePatterns);
+    }
+
+    public void setExcludePatterns(List<String> patterns) {
+        excludePatterns.clear();
+        excludePatterns.addAll(patterns);
+        compile(excludePatterns, excludeMatchers);
+    }
+
+    public boolean isDetectSourceRoots() {
+        return detectSourceRoots;
+    }
+
+    public void setDetectSourceRoots(boolean detectSourceRoots) {
+        this.detectSourceRoots = detectSourceRoots;
+    }
+
+    public boolean isAggregatePackages() {
+        return aggregatePackages;
+    }
+
+    public void setAggregatePackages(boolean aggregatePackages) {
+        this.aggregatePackages = aggregatePackages;
+    }
+
+    public boolean isLazyMembers() {
+        return lazyMembers;
+    }
+
+    public void setLazyMembers(boolean lazyMembers) {
+        this.lazyMembers = lazyMembers;
+    }
+
+    boolean isExcluded(Path relativePath) {
+        for (PathMatcher matcher : excludeMatchers) {
+            if (matcher.matches(relativePath)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    boolean isIncluded(Path relativePath) {
+        if (includeMatchers.isEmpty()) {
+            return true;
+        }
+        for (PathMatcher matcher : includeMatchers) {
+            if (matcher.matches(relativePath)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    boolean isModuleDirectory(Path dir) {
+        for (String buildFile : BUILD_FILES) {
+            if (Files.isRegularFile(dir.resolve(buildFile))) {
+                return Files.isDirectory(dir.resolve(MAIN_SOURCE_ROOT));
+            }
+        }
+        return false;
+    }
+
+    Path getMainSourceRoot(Path moduleDir) {
+        return moduleDir.resolve(MAIN_SOURCE_ROOT);
+    }
+
+    private void compile(List<String> patterns, List<PathMatcher> matchers) {
+        matchers.clear();
+        for (String pattern : patterns) {
+            matchers.add(FileSystems.getDefault().getPathMatcher("glob:" + pattern));
+        }
+    }
+}
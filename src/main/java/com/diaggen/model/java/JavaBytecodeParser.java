@@ -0,0 +1,445 @@
+package com.diaggen.model.java;
+
+import com.diaggen.model.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import static com.diaggen.model.java.ClassFileReader.*;
+
+public class JavaBytecodeParser {
+
+    private static final Logger LOGGER = Logger.getLogger(JavaBytecodeParser.class.getName());
+    private static final String VERSIONED_ENTRY_PREFIX = "META-INF/versions/";
+
+    private final JavaCodeParser codeParser = new JavaCodeParser();
+    private JavaCodeParser.ProgressListener progressListener;
+    private BooleanSupplier cancellationCheck;
+
+    public void setProgressListener(JavaCodeParser.ProgressListener progressListener) {
+        this.progressListener = progressListener;
+    }
+
+    public void setCancellationCheck(BooleanSupplier cancellationCheck) {
+        this.cancellationCheck = cancellationCheck;
+    }
+
+    public void setImportOptions(ImportOptions importOptions) {
+        codeParser.setImportOptions(importOptions);
+    }
+
+    public ClassDiagram parse(Path path) {
+        ClassDiagram diagram = new ClassDiagram(path.getFileName().toString());
+
+        try {
+            List<Path> inputs = findInputs(path);
+            List<ClassFileInfo> infos = new ArrayList<>(readClassFiles(inputs.stream()
+                    .filter(input -> input.getFileName().toString().endsWith(".class"))
+                    .toList()));
+            for (Path input : inputs) {
+                if (input.getFileName().toString().endsWith(".jar")) {
+                    infos.addAll(readArchive(input));
+                }
+            }
+
+            Map<String, ClassFileInfo> classFiles = new LinkedHashMap<>();
+            for (ClassFileInfo info : infos) {
+                if (info != null) {
+                    classFiles.putIfAbsent(info.name, info);
+                }
+            }
+
+            codeParser.mergeResults(new ModelBuilder(classFiles).build(), diagram);
+
+            LOGGER.log(Level.INFO, "Imported {0} classes from {1} class files in {2}",
+                    new Object[]{diagram.getClasses().size(), classFiles.size(), path});
+            return diagram;
+        } catch (CancellationException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RuntimeException("Error reading Java bytecode", e);
+        }
+    }
+
+    private List<Path> findInputs(Path path) throws IOException {
+        if (!Files.isDirectory(path)) {
+            return List.of(path);
+        }
+
+        List<Path> inputs = new ArrayList<>();
+        Files.walkFileTree(path, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                if (!dir.equals(path) && dir.getFileName().toString().startsWith(".")) {
+                    return FileVisitResult.SKIP_SUBTREE;
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                String fileName = file.getFileName().toString();
+                if (attrs.isRegularFile() && (fileName.endsWith(".class") || fileName.endsWith(".jar"))) {
+                    inputs.add(file);
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        });
+
+        inputs.sort(Comparator.naturalOrder());
+        return inputs;
+    }
+
+    private List<ClassFileInfo> readArchive(Path archive) throws IOException {
+        try (ZipFile zipFile = new ZipFile(archive.toFile())) {
+            List<? extends ZipEntry> entries = zipFile.stream()
+                    .filter(entry -> !entry.isDirectory()
+                            && entry.getName().endsWith(".class")
+                            && !entry.getName().startsWith(VERSIONED_ENTRY_PREFIX))
+                    .sorted(Comparator.comparing(ZipEntry::getName))
+                    .toList();
+
+            AtomicInteger readEntries = new AtomicInteger();
+            return entries.parallelStream()
+                    .map(entry -> {
+                        checkCancelled();
+                        try (InputStream in = zipFile.getInputStream(entry)) {
+                            return readClass(ByteBuffer.wrap(in.readAllBytes()), entry.getName());
+                        } catch (IOException e) {
+                            LOGGER.log(Level.WARNING, "Couldn't read archive entry " + entry.getName(), e);
+                            return null;
+                        } finally {
+                            fireProgress(readEntries.incrementAndGet(), entries.size());
+                        }
+                    })
+                    .toList();
+        }
+    }
+
+    private List<ClassFileInfo> readClassFiles(List<Path> classFiles) {
+        AtomicInteger readFiles = new AtomicInteger();
+        return classFiles.parallelStream()
+                .map(classFile -> {
+                    checkCancelled();
+                    try (FileChannel channel = FileChannel.open(classFile, StandardOpenOption.READ)) {
+                        return readClass(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()),
+                                classFile.toString());
+                    } catch (IOException e) {
+                        LOGGER.log(Level.WARNING, "Couldn't read class file " + classFile, e);
+                        return null;
+                    } finally {
+                        fireProgress(readFiles.incrementAndGet(), classFiles.size());
+                    }
+                })
+                .toList();
+    }
+
+    private ClassFileInfo readClass(ByteBuffer buffer, String source) {
+        try {
+            return new ClassFileReader(buffer).read();
+        } catch (RuntimeException e) {
+            LOGGER.log(Level.WARNING, "Couldn't read class file " + source, e);
+            return null;
+        }
+    }
+
+    private void checkCancelled() {
+        if (cancellationCheck != null && cancellationCheck.getAsBoolean()) {
+            throw new CancellationException("Bytecode import cancelled");
+        }
+    }
+
+    private void fireProgress(int readFiles, int totalFiles) {
+        if (progressListener != null) {
+            progressListener.onFileParsed(readFiles, totalFiles);
+        }
+    }
+
+    private static class ModelBuilder {
+        private final Map<String, ClassFileInfo> classFiles;
+        private final Map<String, Boolean> includedClasses = new HashMap<>();
+        private final Map<String, String> displayNames = new HashMap<>();
+        private final Map<String, JavaCodeParser.CompilationUnitResult> units = new LinkedHashMap<>();
+
+        ModelBuilder(Map<String, ClassFileInfo> classFiles) {
+            this.classFiles = classFiles;
+        }
+
+        List<JavaCodeParser.CompilationUnitResult> build() {
+            List<ClassFileInfo> sortedClasses = new ArrayList<>(classFiles.values());
+            sortedClasses.sort(Comparator.comparing(info -> info.name));
+
+            for (ClassFileInfo info : sortedClasses) {
+                if (isIncluded(info)) {
+                    buildClass(info);
+                }
+            }
+            for (ClassFileInfo info : sortedClasses) {
+                collectInstantiations(info);
+            }
+
+            return new ArrayList<>(units.values());
+        }
+
+        private void buildClass(ClassFileInfo info) {
+            JavaCodeParser.CompilationUnitResult unit = new JavaCodeParser.CompilationUnitResult();
+            unit.packageName = getPackageName(info);
+            String fullClassName = getFullClassName(info);
+
+            CompactMemberStore memberStore = new CompactMemberStore();
+            DiagramClass diagramClass = new DiagramClass(getDisplayName(info), unit.packageName, getClassType(info),
+                    memberStore);
+            boolean isEnum = (info.access & ACC_ENUM) != 0;
+
+            for (FieldInfo field : info.fields) {
+                if ((field.access & ACC_SYNTHETIC) != 0 || (isEnum && (field.access & ACC_ENUM) != 0)) {
+                    continue;
+                }
+                String fieldType = toSourceType(field.signature != null ? field.signature : field.descriptor);
+                memberStore.addAttribute(field.name, fieldType, getVisibility(field.access));
+                if (!isEnum) {
+                    collectFieldRelationship(field, fieldType, fullClassName, unit);
+                }
+            }
+
+            for (MethodInfo method : info.methods) {
+                if (isIncludedMethod(method, isEnum)) {
+                    addMethod(method, memberStore);
+                }
+            }
+            memberStore.trim();
+
+            if (collectsRelationships(info)) {
+                collectTypeRelationships(info, fullClassName, unit);
+            }
+
+            if (info.outerName != null) {
+                unit.addRelation(new JavaCodeParser.RelationInfo(
+                        getFullClassName(classFiles.get(info.outerName)),
+                        fullClassName,
+                        isEnum ? RelationType.ASSOCIATION : RelationType.COMPOSITION,
+                        "1", "1", isEnum ? "enum type" : "inner class"
+                ));
+            }
+
+            unit.classes.put(fullClassName, diagramClass);
+            units.put(info.name, unit);
+        }
+
+        private void collectTypeRelationships(ClassFileInfo info, String fullClassName,
+                                              JavaCodeParser.CompilationUnitResult unit) {
+            boolean isInterface = (info.access & ACC_INTERFACE) != 0;
+            if (info.superName != null && !info.superName.equals("java/lang/Object")) {
+                unit.addRelation(new JavaCodeParser.RelationInfo(
+                        fullClassName, toQualifiedName(info.superName), RelationType.INHERITANCE, "", "", ""));
+            }
+            for (String interfaceName : info.interfaces) {
+                unit.addRelation(new JavaCodeParser.RelationInfo(
+                        fullClassName,
+                        toQualifiedName(interfaceName),
+                        isInterface ? RelationType.INHERITANCE : RelationType.IMPLEMENTATION,
+                        "", "", ""
+                ));
+            }
+        }
+
+        private void collectFieldRelationship(FieldInfo field, String fieldType, String fullClassName,
+                                              JavaCodeParser.CompilationUnitResult unit) {
+            String elementClassName = getElementClassName(field.descriptor);
+            if (elementClassName == null || elementClassName.startsWith("java/lang/")) {
+                return;
+            }
+
+            unit.addRelation(new JavaCodeParser.RelationInfo(
+                    fullClassName,
+                    toQualifiedName(elementClassName),
+                    (field.access & ACC_FINAL) != 0 ? RelationType.COMPOSITION : RelationType.AGGREGATION,
+                    "1", JavaCodeParser.isCollection(fieldType) ? "0..*" : "0..1", field.name
+            ));
+        }
+
+        private void collectInstantiations(ClassFileInfo info) {
+            if (info.instantiatedTypes.isEmpty()) {
+                return;
+            }
+
+            boolean isEnum = (info.access & ACC_ENUM) != 0;
+            for (Map.Entry<String, Integer> entry : info.instantiatedTypes.entrySet()) {
+                String typeName = getInstantiatedTypeName(entry.getKey());
+                if (typeName == null || typeName.startsWith("java/lang/") || (isEnum && typeName.equals(info.name))) {
+                    continue;
+                }
+
+                for (ClassFileInfo scope = info; scope != null; scope = getEnclosingClass(scope)) {
+                    if (isIncluded(scope) && collectsRelationships(scope)) {
+                        JavaCodeParser.RelationInfo relationInfo = new JavaCodeParser.RelationInfo(
+                                getFullClassName(scope),
+                                toQualifiedName(typeName),
+                                RelationType.DEPENDENCY,
+                                "", "", "uses"
+                        );
+                        relationInfo.occurrences = entry.getValue();
+                        units.get(scope.name).addRelation(relationInfo);
+                    }
+                }
+            }
+        }
+
+        private String getInstantiatedTypeName(String typeName) {
+            ClassFileInfo instantiated = classFiles.get(typeName);
+            if (instantiated == null || !instantiated.anonymous) {
+                return typeName;
+            }
+            if ("java/lang/Object".equals(instantiated.superName) && !instantiated.interfaces.isEmpty()) {
+                return instantiated.interfaces.get(0);
+            }
+            return instantiated.superName;
+        }
+
+        private ClassFileInfo getEnclosingClass(ClassFileInfo info) {
+            String enclosingName = info.outerName != null ? info.outerName : info.enclosingClassName;
+            return enclosingName != null ? classFiles.get(enclosingName) : null;
+        }
+
+        private boolean isIncluded(ClassFileInfo info) {
+            Boolean included = includedClasses.get(info.name);
+            if (included == null) {
+                included = computeIncluded(info);
+                includedClasses.put(info.name, included);
+            }
+            return included;
+        }
+
+        private boolean computeIncluded(ClassFileInfo info) {
+            if ((info.access & (ACC_SYNTHETIC | ACC_ANNOTATION | ACC_MODULE)) != 0 || info.record
+                    || info.name.endsWith("package-info") || info.local) {
+                return false;
+            }
+            if (info.outerName == null) {
+                return true;
+            }
+            ClassFileInfo outer = classFiles.get(info.outerName);
+            return outer != null && isIncluded(outer) && collectsRelationships(outer);
+        }
+
+        private boolean collectsRelationships(ClassFileInfo info) {
+            return (info.access & ACC_ENUM) == 0;
+        }
+
+        private boolean isIncludedMethod(MethodInfo method, boolean isEnum) {
+            if ((method.access & (ACC_SYNTHETIC | ACC_BRIDGE)) != 0 || method.name.startsWith("<")) {
+                return false;
+            }
+            return !isEnum
+                    || !(method.name.equals("values") && method.descriptor.startsWith("()"))
+                    && !(method.name.equals("valueOf") && method.descriptor.startsWith("(Ljava/lang/String;)"));
+        }
+
+        private void addMethod(MethodInfo method, CompactMemberStore memberStore) {
+            List<String> descriptorTypes = toDescriptorParameterTypes(method.descriptor);
+            List<String> parameterTypes = null;
+            String returnType = null;
+            if (method.signature != null) {
+                parameterTypes = toSourceParameterTypes(method.signature);
+                returnType = toSourceReturnType(method.signature);
+            }
+            if (parameterTypes == null || parameterTypes.size() != descriptorTypes.size()) {
+                parameterTypes = descriptorTypes.stream().map(ClassFileReader::toSourceType).toList();
+            }
+            if (returnType == null) {
+                returnType = toSourceReturnType(method.descriptor);
+            }
+
+            memberStore.addMethod(
+                    method.name,
+                    returnType,
+                    getVisibility(method.access),
+                    (method.access & ACC_ABSTRACT) != 0,
+                    (method.access & ACC_STATIC) != 0
+            );
+            int slot = (method.access & ACC_STATIC) != 0 ? 0 : 1;
+            for (int i = 0; i < parameterTypes.size(); i++) {
+                memberStore.addParameter(getParameterName(method, i, slot), parameterTypes.get(i));
+                char descriptorType = descriptorTypes.get(i).charAt(0);
+                slot += descriptorType == 'J' || descriptorType == 'D' ? 2 : 1;
+            }
+        }
+
+        private String getParameterName(MethodInfo method, int index, int slot) {
+            if (method.parameterNames != null && index < method.parameterNames.length
+                    && method.parameterNames[index] != null) {
+                return method.parameterNames[index];
+            }
+            String localName = method.localVariableNames.get(slot);
+            return localName != null ? localName : "arg" + index;
+        }
+
+        private ClassType getClassType(ClassFileInfo info) {
+            int access = info.getEffectiveAccess();
+            if ((access & ACC_ENUM) != 0) {
+                return ClassType.ENUM;
+            } else if ((access & ACC_INTERFACE) != 0) {
+                return ClassType.INTERFACE;
+            } else if ((access & ACC_ABSTRACT) != 0) {
+                return ClassType.ABSTRACT_CLASS;
+            } else {
+                return ClassType.CLASS;
+            }
+        }
+
+        private Visibility getVisibility(int access) {
+            if ((access & ACC_PUBLIC) != 0) {
+                return Visibility.PUBLIC;
+            } else if ((access & ACC_PRIVATE) != 0) {
+                return Visibility.PRIVATE;
+            } else if ((access & ACC_PROTECTED) != 0) {
+                return Visibility.PROTECTED;
+            } else {
+                return Visibility.PACKAGE;
+            }
+        }
+
+        private String getPackageName(ClassFileInfo info) {
+            int lastSlash = info.name.lastIndexOf('/');
+            return lastSlash < 0 ? "" : info.name.substring(0, lastSlash).replace('/', '.');
+        }
+
+        private String getDisplayName(ClassFileInfo info) {
+            String displayName = displayNames.get(info.name);
+            if (displayName == null) {
+                ClassFileInfo outer = info.outerName != null ? classFiles.get(info.outerName) : null;
+                displayName = outer != null
+                        ? getDisplayName(outer) + "." + info.innerSimpleName
+                        : info.name.substring(info.name.lastIndexOf('/') + 1);
+                displayNames.put(info.name, displayName);
+            }
+            return displayName;
+        }
+
+        private String getFullClassName(ClassFileInfo info) {
+            String packageName = getPackageName(info);
+            return packageName.isEmpty() ? getDisplayName(info) : packageName + "." + getDisplayName(info);
+        }
+    }
+}
@@ -2,43 +2,94 @@ package com.diaggen.model.java;
 
 import com.diaggen.model.*;
 import com.github.javaparser.JavaParser;
+import com.github.javaparser.ParseResult;
+import com.github.javaparser.ParserConfiguration;
 import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.Node;
 import com.github.javaparser.ast.body.ClassOrInterfaceDeclaration;
 import com.github.javaparser.ast.body.EnumDeclaration;
 import com.github.javaparser.ast.body.FieldDeclaration;
+import com.github.javaparser.ast.body.MethodDeclaration;
 import com.github.javaparser.ast.body.TypeDeclaration;
 import com.github.javaparser.ast.expr.ObjectCreationExpr;
-import com.github.javaparser.utils.SourceRoot;
+import com.github.javaparser.ast.nodeTypes.modifiers.NodeWithAccessModifiers;
+import com.github.javaparser.ast.visitor.VoidVisitorAdapter;
 
 import java.io.File;
-import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 public class JavaCodeParser {
 
     private static final Logger LOGGER = Logger.getLogger(JavaCodeParser.class.getName());
-    private final Map<String, DiagramClass> classMap = new HashMap<>();
-    private final List<RelationInfo> relationInfos = new ArrayList<>();
+    private final ParserConfiguration parserConfiguration = new ParserConfiguration();
+    private ParseCache parseCache;
+    private ProgressListener progressListener;
+    private BooleanSupplier cancellationCheck;
+    private ImportOptions importOptions = ImportOptions.defaults();
+
+    public void setParseCache(ParseCache parseCache) {
+        this.parseCache = parseCache;
+    }
+
+    public void setImportOptions(ImportOptions importOptions) {
+        this.importOptions = importOptions;
+    }
+
+    public void setProgressListener(ProgressListener progressListener) {
+        this.progressListener = progressListener;
+    }
+
+    public void setCancellationCheck(BooleanSupplier cancellationCheck) {
+        this.cancellationCheck = cancellationCheck;
+    }
 
     public ClassDiagram parseProject(Path projectPath) {
+        return parseProject(projectPath, true);
+    }
+
+    public ClassDiagram parseProject(Path projectPath, boolean parallel) {
         ClassDiagram diagram = new ClassDiagram(projectPath.getFileName().toString());
-        SourceRoot sourceRoot = new SourceRoot(projectPath);
 
         try {
-            sourceRoot.tryToParse();
-            for (CompilationUnit cu : sourceRoot.getCompilationUnits()) {
-                parseCompilationUnit(cu, diagram);
-            }
-
-            createRelations(diagram);
-
+            List<Path> sourceFiles = findSourceFiles(projectPath);
+            AtomicInteger parsedFiles = new AtomicInteger();
+
+            List<CompilationUnitResult> parsedUnits = (parallel
+                    ? sourceFiles.parallelStream()
+                    : sourceFiles.stream())
+                    .map(sourceFile -> {
+                        checkCancelled();
+                        CompilationUnitResult unitResult = parseSourceFile(sourceFile);
+                        fireProgress(parsedFiles.incrementAndGet(), sourceFiles.size());
+                        return unitResult;
+                    })
+                    .toList();
+
+            mergeResults(parsedUnits, diagram);
             return diagram;
+        } catch (CancellationException e) {
+            throw e;
         } catch (Exception e) {
             throw new RuntimeException("Error parsing Java project", e);
         }
@@ -47,286 +98,347 @@ public class JavaCodeParser {
     public ClassDiagram parseFile(File file) {
         ClassDiagram diagram = new ClassDiagram(file.getName());
 
-        try (FileInputStream in = new FileInputStream(file)) {
-            CompilationUnit cu = new JavaParser().parse(in).getResult().orElseThrow();
-            parseCompilationUnit(cu, diagram);
-            createRelations(diagram);
+        try {
+            byte[] content = Files.readAllBytes(file.toPath());
+            CompilationUnitResult unitResult = parseSource(new String(content, StandardCharsets.UTF_8),
+                    ParseCache.contentHash(content));
+            mergeResults(List.of(unitResult), diagram);
             return diagram;
         } catch (Exception e) {
             throw new RuntimeException("Error parsing Java file", e);
         }
     }
 
-    private void parseCompilationUnit(CompilationUnit cu, ClassDiagram diagram) {
-        String packageName = cu.getPackageDeclaration().map(pd -> pd.getNameAsString()).orElse("");
+    void applyMemberLoading(DiagramClass diagramClass) {
+        if (!importOptions.isLazyMembers()) {
+            diagramClass.materializeMembers();
+        }
+    }
 
-        cu.findAll(EnumDeclaration.class).forEach(enumDecl -> {
-            if (enumDecl.getParentNode().isPresent() &&
-                    enumDecl.getParentNode().get() instanceof TypeDeclaration) {
+    void checkCancelled() {
+        if (cancellationCheck != null && cancellationCheck.getAsBoolean()) {
+            throw new CancellationException("Java import cancelled");
+        }
+    }
 
-            } else {
-                DiagramClass diagramClass = new DiagramClass(enumDecl.getNameAsString(), packageName, ClassType.ENUM);
-                parseFields(enumDecl, diagramClass);
-                parseMethods(enumDecl, diagramClass);
+    void fireProgress(int parsedFiles, int totalFiles) {
+        if (progressListener != null) {
+            progressListener.onFileParsed(parsedFiles, totalFiles);
+        }
+    }
 
-                diagram.addClass(diagramClass);
-                classMap.put(getFullClassName(packageName, enumDecl.getNameAsString()), diagramClass);
-            }
-        });
+    List<Path> findSourceFiles(Path projectPath) throws IOException {
+        return findSourceFiles(projectPath, findSourceRoots(projectPath));
+    }
 
-        cu.findAll(ClassOrInterfaceDeclaration.class).forEach(classDecl -> {
+    List<Path> findSourceFiles(Path projectPath, List<Path> sourceRoots) throws IOException {
+        List<Path> sourceFiles = new ArrayList<>();
 
-            if (classDecl.getParentNode().isPresent() &&
-                    classDecl.getParentNode().get() instanceof TypeDeclaration) {
+        for (Path sourceRoot : sourceRoots) {
+            Files.walkFileTree(sourceRoot, new SimpleFileVisitor<>() {
+                @Override
+                public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                    return isSkippedDirectory(projectPath, dir)
+                            ? FileVisitResult.SKIP_SUBTREE
+                            : FileVisitResult.CONTINUE;
+                }
 
-            } else {
-                processClassOrInterface(classDecl, packageName, diagram);
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                    if (attrs.isRegularFile() && file.getFileName().toString().endsWith(".java")) {
+                        Path relativePath = projectPath.relativize(file);
+                        if (importOptions.isIncluded(relativePath) && !importOptions.isExcluded(relativePath)) {
+                            sourceFiles.add(file);
+                        }
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        }
+
+        sourceFiles.sort(Comparator.naturalOrder());
+        return sourceFiles;
+    }
+
+    List<Path> findSourceDirectories(Path projectPath, Path startDirectory) throws IOException {
+        List<Path> directories = new ArrayList<>();
+        Files.walkFileTree(startDirectory, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                if (isSkippedDirectory(projectPath, dir)) {
+                    return FileVisitResult.SKIP_SUBTREE;
+                }
+                directories.add(dir);
+                return FileVisitResult.CONTINUE;
             }
         });
+        return directories;
     }
 
-    private void processClassOrInterface(ClassOrInterfaceDeclaration classDecl, String packageName, ClassDiagram diagram) {
-        ClassType classType;
-        if (classDecl.isInterface()) {
-            classType = ClassType.INTERFACE;
-        } else if (classDecl.isAbstract()) {
-            classType = ClassType.ABSTRACT_CLASS;
-        } else {
-            classType = ClassType.CLASS;
+    boolean isSourceDirectory(Path projectPath, List<Path> sourceRoots, Path directory) {
+        for (Path sourceRoot : sourceRoots) {
+            if (!directory.startsWith(sourceRoot)) {
+                continue;
+            }
+            for (Path dir = directory; dir != null && dir.startsWith(sourceRoot); dir = dir.getParent()) {
+                if (isSkippedDirectory(projectPath, dir)) {
+                    return false;
+                }
+            }
+            return true;
         }
-
-        DiagramClass diagramClass = new DiagramClass(classDecl.getNameAsString(), packageName, classType);
-
-        parseFields(classDecl, diagramClass);
-        parseMethods(classDecl, diagramClass);
-        collectRelationships(classDecl, diagramClass, packageName);
-
-        processNestedTypes(classDecl, diagramClass, packageName, diagram);
-
-        diagram.addClass(diagramClass);
-        classMap.put(getFullClassName(packageName, classDecl.getNameAsString()), diagramClass);
+        return false;
     }
 
-    private void processNestedTypes(TypeDeclaration<?> parentDecl, DiagramClass parentClass, String packageName, ClassDiagram diagram) {
-
-        parentDecl.findAll(ClassOrInterfaceDeclaration.class, classDecl ->
-                        classDecl.getParentNode().isPresent() &&
-                                classDecl.getParentNode().get() == parentDecl)
-                .forEach(nestedClass -> {
-
-                    ClassType nestedClassType;
-                    if (nestedClass.isInterface()) {
-                        nestedClassType = ClassType.INTERFACE;
-                    } else if (nestedClass.isAbstract()) {
-                        nestedClassType = ClassType.ABSTRACT_CLASS;
-                    } else {
-                        nestedClassType = ClassType.CLASS;
-                    }
-
-                    String nestedClassName = nestedClass.getNameAsString();
-                    String fullNestedClassName = parentClass.getName() + "." + nestedClassName;
+    boolean isSourceFile(Path projectPath, List<Path> sourceRoots, Path file) {
+        if (!file.getFileName().toString().endsWith(".java")
+                || !isSourceDirectory(projectPath, sourceRoots, file.getParent())) {
+            return false;
+        }
+        Path relativePath = projectPath.relativize(file);
+        return importOptions.isIncluded(relativePath) && !importOptions.isExcluded(relativePath);
+    }
 
-                    DiagramClass nestedDiagramClass = new DiagramClass(fullNestedClassName, packageName, nestedClassType);
+    List<Path> findSourceRoots(Path projectPath) throws IOException {
+        if (!importOptions.isDetectSourceRoots()) {
+            return List.of(projectPath);
+        }
 
-                    parseFields(nestedClass, nestedDiagramClass);
-                    parseMethods(nestedClass, nestedDiagramClass);
-                    collectRelationships(nestedClass, nestedDiagramClass, packageName);
+        List<Path> sourceRoots = new ArrayList<>();
+        Files.walkFileTree(projectPath, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                if (isSkippedDirectory(projectPath, dir) || sourceRoots.contains(dir)) {
+                    return FileVisitResult.SKIP_SUBTREE;
+                }
+                if (importOptions.isModuleDirectory(dir)) {
+                    sourceRoots.add(importOptions.getMainSourceRoot(dir));
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        });
 
-                    diagram.addClass(nestedDiagramClass);
-                    classMap.put(getFullClassName(packageName, fullNestedClassName), nestedDiagramClass);
+        if (sourceRoots.isEmpty()) {
+            return List.of(projectPath);
+        }
 
-                    relationInfos.add(new RelationInfo(
-                            parentClass,
-                            getFullClassName(packageName, fullNestedClassName),
-                            RelationType.COMPOSITION,
-                            "1", "1", "inner class"
-                    ));
+        LOGGER.log(Level.INFO, "Detected {0} source roots in {1}", new Object[]{sourceRoots.size(), projectPath});
+        return sourceRoots;
+    }
 
-                    processNestedTypes(nestedClass, nestedDiagramClass, packageName, diagram);
-                });
+    private boolean isSkippedDirectory(Path projectPath, Path dir) {
+        if (dir.equals(projectPath)) {
+            return false;
+        }
+        return dir.getFileName().toString().startsWith(".")
+                || importOptions.isExcluded(projectPath.relativize(dir));
+    }
 
-        parentDecl.findAll(EnumDeclaration.class, enumDecl ->
-                        enumDecl.getParentNode().isPresent() &&
-                                enumDecl.getParentNode().get() == parentDecl)
-                .forEach(nestedEnum -> {
+    private CompilationUnitResult parseSourceFile(Path sourceFile) {
+        try {
+            if (parseCache != null) {
+                byte[] content = Files.readAllBytes(sourceFile);
+                return parseSource(new String(content, StandardCharsets.UTF_8), ParseCache.contentHash(content));
+            }
 
-                    String nestedEnumName = nestedEnum.getNameAsString();
-                    String fullNestedEnumName = parentClass.getName() + "." + nestedEnumName;
+            ParseResult<CompilationUnit> parseResult = new JavaParser(parserConfiguration).parse(sourceFile);
+            return parseResult.getResult()
+                    .map(this::parseCompilationUnit)
+                    .orElseGet(CompilationUnitResult::new);
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Couldn't read source file " + sourceFile, e);
+            return new CompilationUnitResult();
+        }
+    }
 
-                    DiagramClass nestedEnumClass = new DiagramClass(fullNestedEnumName, packageName, ClassType.ENUM);
+    CompilationUnitResult parseSource(String source, String contentHash) {
+        if (parseCache == null) {
+            return parseSource(source);
+        }
 
-                    parseFields(nestedEnum, nestedEnumClass);
-                    parseMethods(nestedEnum, nestedEnumClass);
+        CompilationUnitResult cachedResult = parseCache.get(contentHash);
+        if (cachedResult != null) {
+            return cachedResult;
+        }
 
-                    diagram.addClass(nestedEnumClass);
-                    classMap.put(getFullClassName(packageName, fullNestedEnumName), nestedEnumClass);
+        CompilationUnitResult result = parseSource(source);
+        parseCache.put(contentHash, result);
+        return result;
+    }
 
-                    relationInfos.add(new RelationInfo(
-                            parentClass,
-                            getFullClassName(packageName, fullNestedEnumName),
-                            RelationType.ASSOCIATION,
-                            "1", "1", "enum type"
-                    ));
-                });
+    CompilationUnitResult parseSource(String source) {
+        ParseResult<CompilationUnit> parseResult = new JavaParser(parserConfiguration).parse(source);
+        return parseResult.getResult()
+                .map(this::parseCompilationUnit)
+                .orElseGet(CompilationUnitResult::new);
     }
 
-    private void parseFields(TypeDeclaration<?> typeDecl, DiagramClass diagramClass) {
-        typeDecl.getFields().forEach(field -> {
-            field.getVariables().forEach(variable -> {
-                Visibility visibility = determineVisibility(field);
-                Member member = new Member(
-                        variable.getNameAsString(),
-                        field.getElementType().asString(),
-                        visibility
-                );
-                diagramClass.addAttribute(member);
-            });
-        });
+    void mergeResults(List<CompilationUnitResult> unitResults, ClassDiagram diagram) {
+        TypeIndex typeIndex = new TypeIndex();
+        for (CompilationUnitResult unitResult : unitResults) {
+            for (Map.Entry<String, DiagramClass> entry : unitResult.classes.entrySet()) {
+                applyMemberLoading(entry.getValue());
+                diagram.addClass(entry.getValue());
+                typeIndex.put(entry.getKey(), entry.getValue());
+            }
+        }
+        createRelations(unitResults, typeIndex, diagram);
     }
 
-    private void parseMethods(TypeDeclaration<?> typeDecl, DiagramClass diagramClass) {
-        typeDecl.getMethods().forEach(method -> {
-            List<Parameter> parameters = new ArrayList<>();
-            method.getParameters().forEach(param -> {
-                parameters.add(new Parameter(
-                        param.getNameAsString(),
-                        param.getType().asString()
-                ));
-            });
+    private CompilationUnitResult parseCompilationUnit(CompilationUnit cu) {
+        CompilationUnitResult result = new CompilationUnitResult();
+        String packageName = cu.getPackageDeclaration().map(pd -> pd.getNameAsString()).orElse("");
+        result.packageName = packageName;
 
-            Visibility visibility = determineVisibility(method);
-            boolean isAbstract = method.isAbstract();
-            boolean isStatic = method.isStatic();
+        cu.getImports().forEach(importDecl -> {
+            if (importDecl.isStatic()) {
+                return;
+            }
+            String importName = importDecl.getNameAsString();
+            if (importDecl.isAsterisk()) {
+                result.wildcardImports.add(importName);
+            } else {
+                result.imports.put(importName.substring(importName.lastIndexOf('.') + 1), importName);
+            }
+        });
 
+        cu.accept(new ExtractionVisitor(packageName), result);
 
-            com.diaggen.model.Method diagramMethod = new com.diaggen.model.Method(
-                    method.getNameAsString(),
-                    method.getType().asString(),
-                    parameters,
-                    visibility,
-                    isAbstract,
-                    isStatic
-            );
+        return result;
+    }
 
-            diagramClass.addMethod(diagramMethod);
-        });
+    private ClassType getClassType(ClassOrInterfaceDeclaration classDecl) {
+        if (classDecl.isInterface()) {
+            return ClassType.INTERFACE;
+        } else if (classDecl.isAbstract()) {
+            return ClassType.ABSTRACT_CLASS;
+        } else {
+            return ClassType.CLASS;
+        }
     }
 
-    private Visibility determineVisibility(Object declaration) {
-        try {
-            java.lang.reflect.Method isPublicMethod = declaration.getClass().getMethod("isPublic");
-            java.lang.reflect.Method isPrivateMethod = declaration.getClass().getMethod("isPrivate");
-            java.lang.reflect.Method isProtectedMethod = declaration.getClass().getMethod("isProtected");
+    private void parseField(FieldDeclaration field, CompactMemberStore memberStore) {
+        Visibility visibility = determineVisibility(field);
+        String fieldType = field.getElementType().asString();
+        field.getVariables().forEach(variable ->
+                memberStore.addAttribute(variable.getNameAsString(), fieldType, visibility));
+    }
 
-            Boolean isPublic = (Boolean) isPublicMethod.invoke(declaration);
-            Boolean isPrivate = (Boolean) isPrivateMethod.invoke(declaration);
-            Boolean isProtected = (Boolean) isProtectedMethod.invoke(declaration);
+    private void parseMethod(MethodDeclaration method, CompactMemberStore memberStore) {
+        Visibility visibility = determineVisibility(method);
+        boolean isAbstract = method.isAbstract();
+        boolean isStatic = method.isStatic();
+
+        memberStore.addMethod(
+                method.getNameAsString(),
+                method.getType().asString(),
+                visibility,
+                isAbstract,
+                isStatic
+        );
+        method.getParameters().forEach(param ->
+                memberStore.addParameter(param.getNameAsString(), param.getType().asString()));
+    }
 
-            if (isPublic) {
+    private Visibility determineVisibility(NodeWithAccessModifiers<?> declaration) {
+        switch (declaration.getAccessSpecifier()) {
+            case PUBLIC:
                 return Visibility.PUBLIC;
-            } else if (isPrivate) {
+            case PRIVATE:
                 return Visibility.PRIVATE;
-            } else if (isProtected) {
+            case PROTECTED:
                 return Visibility.PROTECTED;
-            } else {
+            default:
                 return Visibility.PACKAGE;
-            }
-        } catch (Exception e) {
-            return Visibility.PACKAGE;
         }
     }
 
-    private void collectRelationships(ClassOrInterfaceDeclaration classDecl, DiagramClass diagramClass, String packageName) {
-
+    private void collectTypeRelationships(ClassOrInterfaceDeclaration classDecl, String sourceClassName,
+                                          CompilationUnitResult result) {
         classDecl.getExtendedTypes().forEach(extendedType -> {
-            relationInfos.add(new RelationInfo(
-                    diagramClass,
-                    getFullClassName(packageName, extendedType.getNameAsString()),
+            result.addRelation(new RelationInfo(
+                    sourceClassName,
+                    extendedType.getNameWithScope(),
                     RelationType.INHERITANCE,
                     "", "", ""
             ));
         });
 
         classDecl.getImplementedTypes().forEach(implementedType -> {
-            relationInfos.add(new RelationInfo(
-                    diagramClass,
-                    getFullClassName(packageName, implementedType.getNameAsString()),
+            result.addRelation(new RelationInfo(
+                    sourceClassName,
+                    implementedType.getNameWithScope(),
                     RelationType.IMPLEMENTATION,
                     "", "", ""
             ));
         });
+    }
 
-        classDecl.getFields().forEach(field -> {
-            String fieldType = field.getElementType().asString();
-            if (!isPrimitive(fieldType)) {
-                boolean isFinal = isFieldFinal(field);
-                RelationType relationType = isFinal
-                        ? RelationType.COMPOSITION
-                        : RelationType.AGGREGATION;
-
-                String multiplicity = isCollection(fieldType) ? "0..*" : "0..1";
-
-                relationInfos.add(new RelationInfo(
-                        diagramClass,
-                        getFullClassName(packageName, stripGenerics(fieldType)),
-                        relationType,
-                        "1", multiplicity, field.getVariable(0).getNameAsString()
-                ));
-            }
-        });
+    private void collectFieldRelationship(FieldDeclaration field, String sourceClassName, CompilationUnitResult result) {
+        String fieldType = field.getElementType().asString();
+        if (!isPrimitive(fieldType)) {
+            RelationType relationType = field.isFinal()
+                    ? RelationType.COMPOSITION
+                    : RelationType.AGGREGATION;
 
-        classDecl.findAll(ObjectCreationExpr.class).forEach(objCreation -> {
-            try {
-                String typeName = objCreation.getType().getNameAsString();
-                if (!isPrimitive(typeName)) {
-
-                    relationInfos.add(new RelationInfo(
-                            diagramClass,
-                            getFullClassName(packageName, typeName),
-                            RelationType.DEPENDENCY,
-                            "", "", "uses"
-                    ));
-                }
-            } catch (Exception e) {
+            String multiplicity = isCollection(fieldType) ? "0..*" : "0..1";
 
-                LOGGER.log(Level.FINE, "Couldn't resolve type for object creation", e);
-            }
-        });
+            result.addRelation(new RelationInfo(
+                    sourceClassName,
+                    stripGenerics(fieldType),
+                    relationType,
+                    "1", multiplicity, field.getVariable(0).getNameAsString()
+            ));
+        }
     }
 
-    private boolean isFieldFinal(FieldDeclaration field) {
-        try {
+    private void createRelations(List<CompilationUnitResult> unitResults, TypeIndex typeIndex,
+                                 ClassDiagram diagram) {
+        Map<String, DiagramRelation> relations = new HashMap<>();
 
-            java.lang.reflect.Method isFinalMethod = field.getClass().getMethod("isFinal");
-            return (Boolean) isFinalMethod.invoke(field);
-        } catch (Exception e) {
+        for (CompilationUnitResult unitResult : unitResults) {
+            for (RelationInfo info : unitResult.relationInfos) {
+                DiagramClass sourceClass = typeIndex.get(info.sourceClassName);
+                DiagramClass targetClass = typeIndex.resolve(unitResult, info.sourceClassName, info.targetTypeName);
+                if (sourceClass == null || targetClass == null) {
+                    continue;
+                }
 
-            return false;
+                String key = getRelationKey(sourceClass, targetClass, info.relationType);
+                DiagramRelation existing = relations.get(key);
+                if (existing != null) {
+                    existing.setWeight(existing.getWeight() + info.occurrences);
+                } else {
+                    DiagramRelation relation = createRelation(info, sourceClass, targetClass);
+                    relations.put(key, relation);
+                    diagram.addRelation(relation);
+                }
+            }
         }
     }
 
-    private void createRelations(ClassDiagram diagram) {
-        relationInfos.forEach(info -> {
-            DiagramClass targetClass = classMap.get(info.targetClassName);
-            if (targetClass != null) {
-                DiagramRelation relation = new DiagramRelation(
-                        info.sourceClass,
-                        targetClass,
-                        info.relationType,
-                        info.sourceMultiplicity,
-                        info.targetMultiplicity,
-                        info.label
-                );
-                diagram.addRelation(relation);
-            }
-        });
+    static String getRelationKey(DiagramClass sourceClass, DiagramClass targetClass, RelationType relationType) {
+        return sourceClass.getId() + "|" + targetClass.getId() + "|" + relationType;
+    }
+
+    DiagramRelation createRelation(RelationInfo info, DiagramClass sourceClass, DiagramClass targetClass) {
+        DiagramRelation relation = new DiagramRelation(
+                sourceClass,
+                targetClass,
+                info.relationType,
+                info.sourceMultiplicity,
+                info.targetMultiplicity,
+                info.label
+        );
+        relation.setWeight(info.occurrences);
+        return relation;
     }
 
     private String getFullClassName(String packageName, String className) {
         return packageName.isEmpty() ? className : packageName + "." + className;
     }
 
-    private boolean isPrimitive(String typeName) {
+    static boolean isPrimitive(String typeName) {
         return typeName.equals("int") ||
                 typeName.equals("long") ||
                 typeName.equals("double") ||
@@ -339,7 +451,7 @@ public class JavaCodeParser {
                 typeName.startsWith("java.lang.");
     }
 
-    private boolean isCollection(String typeName) {
+    static boolean isCollection(String typeName) {
         return typeName.contains("List") ||
                 typeName.contains("Set") ||
                 typeName.contains("Map") ||
@@ -352,23 +464,207 @@ public class JavaCodeParser {
         return idx > 0 ? typeName.substring(0, idx) : typeName;
     }
 
-    private static class RelationInfo {
-        DiagramClass sourceClass;
-        String targetClassName;
+    private class ExtractionVisitor extends VoidVisitorAdapter<CompilationUnitResult> {
+
+        private final String packageName;
+        private final Deque<TypeFrame> frames = new ArrayDeque<>();
+
+        ExtractionVisitor(String packageName) {
+            this.packageName = packageName;
+        }
+
+        @Override
+        public void visit(ClassOrInterfaceDeclaration classDecl, CompilationUnitResult result) {
+            TypeFrame parentFrame = getParentFrame(classDecl);
+            if (parentFrame == null && isNested(classDecl)) {
+                visitSkippedType(classDecl, result, () -> super.visit(classDecl, result));
+                return;
+            }
+
+            String className = parentFrame == null
+                    ? classDecl.getNameAsString()
+                    : parentFrame.diagramClass.getName() + "." + classDecl.getNameAsString();
+            CompactMemberStore memberStore = new CompactMemberStore();
+            DiagramClass diagramClass = new DiagramClass(className, packageName, getClassType(classDecl), memberStore);
+            String fullClassName = getFullClassName(packageName, className);
+
+            collectTypeRelationships(classDecl, fullClassName, result);
+
+            frames.push(new TypeFrame(classDecl, diagramClass, memberStore, fullClassName, true));
+            super.visit(classDecl, result);
+            frames.pop();
+            memberStore.trim();
+
+            result.classes.put(fullClassName, diagramClass);
+
+            if (parentFrame != null) {
+                result.addRelation(new RelationInfo(
+                        parentFrame.fullClassName,
+                        fullClassName,
+                        RelationType.COMPOSITION,
+                        "1", "1", "inner class"
+                ));
+            }
+        }
+
+        @Override
+        public void visit(EnumDeclaration enumDecl, CompilationUnitResult result) {
+            TypeFrame parentFrame = getParentFrame(enumDecl);
+            if (parentFrame == null && isNested(enumDecl)) {
+                visitSkippedType(enumDecl, result, () -> super.visit(enumDecl, result));
+                return;
+            }
+
+            String enumName = parentFrame == null
+                    ? enumDecl.getNameAsString()
+                    : parentFrame.diagramClass.getName() + "." + enumDecl.getNameAsString();
+            CompactMemberStore memberStore = new CompactMemberStore();
+            DiagramClass diagramClass = new DiagramClass(enumName, packageName, ClassType.ENUM, memberStore);
+            String fullEnumName = getFullClassName(packageName, enumName);
+
+            frames.push(new TypeFrame(enumDecl, diagramClass, memberStore, fullEnumName, false));
+            super.visit(enumDecl, result);
+            frames.pop();
+            memberStore.trim();
+
+            result.classes.put(fullEnumName, diagramClass);
+
+            if (parentFrame != null) {
+                result.addRelation(new RelationInfo(
+                        parentFrame.fullClassName,
+                        fullEnumName,
+                        RelationType.ASSOCIATION,
+                        "1", "1", "enum type"
+                ));
+            }
+        }
+
+        @Override
+        public void visit(FieldDeclaration field, CompilationUnitResult result) {
+            TypeFrame frame = getDeclaringFrame(field);
+            if (frame != null) {
+                parseField(field, frame.memberStore);
+                if (frame.collectsRelationships) {
+                    collectFieldRelationship(field, frame.fullClassName, result);
+                }
+            }
+            super.visit(field, result);
+        }
+
+        @Override
+        public void visit(MethodDeclaration method, CompilationUnitResult result) {
+            TypeFrame frame = getDeclaringFrame(method);
+            if (frame != null) {
+                parseMethod(method, frame.memberStore);
+            }
+            super.visit(method, result);
+        }
+
+        @Override
+        public void visit(ObjectCreationExpr objCreation, CompilationUnitResult result) {
+            String typeName = objCreation.getType().getNameWithScope();
+            if (!isPrimitive(typeName)) {
+                for (TypeFrame frame : frames) {
+                    if (frame.collectsRelationships) {
+                        result.addRelation(new RelationInfo(
+                                frame.fullClassName,
+                                typeName,
+                                RelationType.DEPENDENCY,
+                                "", "", "uses"
+                        ));
+                    }
+                }
+            }
+            super.visit(objCreation, result);
+        }
+
+        private boolean isNested(TypeDeclaration<?> typeDecl) {
+            return typeDecl.getParentNode().isPresent() && typeDecl.getParentNode().get() instanceof TypeDeclaration;
+        }
+
+        private TypeFrame getParentFrame(TypeDeclaration<?> typeDecl) {
+            TypeFrame frame = frames.peek();
+            if (frame != null && frame.collectsRelationships && frame.declaration != null
+                    && typeDecl.getParentNode().orElse(null) == frame.declaration) {
+                return frame;
+            }
+            return null;
+        }
+
+        private TypeFrame getDeclaringFrame(Node member) {
+            TypeFrame frame = frames.peek();
+            if (frame != null && frame.diagramClass != null
+                    && member.getParentNode().orElse(null) == frame.declaration) {
+                return frame;
+            }
+            return null;
+        }
+
+        private void visitSkippedType(TypeDeclaration<?> typeDecl, CompilationUnitResult result, Runnable visitChildren) {
+            frames.push(new TypeFrame(typeDecl, null, null, null, false));
+            visitChildren.run();
+            frames.pop();
+        }
+    }
+
+    private static class TypeFrame {
+        final Node declaration;
+        final DiagramClass diagramClass;
+        final CompactMemberStore memberStore;
+        final String fullClassName;
+        final boolean collectsRelationships;
+
+        TypeFrame(Node declaration, DiagramClass diagramClass, CompactMemberStore memberStore, String fullClassName,
+                  boolean collectsRelationships) {
+            this.declaration = declaration;
+            this.diagramClass = diagramClass;
+            this.memberStore = memberStore;
+            this.fullClassName = fullClassName;
+            this.collectsRelationships = collectsRelationships;
+        }
+    }
+
+    static class CompilationUnitResult {
+        final Map<String, DiagramClass> classes = new LinkedHashMap<>();
+        final Map<String, String> imports = new HashMap<>();
+        final Set<String> wildcardImports = new HashSet<>();
+        String packageName = "";
+        final List<RelationInfo> relationInfos = new ArrayList<>();
+        private final Map<String, RelationInfo> relationIndex = new HashMap<>();
+
+        void addRelation(RelationInfo info) {
+            RelationInfo existing = relationIndex.putIfAbsent(
+                    info.sourceClassName + "|" + info.targetTypeName + "|" + info.relationType, info);
+            if (existing == null) {
+                relationInfos.add(info);
+            } else {
+                existing.occurrences += info.occurrences;
+            }
+        }
+    }
+
+    static class RelationInfo {
+        String sourceClassName;
+        String targetTypeName;
         RelationType relationType;
         String sourceMultiplicity;
         String targetMultiplicity;
         String label;
+        int occurrences = 1;
 
-        public RelationInfo(DiagramClass sourceClass, String targetClassName,
+        public RelationInfo(String sourceClassName, String targetTypeName,
                             RelationType relationType, String sourceMultiplicity,
                             String targetMultiplicity, String label) {
-            this.sourceClass = sourceClass;
-            this.targetClassName = targetClassName;
+            this.sourceClassName = sourceClassName;
+            this.targetTypeName = targetTypeName;
             this.relationType = relationType;
             this.sourceMultiplicity = sourceMultiplicity;
             this.targetMultiplicity = targetMultiplicity;
             this.label = label;
         }
     }
-}
\ No newline at end of file
+
+    public interface ProgressListener {
+        void onFileParsed(int parsedFiles, int totalFiles);
+    }
+}
@@ -0,0 +1,557 @@
+package com.diaggen.model.java;
+
+import com.diaggen.model.ClassDiagram;
+import com.diaggen.model.DiagramClass;
+import com.diaggen.model.DiagramRelation;
+import com.diaggen.model.PackageAggregation;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+public class JavaProjectSync {
+
+    private static final Logger LOGGER = Logger.getLogger(JavaProjectSync.class.getName());
+
+    private final Path projectPath;
+    private final ClassDiagram diagram;
+    private final JavaCodeParser parser = new JavaCodeParser();
+    private final Map<Path, SourceFileState> fileIndex = new HashMap<>();
+    private final TypeIndex typeIndex = new TypeIndex();
+    private final Map<String, DiagramRelation> relationMap = new HashMap<>();
+    private final Map<String, DiagramRelation> unclaimedRelations = new HashMap<>();
+    private final Map<String, Integer> relationWeights = new HashMap<>();
+    private final Map<String, Set<Path>> referencingFiles = new HashMap<>();
+    private final AtomicInteger generation = new AtomicInteger();
+    private int indexedGeneration;
+    private List<Path> sourceRoots;
+    private boolean bound = false;
+
+    public JavaProjectSync(Path projectPath, ClassDiagram diagram) {
+        this.projectPath = projectPath;
+        this.diagram = diagram;
+    }
+
+    public void setParseCache(ParseCache parseCache) {
+        parser.setParseCache(parseCache);
+    }
+
+    public synchronized void setImportOptions(ImportOptions importOptions) {
+        parser.setImportOptions(importOptions);
+        sourceRoots = null;
+    }
+
+    public void setProgressListener(JavaCodeParser.ProgressListener progressListener) {
+        parser.setProgressListener(progressListener);
+    }
+
+    public void setCancellationCheck(BooleanSupplier cancellationCheck) {
+        parser.setCancellationCheck(cancellationCheck);
+    }
+
+    public Path getProjectPath() {
+        return projectPath;
+    }
+
+    public ClassDiagram getDiagram() {
+        return diagram;
+    }
+
+    public SyncResult synchronize() {
+        return apply(prepare(null), new DiagramChangeApplier());
+    }
+
+    public void invalidate() {
+        generation.incrementAndGet();
+    }
+
+    public synchronized List<Path> findSourceDirectories() {
+        try {
+            List<Path> directories = new ArrayList<>();
+            for (Path sourceRoot : getSourceRoots()) {
+                directories.addAll(parser.findSourceDirectories(projectPath, sourceRoot));
+            }
+            return directories;
+        } catch (IOException e) {
+            throw new RuntimeException("Error listing Java source directories", e);
+        }
+    }
+
+    public synchronized List<Path> findSourceDirectories(Path directory) {
+        try {
+            return parser.findSourceDirectories(projectPath, directory);
+        } catch (IOException e) {
+            throw new RuntimeException("Error listing Java source directories", e);
+        }
+    }
+
+    public synchronized PendingChanges prepare(Collection<Path> touchedPaths) {
+        try {
+            PendingChanges changes = new PendingChanges(generation.get());
+            if (changes.generation != indexedGeneration) {
+                resetIndex();
+                touchedPaths = null;
+            }
+
+            List<Path> candidates;
+            if (touchedPaths == null) {
+                sourceRoots = parser.findSourceRoots(projectPath);
+                candidates = parser.findSourceFiles(projectPath, sourceRoots);
+            } else {
+                candidates = findTouchedSourceFiles(touchedPaths);
+            }
+            changes.changedFiles.putAll(scanChangedFiles(changes.syncResult, candidates));
+
+            AtomicInteger parsedFiles = new AtomicInteger();
+            changes.changedFiles.values().parallelStream().forEach(state -> {
+                parser.checkCancelled();
+                state.result = parser.parseSource(state.source, state.contentHash);
+                parser.fireProgress(parsedFiles.incrementAndGet(), changes.changedFiles.size());
+            });
+            parser.checkCancelled();
+
+            for (Path indexedFile : fileIndex.keySet()) {
+                if (!changes.syncResult.scannedFiles.contains(indexedFile)
+                        && (touchedPaths == null || isTouched(indexedFile, touchedPaths))) {
+                    changes.removedFiles.add(indexedFile);
+                }
+            }
+            return changes;
+        } catch (IOException e) {
+            throw new RuntimeException("Error synchronizing Java project", e);
+        }
+    }
+
+    public synchronized SyncResult apply(PendingChanges changes, ChangeApplier applier) {
+        if (changes.generation != generation.get()) {
+            LOGGER.log(Level.INFO, "Discarding changes prepared before the diagram was modified by undo or redo");
+            return new SyncResult();
+        }
+        PackageAggregation aggregation = diagram.getPackageAggregation();
+        if (aggregation != null && aggregation.hasCollapsedPackages()) {
+            LOGGER.log(Level.INFO, "Skipping synchronization of {0} while packages are collapsed", projectPath);
+            invalidate();
+            return new SyncResult();
+        }
+        indexedGeneration = changes.generation;
+
+        if (!bound) {
+            bindExistingDiagram();
+            bound = true;
+        }
+
+        SyncResult syncResult = changes.syncResult;
+        Map<Path, SourceFileState> changedFiles = changes.changedFiles;
+
+        Set<String> claimedClassNames = new HashSet<>();
+        changedFiles.values().forEach(state -> claimedClassNames.addAll(state.result.classes.keySet()));
+        Map<Path, SourceFileState> staleStates = new HashMap<>();
+        Set<String> changedTypeNames = new HashSet<>();
+
+        for (Path removedFile : changes.removedFiles) {
+            SourceFileState removedState = fileIndex.remove(removedFile);
+            if (removedState != null) {
+                staleStates.put(removedFile, removedState);
+                syncResult.filesRemoved++;
+            }
+        }
+
+        changedFiles.keySet().stream().sorted().forEach(file -> {
+            SourceFileState newState = changedFiles.get(file);
+            SourceFileState oldState = fileIndex.put(file, newState);
+            if (oldState != null) {
+                staleStates.put(file, oldState);
+            }
+            applyFileResult(newState.result, syncResult, applier, changedTypeNames);
+            newState.source = null;
+        });
+
+        for (SourceFileState staleState : staleStates.values()) {
+            removeClasses(staleState.result, claimedClassNames, syncResult, applier, changedTypeNames);
+        }
+
+        if (syncResult.filesChanged > 0 || syncResult.filesRemoved > 0) {
+            synchronizeRelations(changedFiles.keySet(), staleStates, changedTypeNames, syncResult, applier);
+        }
+
+        LOGGER.log(Level.INFO, "Synchronized {0}: {1} files scanned, {2} changed, {3} removed",
+                new Object[]{projectPath, syncResult.filesScanned, syncResult.filesChanged, syncResult.filesRemoved});
+        return syncResult;
+    }
+
+    private List<Path> getSourceRoots() throws IOException {
+        if (sourceRoots == null) {
+            sourceRoots = parser.findSourceRoots(projectPath);
+        }
+        return sourceRoots;
+    }
+
+    private List<Path> findTouchedSourceFiles(Collection<Path> touchedPaths) throws IOException {
+        List<Path> roots = getSourceRoots();
+        Set<Path> sourceFiles = new TreeSet<>();
+        for (Path touchedPath : touchedPaths) {
+            if (Files.isDirectory(touchedPath)) {
+                if (parser.isSourceDirectory(projectPath, roots, touchedPath)) {
+                    sourceFiles.addAll(parser.findSourceFiles(projectPath, List.of(touchedPath)));
+                }
+            } else if (Files.isRegularFile(touchedPath) && parser.isSourceFile(projectPath, roots, touchedPath)) {
+                sourceFiles.add(touchedPath);
+            }
+        }
+        return new ArrayList<>(sourceFiles);
+    }
+
+    private boolean isTouched(Path indexedFile, Collection<Path> touchedPaths) {
+        for (Path touchedPath : touchedPaths) {
+            if (indexedFile.startsWith(touchedPath)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void resetIndex() {
+        fileIndex.clear();
+        typeIndex.clear();
+        relationMap.clear();
+        unclaimedRelations.clear();
+        relationWeights.clear();
+        referencingFiles.clear();
+        bound = false;
+    }
+
+    private void bindExistingDiagram() {
+        for (DiagramClass diagramClass : diagram.getClasses()) {
+            typeIndex.putIfAbsent(getFullClassName(diagramClass), diagramClass);
+        }
+        for (DiagramRelation relation : diagram.getRelations()) {
+            unclaimedRelations.putIfAbsent(JavaCodeParser.getRelationKey(relation.getSourceClass(),
+                    relation.getTargetClass(), relation.getRelationType()), relation);
+        }
+    }
+
+    private Map<Path, SourceFileState> scanChangedFiles(SyncResult syncResult, List<Path> sourceFiles)
+            throws IOException {
+        Map<Path, SourceFileState> changedFiles = new HashMap<>();
+
+        for (Path sourceFile : sourceFiles) {
+            syncResult.scannedFiles.add(sourceFile);
+            syncResult.filesScanned++;
+
+            BasicFileAttributes attrs = Files.readAttributes(sourceFile, BasicFileAttributes.class);
+            long lastModified = attrs.lastModifiedTime().toMillis();
+            long size = attrs.size();
+
+            SourceFileState state = fileIndex.get(sourceFile);
+            if (state != null && state.lastModified == lastModified && state.size == size) {
+                continue;
+            }
+
+            byte[] content = Files.readAllBytes(sourceFile);
+            String contentHash = ParseCache.contentHash(content);
+            if (state != null && state.contentHash.equals(contentHash)) {
+                state.lastModified = lastModified;
+                state.size = size;
+                continue;
+            }
+
+            SourceFileState newState = new SourceFileState(lastModified, size, contentHash);
+            newState.source = new String(content, StandardCharsets.UTF_8);
+            changedFiles.put(sourceFile, newState);
+            syncResult.filesChanged++;
+        }
+
+        return changedFiles;
+    }
+
+    private void applyFileResult(JavaCodeParser.CompilationUnitResult newResult, SyncResult syncResult,
+                                 ChangeApplier applier, Set<String> changedTypeNames) {
+        for (Map.Entry<String, DiagramClass> entry : newResult.classes.entrySet()) {
+            String className = entry.getKey();
+            DiagramClass parsedClass = entry.getValue();
+            DiagramClass existingClass = typeIndex.get(className);
+            parser.applyMemberLoading(parsedClass);
+
+            if (existingClass != null && isInDiagram(existingClass.getDiagramId())) {
+                applier.updateClass(existingClass, parsedClass);
+                entry.setValue(existingClass);
+                syncResult.updatedClasses.add(existingClass);
+            } else {
+                applier.addClass(parsedClass);
+                typeIndex.put(className, parsedClass);
+                changedTypeNames.add(className);
+                syncResult.addedClasses.add(parsedClass);
+            }
+        }
+    }
+
+    private void removeClasses(JavaCodeParser.CompilationUnitResult staleResult, Set<String> claimedClassNames,
+                               SyncResult syncResult, ChangeApplier applier, Set<String> changedTypeNames) {
+        for (Map.Entry<String, DiagramClass> entry : staleResult.classes.entrySet()) {
+            String className = entry.getKey();
+            if (claimedClassNames.contains(className) || typeIndex.get(className) != entry.getValue()) {
+                continue;
+            }
+
+            typeIndex.remove(className);
+            changedTypeNames.add(className);
+            if (isInDiagram(entry.getValue().getDiagramId())) {
+                applier.removeClass(entry.getValue());
+            }
+            syncResult.removedClasses.add(entry.getValue());
+        }
+    }
+
+    private void synchronizeRelations(Set<Path> changedFiles, Map<Path, SourceFileState> staleStates,
+                                      Set<String> changedTypeNames, SyncResult syncResult, ChangeApplier applier) {
+        Set<String> touchedKeys = new HashSet<>();
+        for (Map.Entry<Path, SourceFileState> entry : staleStates.entrySet()) {
+            unregisterReferences(entry.getKey(), entry.getValue());
+            withdrawRelations(entry.getValue(), touchedKeys);
+        }
+
+        Set<Path> affectedFiles = new TreeSet<>(changedFiles);
+        for (String typeName : changedTypeNames) {
+            Set<Path> files = referencingFiles.get(getSimpleName(typeName));
+            if (files != null) {
+                affectedFiles.addAll(files);
+            }
+        }
+        for (Path changedFile : changedFiles) {
+            registerReferences(changedFile, fileIndex.get(changedFile));
+        }
+
+        Map<String, DiagramRelation> createdRelations = new HashMap<>();
+        for (Path affectedFile : affectedFiles) {
+            SourceFileState state = fileIndex.get(affectedFile);
+            if (state == null) {
+                continue;
+            }
+            withdrawRelations(state, touchedKeys);
+            resolveRelations(state, touchedKeys, createdRelations);
+        }
+
+        for (String key : touchedKeys) {
+            DiagramRelation relation = relationMap.get(key);
+            Integer weight = relationWeights.get(key);
+            if (relation == null) {
+                continue;
+            }
+            if (weight == null) {
+                relationMap.remove(key);
+                if (!createdRelations.containsKey(key) && isInDiagram(relation.getDiagramId())) {
+                    applier.removeRelation(relation);
+                    syncResult.relationsRemoved++;
+                }
+            } else if (createdRelations.containsKey(key)) {
+                relation.setWeight(weight);
+                applier.addRelation(relation);
+                syncResult.relationsAdded++;
+            } else if (relation.getWeight() != weight) {
+                applier.updateRelationWeight(relation, weight);
+            }
+        }
+    }
+
+    private void resolveRelations(SourceFileState state, Set<String> touchedKeys,
+                                  Map<String, DiagramRelation> createdRelations) {
+        for (JavaCodeParser.RelationInfo info : state.result.relationInfos) {
+            DiagramClass sourceClass = typeIndex.get(info.sourceClassName);
+            DiagramClass targetClass = typeIndex.resolve(state.result, info.sourceClassName, info.targetTypeName);
+            if (sourceClass == null || targetClass == null) {
+                continue;
+            }
+
+            String key = JavaCodeParser.getRelationKey(sourceClass, targetClass, info.relationType);
+            touchedKeys.add(key);
+            state.relationWeights.merge(key, info.occurrences, Integer::sum);
+            relationWeights.merge(key, info.occurrences, Integer::sum);
+            if (!relationMap.containsKey(key)) {
+                DiagramRelation relation = unclaimedRelations.remove(key);
+                if (relation == null) {
+                    relation = parser.createRelation(info, sourceClass, targetClass);
+                    createdRelations.put(key, relation);
+                }
+                relationMap.put(key, relation);
+            }
+        }
+    }
+
+    private void withdrawRelations(SourceFileState state, Set<String> touchedKeys) {
+        for (Map.Entry<String, Integer> entry : state.relationWeights.entrySet()) {
+            touchedKeys.add(entry.getKey());
+            relationWeights.computeIfPresent(entry.getKey(),
+                    (key, weight) -> weight > entry.getValue() ? weight - entry.getValue() : null);
+        }
+        state.relationWeights.clear();
+    }
+
+    private void registerReferences(Path file, SourceFileState state) {
+        for (JavaCodeParser.RelationInfo info : state.result.relationInfos) {
+            referencingFiles.computeIfAbsent(getSimpleName(info.targetTypeName), name -> new HashSet<>()).add(file);
+        }
+    }
+
+    private void unregisterReferences(Path file, SourceFileState state) {
+        for (JavaCodeParser.RelationInfo info : state.result.relationInfos) {
+            String simpleName = getSimpleName(info.targetTypeName);
+            Set<Path> files = referencingFiles.get(simpleName);
+            if (files != null) {
+                files.remove(file);
+                if (files.isEmpty()) {
+                    referencingFiles.remove(simpleName);
+                }
+            }
+        }
+    }
+
+    private String getSimpleName(String typeName) {
+        return typeName.substring(typeName.lastIndexOf('.') + 1);
+    }
+
+    private boolean isInDiagram(String diagramId) {
+        return diagram.getId().equals(diagramId);
+    }
+
+    private String getFullClassName(DiagramClass diagramClass) {
+        String packageName = diagramClass.getPackageName();
+        return packageName == null || packageName.isEmpty()
+                ? diagramClass.getName()
+                : packageName + "." + diagramClass.getName();
+    }
+
+    public interface ChangeApplier {
+
+        void addClass(DiagramClass diagramClass);
+
+        void updateClass(DiagramClass existingClass, DiagramClass parsedClass);
+
+        void removeClass(DiagramClass diagramClass);
+
+        void addRelation(DiagramRelation relation);
+
+        void removeRelation(DiagramRelation relation);
+
+        void updateRelationWeight(DiagramRelation relation, int weight);
+    }
+
+    private class DiagramChangeApplier implements ChangeApplier {
+
+        @Override
+        public void addClass(DiagramClass diagramClass) {
+            diagram.addClass(diagramClass);
+        }
+
+        @Override
+        public void updateClass(DiagramClass existingClass, DiagramClass parsedClass) {
+            existingClass.setClassType(parsedClass.getClassType());
+            existingClass.setMembersFrom(parsedClass);
+        }
+
+        @Override
+        public void removeClass(DiagramClass diagramClass) {
+            diagram.removeClass(diagramClass);
+        }
+
+        @Override
+        public void addRelation(DiagramRelation relation) {
+            diagram.addRelation(relation);
+        }
+
+        @Override
+        public void removeRelation(DiagramRelation relation) {
+            diagram.removeRelation(relation);
+        }
+
+        @Override
+        public void updateRelationWeight(DiagramRelation relation, int weight) {
+            relation.setWeight(weight);
+        }
+    }
+
+    public static class PendingChanges {
+        private final int generation;
+        private final SyncResult syncResult = new SyncResult();
+        private final Map<Path, SourceFileState> changedFiles = new HashMap<>();
+        private final List<Path> removedFiles = new ArrayList<>();
+
+        PendingChanges(int generation) {
+            this.generation = generation;
+        }
+
+        public boolean hasChanges() {
+            return !changedFiles.isEmpty() || !removedFiles.isEmpty();
+        }
+    }
+
+    private static class SourceFileState {
+        final String contentHash;
+        long lastModified;
+        long size;
+        String source;
+        JavaCodeParser.CompilationUnitResult result;
+        final Map<String, Integer> relationWeights = new HashMap<>();
+
+        SourceFileState(long lastModified, long size, String contentHash) {
+            this.lastModified = lastModified;
+            this.size = size;
+            this.contentHash = contentHash;
+        }
+    }
+
+    public static class SyncResult {
+        private final Set<Path> scannedFiles = new HashSet<>();
+        private final List<DiagramClass> addedClasses = new ArrayList<>();
+        private final List<DiagramClass> updatedClasses = new ArrayList<>();
+        private final List<DiagramClass> removedClasses = new ArrayList<>();
+        private int filesScanned;
+        private int filesChanged;
+        private int filesRemoved;
+        private int relationsAdded;
+        private int relationsRemoved;
+
+        public int getFilesScanned() {
+            return filesScanned;
+        }
+
+        public int getFilesChanged() {
+            return filesChanged;
+        }
+
+        public int getFilesRemoved() {
+            return filesRemoved;
+        }
+
+        public List<DiagramClass> getAddedClasses() {
+            return addedClasses;
+        }
+
+        public List<DiagramClass> getUpdatedClasses() {
+            return updatedClasses;
+        }
+
+        public List<DiagramClass> getRemovedClasses() {
+            return removedClasses;
+        }
+
+        public int getRelationsAdded() {
+            return relationsAdded;
+        }
+
+        public int getRelationsRemoved() {
+            return relationsRemoved;
+        }
+
+        public boolean hasChanges() {
+            return !addedClasses.isEmpty() || !updatedClasses.isEmpty() || !removedClasses.isEmpty()
+                    || relationsAdded > 0 || relationsRemoved > 0;
+        }
+    }
+}
@@ -0,0 +1,327 @@
+package com.diaggen.model.java;
+
+import com.diaggen.config.AppConfig;
+import com.diaggen.model.*;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+public class ParseCache {
+
+    private static final Logger LOGGER = Logger.getLogger(ParseCache.class.getName());
+    private static final String CACHE_DIRECTORY = "parse-cache";
+    private static final int MAGIC = 0x44474843;
+    private static final int FORMAT_VERSION = 3;
+    private static final int PRUNE_INTERVAL = 500;
+    private static final long MAX_AGE_MILLIS = TimeUnit.DAYS.toMillis(30);
+    private static final long TEMP_FILE_AGE_MILLIS = TimeUnit.HOURS.toMillis(1);
+    private static final double PRUNE_TARGET_RATIO = 0.8;
+
+    private static final ClassType[] CLASS_TYPES = ClassType.values();
+    private static final RelationType[] RELATION_TYPES = RelationType.values();
+    private static final ExecutorService PRUNE_EXECUTOR = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "parse-cache-prune");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private static ParseCache instance;
+    private final Path directory;
+    private final long maxSize;
+    private final AtomicInteger writesSincePrune = new AtomicInteger();
+    private final AtomicBoolean pruneScheduled = new AtomicBoolean();
+
+    public ParseCache(Path directory) {
+        this(directory, Long.MAX_VALUE);
+    }
+
+    public ParseCache(Path directory, long maxSize) {
+        this.directory = directory;
+        this.maxSize = maxSize;
+    }
+
+    public static synchronized ParseCache getInstance() {
+        if (instance == null) {
+            long maxSize = AppConfig.getInstance().getParseCacheMaxMegabytes() * 1024L * 1024L;
+            instance = new ParseCache(AppConfig.getConfigDirectory().resolve(CACHE_DIRECTORY), maxSize);
+            instance.schedulePrune();
+        }
+        return instance;
+    }
+
+    public static String contentHash(byte[] content) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    JavaCodeParser.CompilationUnitResult get(String contentHash) {
+        Path entry = getEntryPath(contentHash);
+        if (!Files.isRegularFile(entry)) {
+            return null;
+        }
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(entry)))) {
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) {
+                return null;
+            }
+            JavaCodeParser.CompilationUnitResult result = readResult(in);
+            touch(entry);
+            return result;
+        } catch (IOException | RuntimeException e) {
+            LOGGER.log(Level.FINE, "Ignoring unreadable parse cache entry " + entry, e);
+            return null;
+        }
+    }
+
+    void put(String contentHash, JavaCodeParser.CompilationUnitResult result) {
+        Path entry = getEntryPath(contentHash);
+        Path tempFile = null;
+        try {
+            Files.createDirectories(entry.getParent());
+            tempFile = Files.createTempFile(entry.getParent(), contentHash, ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempFile)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(FORMAT_VERSION);
+                writeResult(out, result);
+            }
+            Files.move(tempFile, entry, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            tempFile = null;
+        } catch (IOException | RuntimeException e) {
+            LOGGER.log(Level.FINE, "Couldn't write parse cache entry " + entry, e);
+        } finally {
+            if (tempFile != null) {
+                delete(tempFile);
+            }
+        }
+
+        if (writesSincePrune.incrementAndGet() >= PRUNE_INTERVAL) {
+            writesSincePrune.set(0);
+            schedulePrune();
+        }
+    }
+
+    public void schedulePrune() {
+        if (pruneScheduled.compareAndSet(false, true)) {
+            PRUNE_EXECUTOR.execute(() -> {
+                try {
+                    prune();
+                } finally {
+                    pruneScheduled.set(false);
+                }
+            });
+        }
+    }
+
+    public synchronized void prune() {
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+        List<CacheEntry> entries = new ArrayList<>();
+        long totalSize = 0;
+        int removed = 0;
+        try (var paths = Files.walk(directory)) {
+            for (Path path : (Iterable<Path>) paths::iterator) {
+                BasicFileAttributes attrs;
+                try {
+                    attrs = Files.readAttributes(path, BasicFileAttributes.class);
+                } catch (IOException e) {
+                    continue;
+                }
+                if (!attrs.isRegularFile()) {
+                    continue;
+                }
+
+                long age = now - attrs.lastModifiedTime().toMillis();
+                boolean tempFile = path.getFileName().toString().endsWith(".tmp");
+                if (age > MAX_AGE_MILLIS || (tempFile && age > TEMP_FILE_AGE_MILLIS)) {
+                    if (delete(path)) {
+                        removed++;
+                    }
+                } else if (!tempFile) {
+                    entries.add(new CacheEntry(path, attrs.size(), attrs.lastModifiedTime().toMillis()));
+                    totalSize += attrs.size();
+                }
+            }
+        } catch (IOException | UncheckedIOException e) {
+            LOGGER.log(Level.WARNING, "Couldn't prune parse cache: " + e.getMessage());
+            return;
+        }
+
+        if (totalSize > maxSize) {
+            long targetSize = (long) (maxSize * PRUNE_TARGET_RATIO);
+            entries.sort(Comparator.comparingLong(entry -> entry.lastUsed));
+            for (CacheEntry entry : entries) {
+                if (totalSize <= targetSize) {
+                    break;
+                }
+                if (delete(entry.path)) {
+                    totalSize -= entry.size;
+                    removed++;
+                }
+            }
+        }
+
+        if (removed > 0) {
+            LOGGER.log(Level.INFO, "Pruned {0} parse cache entries, {1} KB remaining",
+                    new Object[]{removed, totalSize / 1024});
+        }
+    }
+
+    public long getSize() {
+        if (!Files.isDirectory(directory)) {
+            return 0;
+        }
+
+        try (var paths = Files.walk(directory)) {
+            return paths.filter(Files::isRegularFile).mapToLong(path -> path.toFile().length()).sum();
+        } catch (IOException | UncheckedIOException e) {
+            LOGGER.log(Level.WARNING, "Couldn't measure parse cache: " + e.getMessage());
+            return 0;
+        }
+    }
+
+    public synchronized void clear() {
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+
+        try (var paths = Files.walk(directory)) {
+            paths.sorted((a, b) -> b.compareTo(a))
+                    .filter(path -> !path.equals(directory))
+                    .forEach(path -> path.toFile().delete());
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Couldn't clear parse cache: " + e.getMessage());
+        }
+    }
+
+    private void touch(Path entry) {
+        try {
+            Files.setLastModifiedTime(entry, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (IOException e) {
+            LOGGER.log(Level.FINE, "Couldn't update parse cache entry time " + entry, e);
+        }
+    }
+
+    private boolean delete(Path path) {
+        try {
+            return Files.deleteIfExists(path);
+        } catch (IOException e) {
+            LOGGER.log(Level.FINE, "Couldn't delete parse cache entry " + path, e);
+            return false;
+        }
+    }
+
+    private Path getEntryPath(String contentHash) {
+        return directory.resolve(contentHash.substring(0, 2)).resolve(contentHash + ".bin");
+    }
+
+    private void writeResult(DataOutputStream out, JavaCodeParser.CompilationUnitResult result) throws IOException {
+        out.writeUTF(result.packageName);
+        out.writeInt(result.imports.size());
+        for (String importName : result.imports.values()) {
+            out.writeUTF(importName);
+        }
+        out.writeInt(result.wildcardImports.size());
+        for (String wildcardImport : result.wildcardImports) {
+            out.writeUTF(wildcardImport);
+        }
+
+        out.writeInt(result.classes.size());
+        for (Map.Entry<String, DiagramClass> entry : result.classes.entrySet()) {
+            DiagramClass diagramClass = entry.getValue();
+            out.writeUTF(entry.getKey());
+            out.writeUTF(diagramClass.getName());
+            out.writeUTF(diagramClass.getPackageName());
+            out.writeByte(diagramClass.getClassType().ordinal());
+
+            CompactMemberStore.of(diagramClass).write(out);
+        }
+
+        out.writeInt(result.relationInfos.size());
+        for (JavaCodeParser.RelationInfo info : result.relationInfos) {
+            out.writeUTF(info.sourceClassName);
+            out.writeUTF(info.targetTypeName);
+            out.writeByte(info.relationType.ordinal());
+            out.writeUTF(info.sourceMultiplicity);
+            out.writeUTF(info.targetMultiplicity);
+            out.writeUTF(info.label);
+            out.writeInt(info.occurrences);
+        }
+    }
+
+    private JavaCodeParser.CompilationUnitResult readResult(DataInputStream in) throws IOException {
+        JavaCodeParser.CompilationUnitResult result = new JavaCodeParser.CompilationUnitResult();
+        result.packageName = in.readUTF();
+        int importCount = in.readInt();
+        for (int i = 0; i < importCount; i++) {
+            String importName = in.readUTF();
+            result.imports.put(importName.substring(importName.lastIndexOf('.') + 1), importName);
+        }
+        int wildcardImportCount = in.readInt();
+        for (int i = 0; i < wildcardImportCount; i++) {
+            result.wildcardImports.add(in.readUTF());
+        }
+
+        int classCount = in.readInt();
+        for (int i = 0; i < classCount; i++) {
+            String fullClassName = in.readUTF();
+            String name = in.readUTF();
+            String packageName = in.readUTF();
+            ClassType classType = CLASS_TYPES[in.readByte()];
+            DiagramClass diagramClass = new DiagramClass(name, packageName, classType, CompactMemberStore.read(in));
+
+            result.classes.put(fullClassName, diagramClass);
+        }
+
+        int relationCount = in.readInt();
+        for (int i = 0; i < relationCount; i++) {
+            JavaCodeParser.RelationInfo info = new JavaCodeParser.RelationInfo(
+                    in.readUTF(),
+                    in.readUTF(),
+                    RELATION_TYPES[in.readByte()],
+                    in.readUTF(),
+                    in.readUTF(),
+                    in.readUTF()
+            );
+            info.occurrences = in.readInt();
+            result.addRelation(info);
+        }
+
+        return result;
+    }
+
+    private static class CacheEntry {
+        final Path path;
+        final long size;
+        final long lastUsed;
+
+        CacheEntry(Path path, long size, long lastUsed) {
+            this.path = path;
+            this.size = size;
+            this.lastUsed = lastUsed;
+        }
+    }
+}
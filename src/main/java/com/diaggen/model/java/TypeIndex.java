@@ -0,0 +1,102 @@
+package com.diaggen.model.java;
+
+import com.diaggen.model.DiagramClass;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+class TypeIndex {
+
+    private final Map<String, DiagramClass> classes = new HashMap<>();
+    private final Map<String, List<String>> simpleNameIndex = new HashMap<>();
+
+    DiagramClass get(String fullClassName) {
+        return classes.get(fullClassName);
+    }
+
+    void put(String fullClassName, DiagramClass diagramClass) {
+        if (classes.put(fullClassName, diagramClass) == null) {
+            simpleNameIndex.computeIfAbsent(getSimpleName(fullClassName), k -> new ArrayList<>(1)).add(fullClassName);
+        }
+    }
+
+    void putIfAbsent(String fullClassName, DiagramClass diagramClass) {
+        if (!classes.containsKey(fullClassName)) {
+            put(fullClassName, diagramClass);
+        }
+    }
+
+    void remove(String fullClassName) {
+        if (classes.remove(fullClassName) != null) {
+            String simpleName = getSimpleName(fullClassName);
+            List<String> candidates = simpleNameIndex.get(simpleName);
+            candidates.remove(fullClassName);
+            if (candidates.isEmpty()) {
+                simpleNameIndex.remove(simpleName);
+            }
+        }
+    }
+
+    void clear() {
+        classes.clear();
+        simpleNameIndex.clear();
+    }
+
+    DiagramClass resolve(JavaCodeParser.CompilationUnitResult unit, String sourceClassName, String typeName) {
+        if (typeName.indexOf('.') > 0) {
+            DiagramClass qualified = classes.get(typeName);
+            if (qualified != null) {
+                return qualified;
+            }
+        }
+
+        int dot = typeName.indexOf('.');
+        String firstSegment = dot > 0 ? typeName.substring(0, dot) : typeName;
+        String remainder = dot > 0 ? typeName.substring(dot) : "";
+
+        String scope = sourceClassName;
+        while (scope.length() > unit.packageName.length()) {
+            DiagramClass member = classes.get(scope + "." + typeName);
+            if (member != null) {
+                return member;
+            }
+            int lastDot = scope.lastIndexOf('.');
+            if (lastDot < 0) {
+                break;
+            }
+            scope = scope.substring(0, lastDot);
+        }
+
+        String imported = unit.imports.get(firstSegment);
+        if (imported != null) {
+            return classes.get(imported + remainder);
+        }
+
+        DiagramClass samePackage = classes.get(unit.packageName.isEmpty()
+                ? typeName
+                : unit.packageName + "." + typeName);
+        if (samePackage != null) {
+            return samePackage;
+        }
+
+        if (!unit.wildcardImports.isEmpty()) {
+            List<String> candidates = simpleNameIndex.get(firstSegment);
+            if (candidates != null) {
+                for (String candidate : candidates) {
+                    int lastDot = candidate.lastIndexOf('.');
+                    if (lastDot > 0 && unit.wildcardImports.contains(candidate.substring(0, lastDot))) {
+                        return classes.get(candidate + remainder);
+                    }
+                }
+            }
+        }
+
+        return null;
+    }
+
+    private String getSimpleName(String fullClassName) {
+        return fullClassName.substring(fullClassName.lastIndexOf('.') + 1);
+    }
+}
@@ -33,141 +33,225 @@ public class DiagramSerializer {
         dto.setId(diagram.getId());
         dto.setName(diagram.getName());
 
-        Map<String, DiagramClassDTO> classDTOs = new HashMap<>();
-
+        PackageAggregation aggregation = diagram.getPackageAggregation();
         for (DiagramClass diagramClass : diagram.getClasses()) {
-            DiagramClassDTO classDTO = new DiagramClassDTO();
-            classDTO.setId(diagramClass.getId());
-            classDTO.setName(diagramClass.getName());
-            classDTO.setPackageName(diagramClass.getPackageName());
-            classDTO.setX(diagramClass.getX());
-            classDTO.setY(diagramClass.getY());
-            classDTO.setClassType(diagramClass.getClassType().name());
-
-            for (Member attribute : diagramClass.getAttributes()) {
-                MemberDTO memberDTO = new MemberDTO();
-                memberDTO.setId(attribute.getId());
-                memberDTO.setName(attribute.getName());
-                memberDTO.setType(attribute.getType());
-                memberDTO.setVisibility(attribute.getVisibility().name());
-                classDTO.getAttributes().add(memberDTO);
-            }
-
-            for (Method method : diagramClass.getMethods()) {
-                MethodDTO methodDTO = new MethodDTO();
-                methodDTO.setId(method.getId());
-                methodDTO.setName(method.getName());
-                methodDTO.setReturnType(method.getReturnType());
-                methodDTO.setVisibility(method.getVisibility().name());
-                methodDTO.setAbstract(method.isAbstract());
-                methodDTO.setStatic(method.isStatic());
-
-                for (Parameter parameter : method.getParameters()) {
-                    ParameterDTO paramDTO = new ParameterDTO();
-                    paramDTO.setId(parameter.getId());
-                    paramDTO.setName(parameter.getName());
-                    paramDTO.setType(parameter.getType());
-                    methodDTO.getParameters().add(paramDTO);
-                }
+            dto.getClasses().add(convertToDTO(diagramClass));
+        }
 
-                classDTO.getMethods().add(methodDTO);
+        for (DiagramRelation relation : diagram.getRelations()) {
+            if (aggregation == null || !aggregation.isSummaryRelation(relation)) {
+                dto.getRelations().add(convertToDTO(relation));
             }
-
-            classDTOs.put(diagramClass.getId(), classDTO);
-            dto.getClasses().add(classDTO);
         }
 
-        for (DiagramRelation relation : diagram.getRelations()) {
-            DiagramRelationDTO relationDTO = new DiagramRelationDTO();
-            relationDTO.setId(relation.getId());
-            relationDTO.setSourceClassId(relation.getSourceClass().getId());
-            relationDTO.setTargetClassId(relation.getTargetClass().getId());
-            relationDTO.setRelationType(relation.getRelationType().name());
-            relationDTO.setSourceMultiplicity(relation.getSourceMultiplicity());
-            relationDTO.setTargetMultiplicity(relation.getTargetMultiplicity());
-            relationDTO.setLabel(relation.getLabel());
-            dto.getRelations().add(relationDTO);
+        if (aggregation != null) {
+            for (String packageName : aggregation.getPackageNames()) {
+                PackageDTO packageDTO = new PackageDTO();
+                packageDTO.setPackageName(packageName);
+                packageDTO.setPackageNode(convertToDTO(aggregation.getPackageNode(packageName)));
+                for (DiagramClass hiddenClass : aggregation.getHiddenClasses(packageName)) {
+                    packageDTO.getHiddenClasses().add(convertToDTO(hiddenClass));
+                }
+                dto.getPackages().add(packageDTO);
+            }
+            for (DiagramRelation relation : aggregation.getHiddenRelations()) {
+                dto.getHiddenRelations().add(convertToDTO(relation));
+            }
         }
 
         return dto;
     }
 
-    public ClassDiagram convertFromDTO(DiagramDTO dto) {
+    private DiagramClassDTO convertToDTO(DiagramClass diagramClass) {
+        DiagramClassDTO classDTO = new DiagramClassDTO();
+        classDTO.setId(diagramClass.getId());
+        classDTO.setName(diagramClass.getName());
+        classDTO.setPackageName(diagramClass.getPackageName());
+        classDTO.setX(diagramClass.getX());
+        classDTO.setY(diagramClass.getY());
+        classDTO.setClassType(diagramClass.getClassType().name());
+
+        MemberStore memberStore = diagramClass.getMemberStore();
+        if (memberStore != null) {
+            addMembersToDTO(memberStore, classDTO);
+            return classDTO;
+        }
+
+        for (Member attribute : diagramClass.getAttributes()) {
+            MemberDTO memberDTO = new MemberDTO();
+            memberDTO.setId(attribute.getId());
+            memberDTO.setName(attribute.getName());
+            memberDTO.setType(attribute.getType());
+            memberDTO.setVisibility(attribute.getVisibility().name());
+            classDTO.getAttributes().add(memberDTO);
+        }
+
+        for (Method method : diagramClass.getMethods()) {
+            MethodDTO methodDTO = new MethodDTO();
+            methodDTO.setId(method.getId());
+            methodDTO.setName(method.getName());
+            methodDTO.setReturnType(method.getReturnType());
+            methodDTO.setVisibility(method.getVisibility().name());
+            methodDTO.setAbstract(method.isAbstract());
+            methodDTO.setStatic(method.isStatic());
+
+            for (Parameter parameter : method.getParameters()) {
+                ParameterDTO paramDTO = new ParameterDTO();
+                paramDTO.setId(parameter.getId());
+                paramDTO.setName(parameter.getName());
+                paramDTO.setType(parameter.getType());
+                methodDTO.getParameters().add(paramDTO);
+            }
 
-        ClassDiagram diagram = new ClassDiagram(dto.getName());
+            classDTO.getMethods().add(methodDTO);
+        }
 
+        return classDTO;
+    }
 
-        Map<String, DiagramClass> classesMap = new HashMap<>();
+    private void addMembersToDTO(MemberStore memberStore, DiagramClassDTO classDTO) {
+        for (int i = 0; i < memberStore.getAttributeCount(); i++) {
+            MemberDTO memberDTO = new MemberDTO();
+            memberDTO.setName(memberStore.getAttributeName(i));
+            memberDTO.setType(memberStore.getAttributeType(i));
+            memberDTO.setVisibility(memberStore.getAttributeVisibility(i).name());
+            classDTO.getAttributes().add(memberDTO);
+        }
+
+        for (int i = 0; i < memberStore.getMethodCount(); i++) {
+            MethodDTO methodDTO = new MethodDTO();
+            methodDTO.setName(memberStore.getMethodName(i));
+            methodDTO.setReturnType(memberStore.getMethodReturnType(i));
+            methodDTO.setVisibility(memberStore.getMethodVisibility(i).name());
+            methodDTO.setAbstract(memberStore.isMethodAbstract(i));
+            methodDTO.setStatic(memberStore.isMethodStatic(i));
+
+            for (int j = 0; j < memberStore.getParameterCount(i); j++) {
+                ParameterDTO paramDTO = new ParameterDTO();
+                paramDTO.setName(memberStore.getParameterName(i, j));
+                paramDTO.setType(memberStore.getParameterType(i, j));
+                methodDTO.getParameters().add(paramDTO);
+            }
 
-        Map<String, String> oldToNewClassIds = new HashMap<>();
+            classDTO.getMethods().add(methodDTO);
+        }
+    }
 
-        for (DiagramClassDTO classDTO : dto.getClasses()) {
-            ClassType classType = ClassType.valueOf(classDTO.getClassType());
+    private DiagramRelationDTO convertToDTO(DiagramRelation relation) {
+        DiagramRelationDTO relationDTO = new DiagramRelationDTO();
+        relationDTO.setId(relation.getId());
+        relationDTO.setSourceClassId(relation.getSourceClass().getId());
+        relationDTO.setTargetClassId(relation.getTargetClass().getId());
+        relationDTO.setRelationType(relation.getRelationType().name());
+        relationDTO.setSourceMultiplicity(relation.getSourceMultiplicity());
+        relationDTO.setTargetMultiplicity(relation.getTargetMultiplicity());
+        relationDTO.setLabel(relation.getLabel());
+        relationDTO.setWeight(relation.getWeight());
+        return relationDTO;
+    }
 
-            DiagramClass diagramClass = new DiagramClass(classDTO.getName(), classDTO.getPackageName(), classType);
+    public ClassDiagram convertFromDTO(DiagramDTO dto) {
 
-            oldToNewClassIds.put(classDTO.getId(), diagramClass.getId());
+        ClassDiagram diagram = new ClassDiagram(dto.getName());
 
-            diagramClass.setX(classDTO.getX());
-            diagramClass.setY(classDTO.getY());
+        Map<String, DiagramClass> classesByOldId = new HashMap<>();
 
-            for (MemberDTO attributeDTO : classDTO.getAttributes()) {
-                Visibility visibility = Visibility.valueOf(attributeDTO.getVisibility());
+        for (DiagramClassDTO classDTO : dto.getClasses()) {
+            DiagramClass diagramClass = convertFromDTO(classDTO);
+            classesByOldId.put(classDTO.getId(), diagramClass);
+            diagram.addClass(diagramClass);
+        }
 
-                Member attribute = new Member(attributeDTO.getName(), attributeDTO.getType(), visibility);
-                diagramClass.addAttribute(attribute);
+        for (DiagramRelationDTO relationDTO : dto.getRelations()) {
+            DiagramRelation relation = convertFromDTO(relationDTO, classesByOldId);
+            if (relation != null) {
+                diagram.addRelation(relation);
             }
+        }
 
-            for (MethodDTO methodDTO : classDTO.getMethods()) {
-                Visibility visibility = Visibility.valueOf(methodDTO.getVisibility());
-
-                java.util.List<Parameter> parameters = new java.util.ArrayList<>();
-                for (ParameterDTO paramDTO : methodDTO.getParameters()) {
-                    Parameter param = new Parameter(paramDTO.getName(), paramDTO.getType());
-                    parameters.add(param);
+        if (dto.getPackages() != null && !dto.getPackages().isEmpty()) {
+            PackageAggregation aggregation = new PackageAggregation(diagram);
+            for (PackageDTO packageDTO : dto.getPackages()) {
+                DiagramClass packageNode = classesByOldId.computeIfAbsent(packageDTO.getPackageNode().getId(),
+                        id -> convertFromDTO(packageDTO.getPackageNode()));
+                java.util.List<DiagramClass> hiddenClasses = new java.util.ArrayList<>();
+                for (DiagramClassDTO classDTO : packageDTO.getHiddenClasses()) {
+                    DiagramClass hiddenClass = convertFromDTO(classDTO);
+                    classesByOldId.put(classDTO.getId(), hiddenClass);
+                    hiddenClasses.add(hiddenClass);
                 }
-
-                Method method = new Method(
-                        methodDTO.getName(),
-                        methodDTO.getReturnType(),
-                        parameters,
-                        visibility,
-                        methodDTO.isAbstract(),
-                        methodDTO.isStatic()
-                );
-
-                diagramClass.addMethod(method);
+                aggregation.restorePackage(packageDTO.getPackageName(), packageNode, hiddenClasses);
             }
-
-            classesMap.put(diagramClass.getId(), diagramClass);
-            diagram.addClass(diagramClass);
+            for (DiagramRelationDTO relationDTO : dto.getHiddenRelations()) {
+                DiagramRelation relation = convertFromDTO(relationDTO, classesByOldId);
+                if (relation != null) {
+                    aggregation.restoreHiddenRelation(relation);
+                }
+            }
+            aggregation.refresh();
         }
 
-        for (DiagramRelationDTO relationDTO : dto.getRelations()) {
+        return diagram;
+    }
 
-            String newSourceClassId = oldToNewClassIds.get(relationDTO.getSourceClassId());
-            String newTargetClassId = oldToNewClassIds.get(relationDTO.getTargetClassId());
+    private DiagramClass convertFromDTO(DiagramClassDTO classDTO) {
+        ClassType classType = ClassType.valueOf(classDTO.getClassType());
 
-            if (newSourceClassId != null && newTargetClassId != null) {
-                DiagramClass sourceClass = classesMap.get(newSourceClassId);
-                DiagramClass targetClass = classesMap.get(newTargetClassId);
+        DiagramClass diagramClass = new DiagramClass(classDTO.getName(), classDTO.getPackageName(), classType);
 
-                RelationType relationType = RelationType.valueOf(relationDTO.getRelationType());
+        diagramClass.setX(classDTO.getX());
+        diagramClass.setY(classDTO.getY());
 
-                DiagramRelation relation = new DiagramRelation(
-                        sourceClass,
-                        targetClass,
-                        relationType,
-                        relationDTO.getSourceMultiplicity(),
-                        relationDTO.getTargetMultiplicity(),
-                        relationDTO.getLabel()
-                );
+        for (MemberDTO attributeDTO : classDTO.getAttributes()) {
+            Visibility visibility = Visibility.valueOf(attributeDTO.getVisibility());
 
-                diagram.addRelation(relation);
+            Member attribute = new Member(attributeDTO.getName(), attributeDTO.getType(), visibility);
+            diagramClass.addAttribute(attribute);
+        }
+
+        for (MethodDTO methodDTO : classDTO.getMethods()) {
+            Visibility visibility = Visibility.valueOf(methodDTO.getVisibility());
+
+            java.util.List<Parameter> parameters = new java.util.ArrayList<>();
+            for (ParameterDTO paramDTO : methodDTO.getParameters()) {
+                Parameter param = new Parameter(paramDTO.getName(), paramDTO.getType());
+                parameters.add(param);
             }
+
+            Method method = new Method(
+                    methodDTO.getName(),
+                    methodDTO.getReturnType(),
+                    parameters,
+                    visibility,
+                    methodDTO.isAbstract(),
+                    methodDTO.isStatic()
+            );
+
+            diagramClass.addMethod(method);
         }
 
-        return diagram;
+        return diagramClass;
+    }
+
+    private DiagramRelation convertFromDTO(DiagramRelationDTO relationDTO, Map<String, DiagramClass> classesByOldId) {
+        DiagramClass sourceClass = classesByOldId.get(relationDTO.getSourceClassId());
+        DiagramClass targetClass = classesByOldId.get(relationDTO.getTargetClassId());
+        if (sourceClass == null || targetClass == null) {
+            return null;
+        }
+
+        RelationType relationType = RelationType.valueOf(relationDTO.getRelationType());
+
+        DiagramRelation relation = new DiagramRelation(
+                sourceClass,
+                targetClass,
+                relationType,
+                relationDTO.getSourceMultiplicity(),
+                relationDTO.getTargetMultiplicity(),
+                relationDTO.getLabel()
+        );
+        relation.setWeight(relationDTO.getWeight());
+        return relation;
     }
 
     static class DiagramDTO implements Serializable {
@@ -177,6 +261,8 @@ public class DiagramSerializer {
         private String name;
         private java.util.List<DiagramClassDTO> classes = new java.util.ArrayList<>();
         private java.util.List<DiagramRelationDTO> relations = new java.util.ArrayList<>();
+        private java.util.List<PackageDTO> packages = new java.util.ArrayList<>();
+        private java.util.List<DiagramRelationDTO> hiddenRelations = new java.util.ArrayList<>();
 
         public String getId() {
             return id;
@@ -209,6 +295,54 @@ public class DiagramSerializer {
         public void setRelations(java.util.List<DiagramRelationDTO> relations) {
             this.relations = relations;
         }
+
+        public java.util.List<PackageDTO> getPackages() {
+            return packages;
+        }
+
+        public void setPackages(java.util.List<PackageDTO> packages) {
+            this.packages = packages;
+        }
+
+        public java.util.List<DiagramRelationDTO> getHiddenRelations() {
+            return hiddenRelations != null ? hiddenRelations : java.util.Collections.emptyList();
+        }
+
+        public void setHiddenRelations(java.util.List<DiagramRelationDTO> hiddenRelations) {
+            this.hiddenRelations = hiddenRelations;
+        }
+    }
+
+    static class PackageDTO implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private String packageName;
+        private DiagramClassDTO packageNode;
+        private java.util.List<DiagramClassDTO> hiddenClasses = new java.util.ArrayList<>();
+
+        public String getPackageName() {
+            return packageName;
+        }
+
+        public void setPackageName(String packageName) {
+            this.packageName = packageName;
+        }
+
+        public DiagramClassDTO getPackageNode() {
+            return packageNode;
+        }
+
+        public void setPackageNode(DiagramClassDTO packageNode) {
+            this.packageNode = packageNode;
+        }
+
+        public java.util.List<DiagramClassDTO> getHiddenClasses() {
+            return hiddenClasses;
+        }
+
+        public void setHiddenClasses(java.util.List<DiagramClassDTO> hiddenClasses) {
+            this.hiddenClasses = hiddenClasses;
+        }
     }
 
     static class DiagramClassDTO implements Serializable {
@@ -439,6 +573,7 @@ public class DiagramSerializer {
         private String sourceMultiplicity;
         private String targetMultiplicity;
         private String label;
+        private int weight;
 
         public String getId() {
             return id;
@@ -495,5 +630,13 @@ public class DiagramSerializer {
         public void setLabel(String label) {
             this.label = label;
         }
+
+        public int getWeight() {
+            return weight;
+        }
+
+        public void setWeight(int weight) {
+            this.weight = weight;
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,149 @@
+package com.diaggen.service;
+
+import com.diaggen.controller.command.CommandManager;
+import com.diaggen.model.java.JavaProjectSync;
+import javafx.application.Platform;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static java.nio.file.StandardWatchEventKinds.*;
+
+public class JavaProjectWatcher {
+
+    private static final Logger LOGGER = Logger.getLogger(JavaProjectWatcher.class.getName());
+    private static final long DEBOUNCE_MILLIS = 400;
+
+    private final JavaProjectSync projectSync;
+    private final CommandManager commandManager;
+    private final Map<WatchKey, Path> watchedDirectories = new HashMap<>();
+    private LayoutService layoutService;
+    private WatchService watchService;
+    private volatile boolean running = false;
+
+    public JavaProjectWatcher(JavaProjectSync projectSync, CommandManager commandManager) {
+        this.projectSync = projectSync;
+        this.commandManager = commandManager;
+    }
+
+    public void setLayoutService(LayoutService layoutService) {
+        this.layoutService = layoutService;
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    public void start() throws IOException {
+        if (running) {
+            return;
+        }
+
+        watchService = projectSync.getProjectPath().getFileSystem().newWatchService();
+        for (Path directory : projectSync.findSourceDirectories()) {
+            register(directory);
+        }
+        running = true;
+
+        Thread watchThread = new Thread(this::watchLoop, "java-watch");
+        watchThread.setDaemon(true);
+        watchThread.start();
+
+        LOGGER.log(Level.INFO, "Watching {0} directories under {1}",
+                new Object[]{watchedDirectories.size(), projectSync.getProjectPath()});
+    }
+
+    public void stop() {
+        running = false;
+        if (watchService != null) {
+            try {
+                watchService.close();
+            } catch (IOException e) {
+                LOGGER.log(Level.WARNING, "Error closing watch service", e);
+            }
+        }
+    }
+
+    private void watchLoop() {
+        try {
+            while (running) {
+                Set<Path> touchedPaths = new LinkedHashSet<>();
+                boolean overflow = collectEvents(watchService.take(), touchedPaths);
+
+                WatchKey key;
+                while ((key = watchService.poll(DEBOUNCE_MILLIS, TimeUnit.MILLISECONDS)) != null) {
+                    overflow |= collectEvents(key, touchedPaths);
+                }
+
+                synchronize(overflow ? null : touchedPaths);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ClosedWatchServiceException e) {
+            LOGGER.log(Level.FINE, "Watch service closed");
+        }
+        running = false;
+    }
+
+    private boolean collectEvents(WatchKey key, Set<Path> touchedPaths) {
+        Path directory = watchedDirectories.get(key);
+        boolean overflow = false;
+
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == OVERFLOW || directory == null) {
+                overflow = true;
+                continue;
+            }
+
+            Path path = directory.resolve((Path) event.context());
+            touchedPaths.add(path);
+            if (event.kind() == ENTRY_CREATE && Files.isDirectory(path, LinkOption.NOFOLLOW_LINKS)) {
+                try {
+                    for (Path newDirectory : projectSync.findSourceDirectories(path)) {
+                        register(newDirectory);
+                    }
+                } catch (RuntimeException | IOException e) {
+                    LOGGER.log(Level.WARNING, "Cannot watch new directory " + path, e);
+                }
+            }
+        }
+
+        if (!key.reset()) {
+            watchedDirectories.remove(key);
+        }
+        return overflow;
+    }
+
+    private void register(Path directory) throws IOException {
+        WatchKey key = directory.register(watchService, ENTRY_CREATE, ENTRY_DELETE, ENTRY_MODIFY);
+        watchedDirectories.put(key, directory);
+    }
+
+    private void synchronize(Set<Path> touchedPaths) throws InterruptedException {
+        try {
+            JavaProjectSync.PendingChanges changes = projectSync.prepare(touchedPaths);
+            if (!changes.hasChanges()) {
+                return;
+            }
+
+            FutureTask<Void> applyTask = new FutureTask<>(() -> apply(changes), null);
+            Platform.runLater(applyTask);
+            applyTask.get();
+        } catch (ExecutionException | RuntimeException e) {
+            LOGGER.log(Level.WARNING, "Error synchronizing watched Java project", e);
+        }
+    }
+
+    private void apply(JavaProjectSync.PendingChanges changes) {
+        JavaSyncCommandApplier applier = new JavaSyncCommandApplier(projectSync.getDiagram(), commandManager);
+        applier.setLayoutService(layoutService);
+        applier.apply(projectSync, changes);
+        applier.publishEvents();
+    }
+}
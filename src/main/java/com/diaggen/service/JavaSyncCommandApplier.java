@@ -0,0 +1,108 @@
+package com.diaggen.service;
+
+import com.diaggen.controller.command.AddClassCommand;
+import com.diaggen.controller.command.AddRelationCommand;
+import com.diaggen.controller.command.ChangeRelationWeightCommand;
+import com.diaggen.controller.command.Command;
+import com.diaggen.controller.command.CommandManager;
+import com.diaggen.controller.command.InvalidateSyncCommand;
+import com.diaggen.controller.command.RemoveClassCommand;
+import com.diaggen.controller.command.RemoveRelationCommand;
+import com.diaggen.controller.command.UpdateClassCommand;
+import com.diaggen.event.DiagramChangedEvent;
+import com.diaggen.event.EventBus;
+import com.diaggen.model.ClassDiagram;
+import com.diaggen.model.DiagramClass;
+import com.diaggen.model.DiagramRelation;
+import com.diaggen.model.java.JavaProjectSync;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class JavaSyncCommandApplier implements JavaProjectSync.ChangeApplier {
+
+    private final ClassDiagram diagram;
+    private final CommandManager commandManager;
+    private final EventBus eventBus = EventBus.getInstance();
+    private final List<DiagramChangedEvent> events = new ArrayList<>();
+    private LayoutService layoutService;
+    private boolean recorded;
+
+    public JavaSyncCommandApplier(ClassDiagram diagram, CommandManager commandManager) {
+        this.diagram = diagram;
+        this.commandManager = commandManager;
+    }
+
+    public void setLayoutService(LayoutService layoutService) {
+        this.layoutService = layoutService;
+    }
+
+    public JavaProjectSync.SyncResult apply(JavaProjectSync projectSync, JavaProjectSync.PendingChanges changes) {
+        commandManager.startCommandGroup("Synchronisation avec le code Java");
+        try {
+            JavaProjectSync.SyncResult syncResult = projectSync.apply(changes, this);
+            if (layoutService != null) {
+                layoutService.placeClasses(diagram, syncResult.getAddedClasses(), commandManager);
+            }
+            if (recorded) {
+                commandManager.executeCommand(new InvalidateSyncCommand(projectSync));
+            }
+            return syncResult;
+        } finally {
+            commandManager.endCommandGroup();
+        }
+    }
+
+    @Override
+    public void addClass(DiagramClass diagramClass) {
+        execute(new AddClassCommand(diagram, diagramClass),
+                DiagramChangedEvent.ChangeType.CLASS_ADDED, diagramClass.getId());
+    }
+
+    @Override
+    public void updateClass(DiagramClass existingClass, DiagramClass parsedClass) {
+        execute(new UpdateClassCommand(existingClass, parsedClass),
+                DiagramChangedEvent.ChangeType.CLASS_MODIFIED, existingClass.getId());
+    }
+
+    @Override
+    public void removeClass(DiagramClass diagramClass) {
+        execute(new RemoveClassCommand(diagram, diagramClass),
+                DiagramChangedEvent.ChangeType.CLASS_REMOVED, diagramClass.getId());
+    }
+
+    @Override
+    public void addRelation(DiagramRelation relation) {
+        execute(new AddRelationCommand(diagram, relation),
+                DiagramChangedEvent.ChangeType.RELATION_ADDED, relation.getId());
+    }
+
+    @Override
+    public void removeRelation(DiagramRelation relation) {
+        execute(new RemoveRelationCommand(diagram, relation),
+                DiagramChangedEvent.ChangeType.RELATION_REMOVED, relation.getId());
+    }
+
+    @Override
+    public void updateRelationWeight(DiagramRelation relation, int weight) {
+        execute(new ChangeRelationWeightCommand(relation, weight));
+    }
+
+    public void publishEvents() {
+        for (DiagramChangedEvent event : events) {
+            eventBus.publish(event);
+        }
+        events.clear();
+    }
+
+    private void execute(Command command, DiagramChangedEvent.ChangeType changeType, String elementId) {
+        execute(command);
+        events.add(new DiagramChangedEvent(diagram.getId(), changeType, elementId));
+    }
+
+    private void execute(Command command) {
+        command.execute();
+        commandManager.executeCommand(command);
+        recorded = true;
+    }
+}
@@ -2,30 +2,57 @@ package com.diaggen.service;
 
 import com.diaggen.controller.command.CommandManager;
 import com.diaggen.controller.command.MoveClassCommand;
+import com.diaggen.layout.ForceDirectedLayout;
+import com.diaggen.layout.IncrementalLayout;
 import com.diaggen.layout.LayoutFactory;
 import com.diaggen.layout.LayoutManager;
+import com.diaggen.layout.LayoutOptions;
+import com.diaggen.layout.LayoutResult;
 import com.diaggen.model.ClassDiagram;
 import com.diaggen.model.DiagramClass;
+import javafx.animation.Interpolator;
+import javafx.animation.KeyFrame;
+import javafx.animation.KeyValue;
+import javafx.animation.Timeline;
+import javafx.event.ActionEvent;
 import javafx.geometry.Dimension2D;
+import javafx.scene.control.ButtonType;
 import javafx.scene.control.ChoiceDialog;
 import javafx.scene.layout.Pane;
+import javafx.util.Duration;
+import org.controlsfx.dialog.ProgressDialog;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BooleanSupplier;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 public class LayoutService {
 
     private static final Logger LOGGER = Logger.getLogger(LayoutService.class.getName());
+    private static final int PROGRESS_DIALOG_MIN_CLASSES = 300;
+    private static final int ANIMATION_MAX_CLASSES = 500;
+    private static final Duration ANIMATION_DURATION = Duration.millis(400);
 
-    private final Map<String, LayoutManager> layoutManagers = new HashMap<>();
+    private final Map<String, LayoutManager> layoutManagers = new ConcurrentHashMap<>();
     private final Pane diagramContainer;
+    private LayoutOptions layoutOptions = LayoutOptions.defaults();
 
     public LayoutService(Pane diagramContainer) {
         this.diagramContainer = diagramContainer;
+        this.layoutOptions.setNodeSizeProvider(NodeMeasurementService.getInstance());
     }
 
-    public void arrangeClasses(ClassDiagram diagram, CommandManager commandManager) {
+    public LayoutOptions getLayoutOptions() {
+        return layoutOptions;
+    }
+
+    public void setLayoutOptions(LayoutOptions layoutOptions) {
+        this.layoutOptions = layoutOptions;
+    }
+
+    public void arrangeClasses(ClassDiagram diagram, CommandManager commandManager, Runnable onApplied) {
         if (diagram == null || diagram.getClasses().isEmpty()) {
             return;
         }
@@ -54,68 +81,199 @@ public class LayoutService {
                 layoutType = LayoutFactory.LayoutType.GRID;
             }
 
-            applyLayoutWithCommands(diagram, layoutType, commandManager);
+            applyLayoutAsync(diagram, layoutType, commandManager, true, onApplied);
         });
     }
 
-    public void applyLayoutWithCommands(ClassDiagram diagram, LayoutFactory.LayoutType layoutType,
-                                        CommandManager commandManager) {
-        if (diagram == null || diagram.getClasses().isEmpty()) {
-            return;
+    public LayoutTask applyLayoutAsync(ClassDiagram diagram, LayoutFactory.LayoutType layoutType,
+                                       CommandManager commandManager, boolean animate, Runnable onApplied) {
+        return applyLayoutAsync(diagram, layoutType, layoutOptions,
+                "Arrangement automatique (" + layoutType.name() + ")", commandManager, animate, onApplied);
+    }
+
+    public LayoutTask applyIncrementalLayoutAsync(ClassDiagram diagram, CommandManager commandManager,
+                                                  Runnable onApplied) {
+        LayoutOptions incrementalOptions = layoutOptions.copy();
+        incrementalOptions.setIncremental(true);
+        return applyLayoutAsync(diagram, LayoutFactory.LayoutType.FORCE_DIRECTED, incrementalOptions,
+                "Placement des nouvelles classes", commandManager, true, onApplied);
+    }
+
+    public LayoutResult placeClasses(ClassDiagram diagram, Collection<DiagramClass> classes,
+                                     CommandManager commandManager) {
+        if (diagram == null || classes.isEmpty()) {
+            return null;
         }
 
-        LOGGER.log(Level.INFO, "Applying {0} layout to diagram {1} with command tracking",
-                new Object[]{layoutType, diagram.getName()});
-        commandManager.startCommandGroup("Arrangement automatique (" + layoutType.name() + ")");
         Map<DiagramClass, Point2D> originalPositions = new HashMap<>();
         for (DiagramClass diagramClass : diagram.getClasses()) {
             originalPositions.put(diagramClass, new Point2D(diagramClass.getX(), diagramClass.getY()));
         }
-        applyLayout(diagram, layoutType);
+
+        LayoutOptions incrementalOptions = layoutOptions.copy();
+        incrementalOptions.setIncremental(true);
+        IncrementalLayout incrementalLayout = (IncrementalLayout) LayoutFactory.createLayout(
+                LayoutFactory.LayoutType.FORCE_DIRECTED, incrementalOptions);
+        incrementalLayout.setMovableClasses(classes);
+        Dimension2D viewport = getViewportSize();
+        incrementalLayout.setDimensions(viewport.getWidth(), viewport.getHeight());
+        incrementalLayout.layout(diagram);
+
         for (DiagramClass diagramClass : diagram.getClasses()) {
             Point2D original = originalPositions.get(diagramClass);
-            if (original != null) {
-                double oldX = original.getX();
-                double oldY = original.getY();
-                double newX = diagramClass.getX();
-                double newY = diagramClass.getY();
-                if (Math.abs(oldX - newX) > 1 || Math.abs(oldY - newY) > 1) {
-                    MoveClassCommand command = new MoveClassCommand(diagramClass, oldX, oldY, newX, newY);
+            if (original != null && (Math.abs(original.getX() - diagramClass.getX()) > 1
+                    || Math.abs(original.getY() - diagramClass.getY()) > 1)) {
+                commandManager.executeCommand(new MoveClassCommand(diagramClass, original.getX(), original.getY(),
+                        diagramClass.getX(), diagramClass.getY()));
+            }
+        }
+        return incrementalLayout.getLastResult();
+    }
+
+    private LayoutTask applyLayoutAsync(ClassDiagram diagram, LayoutFactory.LayoutType layoutType,
+                                        LayoutOptions options, String description,
+                                        CommandManager commandManager, boolean animate, Runnable onApplied) {
+        if (diagram == null || diagram.getClasses().isEmpty()) {
+            return null;
+        }
+
+        LOGGER.log(Level.INFO, "Computing {0} layout of diagram {1} in background",
+                new Object[]{layoutType, diagram.getName()});
+        Dimension2D viewport = getViewportSize();
+        LayoutTask layoutTask = new LayoutTask(diagram, layoutType, options,
+                viewport.getWidth(), viewport.getHeight());
+
+        layoutTask.setOnSucceeded(event -> applyPositions(diagram, layoutTask.getTargetPositions(),
+                description, commandManager, animate, onApplied));
+        layoutTask.setOnCancelled(event -> LOGGER.log(Level.INFO, "Layout cancelled"));
+        layoutTask.setOnFailed(event ->
+                LOGGER.log(Level.WARNING, "Layout computation failed", layoutTask.getException()));
+
+        if (diagram.getClasses().size() >= PROGRESS_DIALOG_MIN_CLASSES) {
+            ProgressDialog progressDialog = new ProgressDialog(layoutTask);
+            if (diagramContainer != null && diagramContainer.getScene() != null) {
+                progressDialog.initOwner(diagramContainer.getScene().getWindow());
+            }
+            progressDialog.setTitle("Arrangement automatique");
+            progressDialog.setHeaderText("Calcul de la disposition en cours...");
+            progressDialog.getDialogPane().getButtonTypes().add(ButtonType.CANCEL);
+            progressDialog.getDialogPane().lookupButton(ButtonType.CANCEL)
+                    .addEventFilter(ActionEvent.ACTION, event -> layoutTask.cancel());
+        }
+
+        Thread layoutThread = new Thread(layoutTask, "diagram-layout");
+        layoutThread.setDaemon(true);
+        layoutThread.start();
+        return layoutTask;
+    }
+
+    public void applyPositions(ClassDiagram diagram, Map<DiagramClass, Point2D> targetPositions, String description,
+                               CommandManager commandManager, boolean animate, Runnable onApplied) {
+        Set<DiagramClass> currentClasses = new HashSet<>(diagram.getClasses());
+        List<MoveClassCommand> commands = new ArrayList<>();
+        for (Map.Entry<DiagramClass, Point2D> entry : targetPositions.entrySet()) {
+            DiagramClass diagramClass = entry.getKey();
+            Point2D target = entry.getValue();
+            if (currentClasses.contains(diagramClass)
+                    && (Math.abs(diagramClass.getX() - target.getX()) > 1
+                    || Math.abs(diagramClass.getY() - target.getY()) > 1)) {
+                commands.add(new MoveClassCommand(diagramClass, diagramClass.getX(), diagramClass.getY(),
+                        target.getX(), target.getY()));
+            }
+        }
+
+        Runnable recordCommands = () -> {
+            if (commandManager != null && !commands.isEmpty()) {
+                commandManager.startCommandGroup(description);
+                for (MoveClassCommand command : commands) {
                     commandManager.executeCommand(command);
                 }
+                commandManager.endCommandGroup();
+            }
+            if (onApplied != null) {
+                onApplied.run();
+            }
+        };
+
+        if (!animate || commands.isEmpty() || commands.size() > ANIMATION_MAX_CLASSES) {
+            for (MoveClassCommand command : commands) {
+                command.execute();
             }
+            recordCommands.run();
+            return;
         }
-        commandManager.endCommandGroup();
 
-        LOGGER.log(Level.INFO, "Layout with commands applied successfully");
+        List<KeyValue> keyValues = new ArrayList<>(commands.size() * 2);
+        for (Map.Entry<DiagramClass, Point2D> entry : targetPositions.entrySet()) {
+            if (currentClasses.contains(entry.getKey())) {
+                keyValues.add(new KeyValue(entry.getKey().xProperty(), entry.getValue().getX(), Interpolator.EASE_BOTH));
+                keyValues.add(new KeyValue(entry.getKey().yProperty(), entry.getValue().getY(), Interpolator.EASE_BOTH));
+            }
+        }
+        Timeline timeline = new Timeline(new KeyFrame(ANIMATION_DURATION, keyValues.toArray(new KeyValue[0])));
+        timeline.setOnFinished(event -> {
+            for (MoveClassCommand command : commands) {
+                command.execute();
+            }
+            recordCommands.run();
+        });
+        timeline.play();
     }
 
-    public void applyLayout(ClassDiagram diagram, LayoutFactory.LayoutType layoutType) {
+    public LayoutResult applyLayout(ClassDiagram diagram, LayoutFactory.LayoutType layoutType) {
         if (diagram == null || diagram.getClasses().isEmpty()) {
             LOGGER.log(Level.WARNING, "Cannot apply layout to null or empty diagram");
-            return;
+            return null;
         }
 
         LOGGER.log(Level.INFO, "Applying {0} layout to diagram {1}",
                 new Object[]{layoutType, diagram.getName()});
         LayoutManager layoutManager = getLayoutManager(diagram);
-        layoutManager.setAlgorithm(LayoutFactory.createLayout(layoutType));
-        double width = diagramContainer != null ? diagramContainer.getWidth() : 1000;
-        double height = diagramContainer != null ? diagramContainer.getHeight() : 800;
-        layoutManager.applyLayout(width, height);
+        layoutManager.setOptions(layoutOptions);
+        layoutManager.setAlgorithm(layoutType);
+        Dimension2D viewport = getViewportSize();
+        LayoutResult layoutResult = layoutManager.applyLayout(viewport.getWidth(), viewport.getHeight());
 
-        LOGGER.log(Level.INFO, "Layout applied successfully");
+        LOGGER.log(Level.INFO, "Layout applied successfully ({0})", layoutResult);
+        return layoutResult;
     }
 
-    public void applyLayoutWithDimensions(ClassDiagram diagram, LayoutFactory.LayoutType layoutType,
-                                          double width, double height) {
+    public LayoutResult applyLayoutWithDimensions(ClassDiagram diagram, LayoutFactory.LayoutType layoutType,
+                                                  double width, double height) {
         if (diagram == null || diagram.getClasses().isEmpty()) {
-            return;
+            return null;
         }
 
         LayoutManager layoutManager = getLayoutManager(diagram);
-        layoutManager.setAlgorithm(LayoutFactory.createLayout(layoutType));
-        layoutManager.applyLayout(width, height);
+        layoutManager.setOptions(layoutOptions);
+        layoutManager.setAlgorithm(layoutType);
+        LayoutResult layoutResult = layoutManager.applyLayout(width, height);
+        LOGGER.log(Level.INFO, "Layout of {0} applied ({1})", new Object[]{diagram.getName(), layoutResult});
+        return layoutResult;
+    }
+
+    public LayoutResult applyLayoutWithDimensions(ClassDiagram diagram, LayoutFactory.LayoutType layoutType,
+                                                  double width, double height,
+                                                  ForceDirectedLayout.ProgressListener progressListener,
+                                                  BooleanSupplier cancellationCheck) {
+        if (diagram == null || diagram.getClasses().isEmpty()) {
+            return null;
+        }
+
+        LayoutOptions options = layoutOptions.copy();
+        options.setProgressListener(progressListener);
+        options.setCancellationCheck(cancellationCheck);
+        LayoutManager layoutManager = new LayoutManager(diagram, options);
+        layoutManager.setAlgorithm(layoutType);
+        LayoutResult layoutResult = layoutManager.applyLayout(width, height);
+        LOGGER.log(Level.INFO, "Layout of {0} applied ({1})", new Object[]{diagram.getName(), layoutResult});
+        return layoutResult;
+    }
+
+    public Dimension2D getViewportSize() {
+        double width = diagramContainer != null ? diagramContainer.getWidth() : 1000;
+        double height = diagramContainer != null ? diagramContainer.getHeight() : 800;
+        return new Dimension2D(width, height);
     }
 
     public Dimension2D calculateRequiredSpace(ClassDiagram diagram) {
@@ -131,9 +289,8 @@ public class LayoutService {
         for (DiagramClass diagramClass : diagram.getClasses()) {
             double x = diagramClass.getX();
             double y = diagramClass.getY();
-            double width = 200;
-            double height = 120 + diagramClass.getAttributes().size() * 20 +
-                    diagramClass.getMethods().size() * 20;
+            double width = layoutOptions.getNodeSizeProvider().getWidth(diagramClass);
+            double height = layoutOptions.getNodeSizeProvider().getHeight(diagramClass);
 
             minX = Math.min(minX, x);
             minY = Math.min(minY, y);
@@ -150,7 +307,7 @@ public class LayoutService {
     private LayoutManager getLayoutManager(ClassDiagram diagram) {
         return layoutManagers.computeIfAbsent(
                 diagram.getId(),
-                id -> new LayoutManager(diagram)
+                id -> new LayoutManager(diagram, layoutOptions)
         );
     }
 
@@ -0,0 +1,97 @@
+package com.diaggen.service;
+
+import com.diaggen.layout.CapturedNodeSizes;
+import com.diaggen.layout.LayoutFactory;
+import com.diaggen.layout.LayoutManager;
+import com.diaggen.layout.LayoutOptions;
+import com.diaggen.layout.LayoutResult;
+import com.diaggen.layout.NodeSizeProvider;
+import com.diaggen.model.ClassDiagram;
+import com.diaggen.model.DiagramClass;
+import javafx.concurrent.Task;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+public class LayoutTask extends Task<LayoutResult> {
+
+    private static final Logger LOGGER = Logger.getLogger(LayoutTask.class.getName());
+
+    private final LayoutFactory.LayoutType layoutType;
+    private final LayoutOptions layoutOptions;
+    private final double width;
+    private final double height;
+    private final List<DiagramClass> originalClasses;
+    private final ClassDiagram snapshot;
+    private final CapturedNodeSizes nodeSizes;
+    private final NodeSizeProvider pendingSizes;
+    private final Map<DiagramClass, LayoutService.Point2D> targetPositions = new HashMap<>();
+
+    public LayoutTask(ClassDiagram diagram, LayoutFactory.LayoutType layoutType, LayoutOptions layoutOptions,
+                      double width, double height) {
+        this.layoutType = layoutType;
+        this.width = width;
+        this.height = height;
+        this.originalClasses = new ArrayList<>(diagram.getClasses());
+        this.snapshot = diagram.createCopy();
+        this.layoutOptions = layoutOptions.copy();
+        NodeSizeProvider provider = layoutOptions.getNodeSizeProvider();
+        NodeMeasurementService measurementService = NodeMeasurementService.getInstance();
+        if (provider == measurementService) {
+            this.pendingSizes = measurementService.withoutCaching();
+            this.nodeSizes = CapturedNodeSizes.capture(originalClasses, snapshot.getClasses(), provider,
+                    diagramClass -> !diagramClass.isMaterialized() && !measurementService.hasMeasurement(diagramClass));
+        } else {
+            this.pendingSizes = provider;
+            this.nodeSizes = CapturedNodeSizes.capture(originalClasses, snapshot.getClasses(), provider,
+                    diagramClass -> !diagramClass.isMaterialized());
+        }
+        this.layoutOptions.setNodeSizeProvider(nodeSizes);
+    }
+
+    public LayoutFactory.LayoutType getLayoutType() {
+        return layoutType;
+    }
+
+    public Map<DiagramClass, LayoutService.Point2D> getTargetPositions() {
+        return targetPositions;
+    }
+
+    @Override
+    protected LayoutResult call() {
+        updateMessage("Calcul de la disposition...");
+        updateProgress(-1, 1);
+        nodeSizes.measurePending(pendingSizes);
+
+        layoutOptions.setCancellationCheck(this::isCancelled);
+        layoutOptions.setProgressListener(this::onIteration);
+        LayoutManager.LayoutAlgorithm algorithm = LayoutFactory.createLayout(layoutType, layoutOptions);
+        LayoutManager layoutManager = new LayoutManager(snapshot, layoutOptions);
+        layoutManager.setAlgorithm(algorithm);
+
+        long start = System.nanoTime();
+        LayoutResult layoutResult = layoutManager.applyLayout(width, height);
+        if (isCancelled()) {
+            return null;
+        }
+
+        List<DiagramClass> snapshotClasses = snapshot.getClasses();
+        for (int i = 0; i < originalClasses.size(); i++) {
+            DiagramClass laidOut = snapshotClasses.get(i);
+            targetPositions.put(originalClasses.get(i), new LayoutService.Point2D(laidOut.getX(), laidOut.getY()));
+        }
+
+        LOGGER.log(Level.INFO, "{0} layout of {1} classes computed in {2} ms ({3})",
+                new Object[]{layoutType, originalClasses.size(), (System.nanoTime() - start) / 1_000_000, layoutResult});
+        return layoutResult;
+    }
+
+    private void onIteration(int iteration, int maxIterations, double energy) {
+        updateProgress(iteration, maxIterations);
+        updateMessage(String.format("Itération %d (énergie %.1f)", iteration, energy));
+    }
+}
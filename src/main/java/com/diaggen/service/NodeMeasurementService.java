@@ -0,0 +1,227 @@
+package com.diaggen.service;
+
+import com.diaggen.layout.NodeSizeProvider;
+import com.diaggen.model.DiagramClass;
+import com.diaggen.model.MemberFormatter;
+import javafx.scene.text.Font;
+import javafx.scene.text.FontWeight;
+import javafx.scene.text.Text;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+public class NodeMeasurementService implements NodeSizeProvider {
+
+    private static final Logger LOGGER = Logger.getLogger(NodeMeasurementService.class.getName());
+    private static final double MIN_WIDTH = 150;
+    private static final double PADDING = 10;
+    private static final double SPACING = 5;
+    private static final double SEPARATOR_HEIGHT = 1;
+    private static final char FIRST_GLYPH = 32;
+    private static final char LAST_GLYPH = 126;
+
+    private static NodeMeasurementService instance;
+    private final Map<String, Measurement> measurements = new ConcurrentHashMap<>();
+    private volatile FontMetrics textMetrics;
+    private volatile FontMetrics titleMetrics;
+
+    public static synchronized NodeMeasurementService getInstance() {
+        if (instance == null) {
+            instance = new NodeMeasurementService();
+        }
+        return instance;
+    }
+
+    @Override
+    public double getWidth(DiagramClass diagramClass) {
+        return getMeasurement(diagramClass).width;
+    }
+
+    @Override
+    public double getHeight(DiagramClass diagramClass) {
+        return getMeasurement(diagramClass).height;
+    }
+
+    public void recordRendered(DiagramClass diagramClass, double width, double height) {
+        if (width > 0 && height > 0) {
+            measurements.put(diagramClass.getId(), new Measurement(getSignature(diagramClass), width, height));
+        }
+    }
+
+    public boolean hasMeasurement(DiagramClass diagramClass) {
+        Measurement measurement = measurements.get(diagramClass.getId());
+        return measurement != null && measurement.signature == getSignature(diagramClass);
+    }
+
+    public NodeSizeProvider withoutCaching() {
+        return new UncachedSizes();
+    }
+
+    public void forget(DiagramClass diagramClass) {
+        measurements.remove(diagramClass.getId());
+    }
+
+    public void clear() {
+        measurements.clear();
+    }
+
+    private Measurement getMeasurement(DiagramClass diagramClass) {
+        int signature = getSignature(diagramClass);
+        Measurement measurement = measurements.get(diagramClass.getId());
+        if (measurement == null || measurement.signature != signature) {
+            measurement = estimate(diagramClass, signature);
+            measurements.put(diagramClass.getId(), measurement);
+        }
+        return measurement;
+    }
+
+    private int getSignature(DiagramClass diagramClass) {
+        return Objects.hash(diagramClass.getName(), diagramClass.getClassType(),
+                diagramClass.getAttributeCount(), diagramClass.getMethodCount());
+    }
+
+    private Measurement estimate(DiagramClass diagramClass, int signature) {
+        ensureMetrics();
+        double textWidth = titleMetrics.measure(diagramClass.getName());
+        double height = titleMetrics.lineHeight + 2 * SEPARATOR_HEIGHT;
+        int attributes = diagramClass.getAttributeCount();
+        int methods = diagramClass.getMethodCount();
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < attributes; i++) {
+            text.setLength(0);
+            textWidth = Math.max(textWidth, textMetrics.measure(MemberFormatter.appendAttribute(text, diagramClass, i)));
+        }
+        for (int i = 0; i < methods; i++) {
+            text.setLength(0);
+            textWidth = Math.max(textWidth, textMetrics.measure(MemberFormatter.appendMethod(text, diagramClass, i)));
+        }
+        int children = 3 + attributes + methods;
+        String stereotype = getStereotype(diagramClass);
+        if (stereotype != null) {
+            textWidth = Math.max(textWidth, textMetrics.measure(stereotype));
+            height += textMetrics.lineHeight;
+            children++;
+        }
+        height += (attributes + methods) * textMetrics.lineHeight;
+
+        double width = Math.max(MIN_WIDTH, textWidth + 2 * PADDING) + 4 * PADDING;
+        height += (children - 1) * SPACING + 4 * PADDING;
+        return new Measurement(signature, width, height);
+    }
+
+    private String getStereotype(DiagramClass diagramClass) {
+        if (diagramClass.getClassType() == null) {
+            return null;
+        }
+        switch (diagramClass.getClassType()) {
+            case INTERFACE:
+                return "«interface»";
+            case ABSTRACT_CLASS:
+                return "«abstract»";
+            case ENUM:
+                return "«enumeration»";
+            case PACKAGE:
+                return "«package»";
+            default:
+                return null;
+        }
+    }
+
+    private void ensureMetrics() {
+        if (textMetrics != null) {
+            return;
+        }
+        synchronized (this) {
+            if (textMetrics == null) {
+                titleMetrics = FontMetrics.measure(Font.font("System", FontWeight.BOLD, 14), 8.5, 19);
+                textMetrics = FontMetrics.measure(Font.font("System", 12), 7, 16);
+            }
+        }
+    }
+
+    private class UncachedSizes implements NodeSizeProvider {
+
+        private DiagramClass lastClass;
+        private Measurement lastMeasurement;
+
+        @Override
+        public double getWidth(DiagramClass diagramClass) {
+            return measure(diagramClass).width;
+        }
+
+        @Override
+        public double getHeight(DiagramClass diagramClass) {
+            return measure(diagramClass).height;
+        }
+
+        private Measurement measure(DiagramClass diagramClass) {
+            if (diagramClass != lastClass) {
+                lastMeasurement = estimate(diagramClass, getSignature(diagramClass));
+                lastClass = diagramClass;
+            }
+            return lastMeasurement;
+        }
+    }
+
+    private static class Measurement {
+
+        private final int signature;
+        private final double width;
+        private final double height;
+
+        Measurement(int signature, double width, double height) {
+            this.signature = signature;
+            this.width = width;
+            this.height = height;
+        }
+    }
+
+    private static class FontMetrics {
+
+        private final double[] advances = new double[LAST_GLYPH - FIRST_GLYPH + 1];
+        private double averageAdvance;
+        private double lineHeight;
+
+        static FontMetrics measure(Font font, double fallbackAdvance, double fallbackLineHeight) {
+            FontMetrics metrics = new FontMetrics();
+            try {
+                Text helper = new Text();
+                helper.setFont(font);
+                double total = 0;
+                for (char c = FIRST_GLYPH; c <= LAST_GLYPH; c++) {
+                    helper.setText(String.valueOf(c));
+                    metrics.advances[c - FIRST_GLYPH] = helper.getLayoutBounds().getWidth();
+                    total += metrics.advances[c - FIRST_GLYPH];
+                }
+                metrics.averageAdvance = total / metrics.advances.length;
+                helper.setText("Ag");
+                metrics.lineHeight = helper.getLayoutBounds().getHeight();
+            } catch (RuntimeException | LinkageError e) {
+                LOGGER.log(Level.FINE, "Font metrics unavailable, using default glyph sizes", e);
+                metrics.averageAdvance = 0;
+            }
+            if (metrics.averageAdvance <= 0 || metrics.lineHeight <= 0) {
+                Arrays.fill(metrics.advances, fallbackAdvance);
+                metrics.averageAdvance = fallbackAdvance;
+                metrics.lineHeight = fallbackLineHeight;
+            }
+            return metrics;
+        }
+
+        double measure(CharSequence text) {
+            if (text == null) {
+                return 0;
+            }
+            double width = 0;
+            for (int i = 0; i < text.length(); i++) {
+                char c = text.charAt(i);
+                width += c >= FIRST_GLYPH && c <= LAST_GLYPH ? advances[c - FIRST_GLYPH] : averageAdvance;
+            }
+            return width;
+        }
+    }
+}
@@ -135,7 +135,7 @@ public class EditorPanelController {
         grid.add(packageNameField, 1, 1);
 
         Label typeLabel = new Label("Type:");
-        classTypeComboBox = new ComboBox<>(FXCollections.observableArrayList(ClassType.values()));
+        classTypeComboBox = new ComboBox<>(FXCollections.observableArrayList(ClassType.getEditableTypes()));
         classTypeComboBox.setConverter(new StringConverter<ClassType>() {
             @Override
             public String toString(ClassType type) {
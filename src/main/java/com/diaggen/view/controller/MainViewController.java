@@ -245,6 +245,12 @@ public class MainViewController {
     }
 
     private void setupSelectionHandling() {
+        diagramCanvas.setClassDoubleClickListener(diagramClass -> {
+            if (mainController != null) {
+                mainController.handleExpandPackage(diagramClass);
+            }
+        });
+
         diagramCanvas.setClassSelectionListener(diagramClass -> {
             if (diagramClass != null) {
                 selectedClass = diagramClass;
@@ -607,6 +613,46 @@ public class MainViewController {
         }
     }
 
+    @FXML
+    private void handleResyncJavaCode() {
+        if (mainController != null) {
+            LOGGER.log(Level.INFO, "Resynchronizing Java code");
+            mainController.handleResyncJavaCode();
+        }
+    }
+
+    @FXML
+    private void handleToggleJavaWatch() {
+        if (mainController != null) {
+            LOGGER.log(Level.INFO, "Toggling Java source watch");
+            mainController.handleToggleJavaWatch();
+        }
+    }
+
+    @FXML
+    private void handleClearParseCache() {
+        if (mainController != null) {
+            LOGGER.log(Level.INFO, "Clearing Java parse cache");
+            mainController.handleClearParseCache();
+        }
+    }
+
+    @FXML
+    private void handleExpandPackage() {
+        if (mainController != null) {
+            LOGGER.log(Level.INFO, "Expanding selected package");
+            mainController.handleExpandPackage(diagramCanvas.getSelectedClass());
+        }
+    }
+
+    @FXML
+    private void handleCollapsePackage() {
+        if (mainController != null) {
+            LOGGER.log(Level.INFO, "Collapsing package of selected class");
+            mainController.handleCollapsePackage(diagramCanvas.getSelectedClass());
+        }
+    }
+
     @FXML
     private void handleExportImage() {
         if (mainController != null) {
@@ -765,6 +811,17 @@ public class MainViewController {
         }
     }
 
+    @FXML
+    private void handleIncrementalLayout() {
+        if (layoutController != null && mainController != null) {
+            LOGGER.log(Level.INFO, "Applying incremental layout");
+            ClassDiagram activeDiagram = mainController.getDiagramStore().getActiveDiagram();
+            if (activeDiagram != null) {
+                layoutController.applyIncrementalLayout(activeDiagram);
+            }
+        }
+    }
+
     public void configureAllControllers() {
         LOGGER.log(Level.INFO, "Configuring all controllers");
         if (projectExplorerController != null && mainController != null && projectController != null) {
@@ -28,6 +28,7 @@ import javafx.scene.layout.Pane;
 import javafx.scene.layout.StackPane;
 import javafx.util.Duration;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.function.Consumer;
@@ -55,6 +56,7 @@ public class DiagramCanvas extends AnchorPane {
     private Runnable onDeleteRequest;
     private Consumer<DiagramClass> classSelectionListener;
     private Consumer<DiagramRelation> relationSelectionListener;
+    private boolean contentUpdatePending = false;
 
     public DiagramCanvas() {
         getStyleClass().add("diagram-canvas");
@@ -334,7 +336,104 @@ public class DiagramCanvas extends AnchorPane {
     private void setupEventBusListeners() {
         eventBus.subscribe(DiagramChangedEvent.class, event -> {
             if (diagram != null && diagram.getId().equals(event.getDiagramId())) {
-                Platform.runLater(this::refresh);
+                Platform.runLater(() -> handleDiagramChanged(event));
+            }
+        });
+    }
+
+    private void handleDiagramChanged(DiagramChangedEvent event) {
+        if (diagram == null || !diagram.getId().equals(event.getDiagramId())) {
+            return;
+        }
+
+        String elementId = event.getElementId();
+        if (elementId == null) {
+            refresh();
+            return;
+        }
+
+        switch (event.getChangeType()) {
+            case CLASS_ADDED:
+            case CLASS_MODIFIED:
+            case CLASS_REMOVED:
+                updateClassNode(elementId);
+                break;
+            case RELATION_ADDED:
+            case RELATION_REMOVED:
+                updateRelationLine(elementId);
+                break;
+            default:
+                refresh();
+                break;
+        }
+    }
+
+    private void updateClassNode(String classId) {
+        DiagramClass diagramClass = null;
+        for (DiagramClass candidate : diagram.getClasses()) {
+            if (candidate.getId().equals(classId)) {
+                diagramClass = candidate;
+                break;
+            }
+        }
+
+        ClassNode node = nodeManager.getNodeById(classId);
+        if (diagramClass == null) {
+            if (node != null) {
+                for (RelationLine line : new ArrayList<>(relationManager.getRelationLines().values())) {
+                    DiagramRelation relation = line.getRelation();
+                    if (relation.getSourceClass().getId().equals(classId)
+                            || relation.getTargetClass().getId().equals(classId)) {
+                        relationManager.removeRelationLine(relation);
+                    }
+                }
+                nodeManager.removeClassNode(node.getDiagramClass());
+            }
+        } else if (node == null) {
+            nodeManager.createClassNode(diagramClass);
+            for (DiagramRelation relation : diagram.getRelations()) {
+                if ((relation.getSourceClass().equals(diagramClass) || relation.getTargetClass().equals(diagramClass))
+                        && relationManager.getLineById(relation.getId()) == null) {
+                    relationManager.createRelationLine(relation);
+                }
+            }
+        } else {
+            node.refresh();
+        }
+
+        scheduleContentUpdate();
+    }
+
+    private void updateRelationLine(String relationId) {
+        DiagramRelation relation = null;
+        for (DiagramRelation candidate : diagram.getRelations()) {
+            if (candidate.getId().equals(relationId)) {
+                relation = candidate;
+                break;
+            }
+        }
+
+        RelationLine line = relationManager.getLineById(relationId);
+        if (relation == null && line != null) {
+            relationManager.removeRelationLine(line.getRelation());
+        } else if (relation != null && line == null) {
+            relationManager.createRelationLine(relation);
+        }
+
+        scheduleContentUpdate();
+    }
+
+    private void scheduleContentUpdate() {
+        if (contentUpdatePending) {
+            return;
+        }
+
+        contentUpdatePending = true;
+        Platform.runLater(() -> {
+            contentUpdatePending = false;
+            relationManager.updateAllRelationsLater();
+            if (diagram != null) {
+                miniMapView.updateContent(diagram.getClasses());
             }
         });
     }
@@ -525,6 +624,10 @@ public class DiagramCanvas extends AnchorPane {
         this.classSelectionListener = listener;
     }
 
+    public void setClassDoubleClickListener(Consumer<DiagramClass> listener) {
+        nodeManager.setNodeDoubleClickListener(listener);
+    }
+
     public void setRelationSelectionListener(Consumer<DiagramRelation> listener) {
         this.relationSelectionListener = listener;
     }
@@ -2,8 +2,10 @@ package com.diaggen.view.diagram.canvas;
 
 import com.diaggen.model.DiagramClass;
 import com.diaggen.model.Member;
+import com.diaggen.model.MemberFormatter;
 import com.diaggen.model.Method;
 import com.diaggen.model.Parameter;
+import com.diaggen.service.NodeMeasurementService;
 import javafx.collections.ListChangeListener;
 import javafx.geometry.Insets;
 import javafx.geometry.Point2D;
@@ -15,6 +17,8 @@ import javafx.scene.text.Font;
 import javafx.scene.text.Text;
 import javafx.scene.text.TextBoundsType;
 
+import java.util.List;
+
 public class ClassNode extends Region {
 
     private static final double MIN_WIDTH = 150;
@@ -47,6 +51,18 @@ public class ClassNode extends Region {
         diagramClass.nameProperty().addListener((obs, oldVal, newVal) -> refresh());
         diagramClass.packageNameProperty().addListener((obs, oldVal, newVal) -> refresh());
         diagramClass.classTypeProperty().addListener((obs, oldVal, newVal) -> refresh());
+        diagramClass.memberStoreProperty().addListener((obs, oldVal, newVal) -> {
+            if (newVal == null && diagramClass.isMaterialized()) {
+                bindMembersToView();
+            }
+            refresh();
+        });
+        if (diagramClass.isMaterialized()) {
+            bindMembersToView();
+        }
+    }
+
+    private void bindMembersToView() {
         diagramClass.getAttributes().addListener((ListChangeListener<Member>) change -> {
             while (change.next()) {
                 if (change.wasAdded() || change.wasRemoved() || change.wasUpdated()) {
@@ -147,6 +163,7 @@ public class ClassNode extends Region {
             double oldHeight = getHeight();
             setPrefSize(width, height);
             resize(width, height);
+            NodeMeasurementService.getInstance().recordRendered(diagramClass, width, height);
             if (oldWidth != width || oldHeight != height) {
                 setVisible(false);
                 setVisible(true);
@@ -178,6 +195,9 @@ public class ClassNode extends Region {
     }
 
     private void updateModelListeners() {
+        if (!diagramClass.isMaterialized()) {
+            return;
+        }
         for (Member member : diagramClass.getAttributes()) {
             member.nameProperty().removeListener(observable -> refresh());
             member.typeProperty().removeListener(observable -> refresh());
@@ -230,6 +250,11 @@ public class ClassNode extends Region {
                         enumText.setStyle("-fx-font-style: italic; -fx-font-size: 12;");
                         getChildren().add(enumText);
                         break;
+                    case PACKAGE:
+                        Text packageText = new Text("«package»");
+                        packageText.setStyle("-fx-font-style: italic; -fx-font-size: 12;");
+                        getChildren().add(packageText);
+                        break;
                     default:
                         break;
                 }
@@ -238,46 +263,22 @@ public class ClassNode extends Region {
             Text nameText = new Text(diagramClass.getName());
             nameText.setStyle("-fx-font-weight: bold; -fx-font-size: 14;");
             getChildren().add(nameText);
-            double prefWidth = calculatePreferredWidth();
+            List<String> attributes = MemberFormatter.formatAttributes(diagramClass);
+            List<String> methods = MemberFormatter.formatMethods(diagramClass);
+            double prefWidth = calculatePreferredWidth(attributes, methods);
             Line separator1 = new Line(0, 0, prefWidth, 0);
             separator1.getStyleClass().add("separator");
             getChildren().add(separator1);
-            for (Member attribute : diagramClass.getAttributes()) {
-                Text attrText = new Text(
-                        attribute.getVisibility().getSymbol() + " " +
-                                attribute.getName() + " : " + attribute.getType());
+            for (String attribute : attributes) {
+                Text attrText = new Text(attribute);
                 attrText.setStyle("-fx-font-size: 12;");
                 getChildren().add(attrText);
             }
             Line separator2 = new Line(0, 0, prefWidth, 0);
             separator2.getStyleClass().add("separator");
             getChildren().add(separator2);
-            for (Method method : diagramClass.getMethods()) {
-                StringBuilder methodText = new StringBuilder();
-                methodText.append(method.getVisibility().getSymbol()).append(" ");
-
-                if (method.isStatic()) {
-                    methodText.append("static ");
-                }
-
-                if (method.isAbstract()) {
-                    methodText.append("abstract ");
-                }
-
-                methodText.append(method.getName()).append("(");
-
-                boolean first = true;
-                for (Parameter param : method.getParameters()) {
-                    if (!first) {
-                        methodText.append(", ");
-                    }
-                    methodText.append(param.getName()).append(" : ").append(param.getType());
-                    first = false;
-                }
-
-                methodText.append(") : ").append(method.getReturnType());
-
-                Text methText = new Text(methodText.toString());
+            for (String method : methods) {
+                Text methText = new Text(method);
                 methText.setStyle("-fx-font-size: 12;");
                 getChildren().add(methText);
             }
@@ -285,7 +286,7 @@ public class ClassNode extends Region {
             layout();
         }
 
-        private double calculatePreferredWidth() {
+        private double calculatePreferredWidth(List<String> attributes, List<String> methods) {
             Text helper = new Text();
             helper.setBoundsType(TextBoundsType.VISUAL);
             double prefWidth = MIN_WIDTH;
@@ -307,46 +308,24 @@ public class ClassNode extends Region {
                         helper.setText("«enumeration»");
                         prefWidth = Math.max(prefWidth, helper.getLayoutBounds().getWidth() + 20);
                         break;
+                    case PACKAGE:
+                        helper.setText("«package»");
+                        prefWidth = Math.max(prefWidth, helper.getLayoutBounds().getWidth() + 20);
+                        break;
                     default:
                         break;
                 }
             }
-            for (Member attribute : diagramClass.getAttributes()) {
-                String fullText = attribute.getVisibility().getSymbol() + " " +
-                        attribute.getName() + " : " + attribute.getType();
-                helper.setText(fullText);
+            for (String attribute : attributes) {
+                helper.setText(attribute);
                 prefWidth = Math.max(prefWidth, helper.getLayoutBounds().getWidth() + 20);
             }
-            for (Method method : diagramClass.getMethods()) {
-                StringBuilder methodText = new StringBuilder();
-                methodText.append(method.getVisibility().getSymbol()).append(" ");
-
-                if (method.isStatic()) {
-                    methodText.append("static ");
-                }
-
-                if (method.isAbstract()) {
-                    methodText.append("abstract ");
-                }
-
-                methodText.append(method.getName()).append("(");
-
-                boolean first = true;
-                for (Parameter param : method.getParameters()) {
-                    if (!first) {
-                        methodText.append(", ");
-                    }
-                    methodText.append(param.getName()).append(" : ").append(param.getType());
-                    first = false;
-                }
-
-                methodText.append(") : ").append(method.getReturnType());
-
-                helper.setText(methodText.toString());
+            for (String method : methods) {
+                helper.setText(method);
                 prefWidth = Math.max(prefWidth, helper.getLayoutBounds().getWidth() + 20);
             }
 
             return prefWidth;
         }
     }
-}
\ No newline at end of file
+}
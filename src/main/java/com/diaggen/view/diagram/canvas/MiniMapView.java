@@ -2,6 +2,7 @@ package com.diaggen.view.diagram.canvas;
 
 import com.diaggen.model.ClassType;
 import com.diaggen.model.DiagramClass;
+import com.diaggen.service.NodeMeasurementService;
 import javafx.animation.FadeTransition;
 import javafx.animation.TranslateTransition;
 import javafx.application.Platform;
@@ -222,8 +223,8 @@ public class MiniMapView extends VBox {
             hasClasses = true;
             double x = diagramClass.getX();
             double y = diagramClass.getY();
-            double width = 200;
-            double height = 120 + diagramClass.getAttributes().size() * 20 + diagramClass.getMethods().size() * 20;
+            double width = NodeMeasurementService.getInstance().getWidth(diagramClass);
+            double height = NodeMeasurementService.getInstance().getHeight(diagramClass);
 
             minX = Math.min(minX, x);
             minY = Math.min(minY, y);
@@ -248,8 +249,8 @@ public class MiniMapView extends VBox {
     private void createClassRectangle(DiagramClass diagramClass) {
         double x = diagramClass.getX();
         double y = diagramClass.getY();
-        double width = 200;
-        double height = 120 + diagramClass.getAttributes().size() * 20 + diagramClass.getMethods().size() * 20;
+        double width = NodeMeasurementService.getInstance().getWidth(diagramClass);
+        double height = NodeMeasurementService.getInstance().getHeight(diagramClass);
 
         Rectangle rect = new Rectangle(
                 (x - minX) * miniMapScale + 10,
@@ -5,6 +5,7 @@ import com.diaggen.controller.command.MoveClassCommand;
 import com.diaggen.event.ClassMovedEvent;
 import com.diaggen.event.EventBus;
 import com.diaggen.model.DiagramClass;
+import com.diaggen.service.NodeMeasurementService;
 import javafx.geometry.Point2D;
 import javafx.scene.input.MouseButton;
 import javafx.scene.input.MouseEvent;
@@ -12,6 +13,7 @@ import javafx.scene.layout.Pane;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.function.Consumer;
 
 public class NodeManager {
 
@@ -27,6 +29,7 @@ public class NodeManager {
     private RelationManager relationManager;
     private CommandManager commandManager;
     private Runnable changeListener;
+    private Consumer<DiagramClass> doubleClickListener;
     private ViewportTransform viewportTransform;
 
     public NodeManager(Pane container) {
@@ -69,6 +72,7 @@ public class NodeManager {
         classNode.setOnMousePressed(e -> handleMousePressed(e, classNode));
         classNode.setOnMouseDragged(e -> handleMouseDragged(e, classNode));
         classNode.setOnMouseReleased(e -> handleMouseReleased(e, diagramClass, classNode));
+        classNode.setOnMouseClicked(e -> handleMouseClicked(e, diagramClass));
 
         if (relationManager != null) {
             classNode.setPositionChangeListener(() -> relationManager.updateAllRelationsLater());
@@ -88,6 +92,17 @@ public class NodeManager {
         e.consume();
     }
 
+    private void handleMouseClicked(MouseEvent e, DiagramClass diagramClass) {
+        if (e.getButton() != MouseButton.PRIMARY || e.getClickCount() != 2 || isDragging) {
+            return;
+        }
+
+        if (doubleClickListener != null) {
+            doubleClickListener.accept(diagramClass);
+        }
+        e.consume();
+    }
+
     private void handleMouseDragged(MouseEvent e, ClassNode classNode) {
         if (e.getButton() != MouseButton.PRIMARY) {
             return;
@@ -184,6 +199,7 @@ public class NodeManager {
         if (node != null) {
             container.getChildren().remove(node);
             classNodes.remove(diagramClass.getId());
+            NodeMeasurementService.getInstance().forget(diagramClass);
 
             if (selectedNode == node) {
                 selectedNode = null;
@@ -199,6 +215,7 @@ public class NodeManager {
     public void clear() {
         container.getChildren().removeIf(ClassNode.class::isInstance);
         classNodes.clear();
+        NodeMeasurementService.getInstance().clear();
         selectedNode = null;
         if (selectionListener != null) {
             selectionListener.onNodeSelected(null);
@@ -245,6 +262,10 @@ public class NodeManager {
         this.selectionListener = listener;
     }
 
+    public void setNodeDoubleClickListener(Consumer<DiagramClass> listener) {
+        this.doubleClickListener = listener;
+    }
+
     public interface NodeSelectionListener {
         void onNodeSelected(ClassNode node);
     }
@@ -0,0 +1,73 @@
+package com.diaggen.view.dialog;
+
+import com.diaggen.model.java.ImportOptions;
+import javafx.geometry.Insets;
+import javafx.scene.control.*;
+import javafx.scene.layout.GridPane;
+import javafx.stage.Window;
+
+public class ImportOptionsDialog extends Dialog<ImportOptions> {
+
+    private final TextArea includeArea;
+    private final TextArea excludeArea;
+    private final CheckBox detectSourceRootsCheckBox;
+    private final CheckBox aggregatePackagesCheckBox;
+    private final CheckBox lazyMembersCheckBox;
+
+    public ImportOptionsDialog(Window owner, ImportOptions options) {
+        setTitle("Importer un projet Java");
+        setHeaderText("Options d'importation");
+
+        if (owner != null) {
+            initOwner(owner);
+        }
+
+        ButtonType importButtonType = new ButtonType("Importer", ButtonBar.ButtonData.OK_DONE);
+        getDialogPane().getButtonTypes().addAll(importButtonType, ButtonType.CANCEL);
+
+        GridPane grid = new GridPane();
+        grid.setHgap(10);
+        grid.setVgap(10);
+        grid.setPadding(new Insets(20, 20, 10, 10));
+
+        detectSourceRootsCheckBox = new CheckBox("Détecter les racines src/main/java des modules Maven/Gradle");
+        detectSourceRootsCheckBox.setSelected(options.isDetectSourceRoots());
+
+        aggregatePackagesCheckBox = new CheckBox("Vue par paquetages (un nœud par paquetage, développable à la demande)");
+        aggregatePackagesCheckBox.setSelected(options.isAggregatePackages());
+
+        lazyMembersCheckBox = new CheckBox("Charger les attributs et méthodes à la demande");
+        lazyMembersCheckBox.setSelected(options.isLazyMembers());
+
+        includeArea = new TextArea(String.join("\n", options.getIncludePatterns()));
+        includeArea.setPrefRowCount(3);
+        includeArea.setPromptText("Vide : tous les fichiers .java");
+
+        excludeArea = new TextArea(String.join("\n", options.getExcludePatterns()));
+        excludeArea.setPrefRowCount(6);
+
+        grid.add(detectSourceRootsCheckBox, 0, 0, 2, 1);
+        grid.add(aggregatePackagesCheckBox, 0, 1, 2, 1);
+        grid.add(lazyMembersCheckBox, 0, 2, 2, 1);
+        grid.add(new Label("Inclure :"), 0, 3);
+        grid.add(includeArea, 1, 3);
+        grid.add(new Label("Exclure :"), 0, 4);
+        grid.add(excludeArea, 1, 4);
+        grid.add(new Label("Un motif glob par ligne, relatif au dossier importé (ex. : **/generated/**)."), 0, 5, 2, 1);
+
+        getDialogPane().setContent(grid);
+
+        setResultConverter(dialogButton -> {
+            if (dialogButton == importButtonType) {
+                ImportOptions result = new ImportOptions();
+                result.setDetectSourceRoots(detectSourceRootsCheckBox.isSelected());
+                result.setAggregatePackages(aggregatePackagesCheckBox.isSelected());
+                result.setLazyMembers(lazyMembersCheckBox.isSelected());
+                result.setIncludePatterns(ImportOptions.parsePatterns(includeArea.getText()));
+                result.setExcludePatterns(ImportOptions.parsePatterns(excludeArea.getText()));
+                return result;
+            }
+            return null;
+        });
+    }
+}
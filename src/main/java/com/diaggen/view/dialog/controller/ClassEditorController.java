@@ -53,7 +53,7 @@ public class ClassEditorController {
     @FXML
     public void initialize() {
 
-        typeComboBox.setItems(FXCollections.observableArrayList(ClassType.values()));
+        typeComboBox.setItems(FXCollections.observableArrayList(ClassType.getEditableTypes()));
         typeComboBox.setConverter(new StringConverter<>() {
             @Override
             public String toString(ClassType classType) {